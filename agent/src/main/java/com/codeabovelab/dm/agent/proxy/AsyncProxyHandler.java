@@ -0,0 +1,400 @@
+/*
+ * Copyright 2017 Code Above Lab LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.codeabovelab.dm.agent.proxy;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.*;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.Future;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Handler of proxy request in async mode. It take connection from pool of {@link Backend}, and pass
+ * backend response to front through non blocking servlet IO. While front stream is not ready, handler
+ * stops reading from backend, so slow client does not cause growing of buffers. Request content which is not
+ * buffered by {@link ProxyServlet} is streamed to backend in same manner: handler stops reading from front
+ * while backend channel is not writable. <p/>
+ * All state is guarded by 'this', because it is accessed from netty and servlet container threads.
+ */
+@Slf4j
+class AsyncProxyHandler extends ChannelInboundHandlerAdapter implements WriteListener, AsyncListener {
+    private final String id;
+    private final AsyncContext asyncContext;
+    private final HttpServletResponse frontResp;
+    private final Backend backend;
+    private final Deque<HttpContent> queue = new ArrayDeque<>();
+    private ServletOutputStream stream;
+    /**
+     * Front request content, it is not null only while content is streamed.
+     */
+    private ServletInputStream body;
+    private byte[] bodyBuff;
+    /**
+     * Front content can be read from any thread only after first call of {@link ReadListener},
+     * before it container may still dispatch the request.
+     */
+    private boolean bodyReadable;
+    private Channel channel;
+    private boolean keepAlive;
+    private boolean last;
+    private boolean done;
+
+    AsyncProxyHandler(String id, AsyncContext asyncContext, Backend backend) {
+        this.id = id;
+        this.asyncContext = asyncContext;
+        this.frontResp = (HttpServletResponse) asyncContext.getResponse();
+        this.backend = backend;
+    }
+
+    /**
+     * Acquire backend connection and send request into it.
+     * @param request request to backend
+     * @throws IOException on error
+     */
+    void start(HttpRequest request) throws IOException {
+        asyncContext.addListener(this);
+        synchronized (this) {
+            if(!(request instanceof FullHttpRequest)) {
+                // input must be opened before output, otherwise container can not answer to 'Expect: 100-continue'
+                this.body = asyncContext.getRequest().getInputStream();
+                this.bodyBuff = new byte[ProxyServlet.BODY_CHUNK_LEN];
+                this.body.setReadListener(new BodyListener());
+            }
+            this.stream = frontResp.getOutputStream();
+            this.stream.setWriteListener(this);
+        }
+        backend.acquire().addListener((Future<Channel> f) -> {
+            if(f.isSuccess()) {
+                onAcquire(f.getNow(), request);
+            } else {
+                ReferenceCountUtil.release(request);
+                fail(f.cause());
+            }
+        });
+    }
+
+    private synchronized void onAcquire(Channel channel, HttpRequest request) {
+        if(done) {
+            ReferenceCountUtil.release(request);
+            backend.release(channel);
+            return;
+        }
+        log.debug("{}: acquire {}", id, channel);
+        this.channel = channel;
+        channel.pipeline().addLast(this);
+        channel.writeAndFlush(request).addListener(this::checkWrite);
+        pumpBody();
+    }
+
+    private void checkWrite(Future<?> f) {
+        if(!f.isSuccess()) {
+            fail(f.cause());
+        }
+    }
+
+    /**
+     * Pass available front content to backend while backend channel is writable.
+     */
+    private synchronized void pumpBody() {
+        if(done || body == null || channel == null || !bodyReadable) {
+            return;
+        }
+        try {
+            boolean written = false;
+            while(channel.isWritable() && !body.isFinished() && body.isReady()) {
+                int read = body.read(bodyBuff);
+                if(read <= 0) {
+                    break;
+                }
+                ByteBuf buf = channel.alloc().buffer(read);
+                buf.writeBytes(bodyBuff, 0, read);
+                channel.write(new DefaultHttpContent(buf)).addListener(this::checkWrite);
+                written = true;
+            }
+            if(body.isFinished()) {
+                log.debug("{}: request content is streamed", id);
+                body = null;
+                bodyBuff = null;
+                channel.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT).addListener(this::checkWrite);
+            } else if(written) {
+                // when channel become writable then channelWritabilityChanged continue, otherwise onDataAvailable
+                channel.flush();
+            }
+        } catch (IOException e) {
+            log.debug("{}: can not read from front: {}", id, e.toString());
+            finish(false);
+        } catch (Exception e) {
+            fail(e);
+        }
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        if(ctx.channel().isWritable()) {
+            pumpBody();
+        }
+        super.channelWritabilityChanged(ctx);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if(msg instanceof HttpResponse) {
+            handleHeader((HttpResponse) msg);
+        }
+        if(msg instanceof HttpContent) {
+            handleContent((HttpContent) msg);
+        } else if(!(msg instanceof HttpResponse)) {
+            log.debug("{}: receive unknown msg: {}", id, msg);
+            ReferenceCountUtil.release(msg);
+        }
+    }
+
+    private synchronized void handleHeader(HttpResponse backendResp) {
+        if(done) {
+            return;
+        }
+        this.keepAlive = HttpUtil.isKeepAlive(backendResp);
+        frontResp.setStatus(backendResp.status().code());
+        HttpHeaders headers = backendResp.headers();
+        for (String name : headers.names()) {
+            List<String> vals = headers.getAll(name);
+            vals.forEach(val -> frontResp.addHeader(name, val));
+        }
+    }
+
+    private void handleContent(HttpContent content) {
+        synchronized (this) {
+            if(done) {
+                content.release();
+                return;
+            }
+            queue.add(content);
+            if(content instanceof LastHttpContent) {
+                log.debug("{}: receive last", id);
+                this.last = true;
+            }
+        }
+        drain();
+    }
+
+    /**
+     * Write queued content while front stream is ready.
+     */
+    private synchronized void drain() {
+        if(done || stream == null) {
+            return;
+        }
+        try {
+            while(!queue.isEmpty()) {
+                if(!stream.isReady()) {
+                    // onWritePossible will continue
+                    suspendRead();
+                    return;
+                }
+                HttpContent content = queue.poll();
+                try {
+                    Utils.write(content.content(), stream);
+                } finally {
+                    content.release();
+                }
+            }
+            if(!stream.isReady()) {
+                suspendRead();
+                return;
+            }
+            if(last) {
+                finish(keepAlive);
+                return;
+            }
+            stream.flush();
+            if(channel != null) {
+                channel.config().setAutoRead(true);
+            }
+        } catch (IOException e) {
+            // it often happen when client close connection, we do not logging this for reduce noise
+            log.debug("{}: can not write to front: {}", id, e.toString());
+            finish(false);
+        } catch (Exception e) {
+            fail(e);
+        }
+    }
+
+    private void suspendRead() {
+        if(channel != null) {
+            channel.config().setAutoRead(false);
+        }
+    }
+
+    @Override
+    public void onWritePossible() throws IOException {
+        drain();
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        fail(t);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        synchronized (this) {
+            if(!last) {
+                log.debug("{}: backend closed connection before end of response", id);
+                this.last = true;
+            }
+            this.keepAlive = false;
+        }
+        drain();
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+        fail(cause);
+    }
+
+    private synchronized void fail(Throwable cause) {
+        if(done) {
+            return;
+        }
+        log.error("{}: Error in pipeline: ", id, cause);
+        try {
+            if(!frontResp.isCommitted()) {
+                frontResp.reset();
+                frontResp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            }
+        } catch (Exception e) {
+            log.error("{}: Error at exception caught: ", id, e);
+        }
+        finish(false);
+    }
+
+    /**
+     * Complete front request and return connection into pool.
+     * @param reuse reuse connection, otherwise it will be closed
+     */
+    private synchronized void finish(boolean reuse) {
+        if(done) {
+            return;
+        }
+        done = true;
+        if(body != null) {
+            // backend respond before end of request content, so connection is in unknown state
+            reuse = false;
+            body = null;
+        }
+        queue.forEach(HttpContent::release);
+        queue.clear();
+        try {
+            asyncContext.complete();
+        } catch (Exception e) {
+            log.error("{}: can not complete front request: ", id, e);
+        }
+        releaseChannel(reuse);
+        log.debug("{}: end", id);
+    }
+
+    private void releaseChannel(boolean reuse) {
+        Channel channel = this.channel;
+        if(channel == null) {
+            return;
+        }
+        this.channel = null;
+        if(channel.pipeline().context(this) != null) {
+            channel.pipeline().remove(this);
+        }
+        channel.config().setAutoRead(true);
+        if(!reuse) {
+            channel.close();
+        }
+        backend.release(channel);
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) throws IOException {
+        closeByFront();
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) throws IOException {
+        closeByFront();
+    }
+
+    @Override
+    public void onError(AsyncEvent event) throws IOException {
+        closeByFront();
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) throws IOException {
+    }
+
+    private synchronized void closeByFront() {
+        if(done) {
+            return;
+        }
+        // front connection is closed before end of response, so backend connection is in unknown state
+        log.debug("{}: front is closed before end of response", id);
+        done = true;
+        body = null;
+        queue.forEach(HttpContent::release);
+        queue.clear();
+        releaseChannel(false);
+    }
+
+    private final class BodyListener implements ReadListener {
+
+        @Override
+        public void onDataAvailable() throws IOException {
+            onReadable();
+        }
+
+        @Override
+        public void onAllDataRead() throws IOException {
+            onReadable();
+        }
+
+        private void onReadable() {
+            synchronized (AsyncProxyHandler.this) {
+                bodyReadable = true;
+            }
+            pumpBody();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            log.debug("{}: can not read from front: {}", id, t.toString());
+            finish(false);
+        }
+    }
+}
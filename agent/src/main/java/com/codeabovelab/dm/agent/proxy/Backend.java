@@ -17,15 +17,21 @@
 package com.codeabovelab.dm.agent.proxy;
 
 import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.epoll.EpollDomainSocketChannel;
 import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.pool.AbstractChannelPoolHandler;
+import io.netty.channel.pool.ChannelHealthChecker;
+import io.netty.channel.pool.FixedChannelPool;
 import io.netty.channel.unix.DomainSocketAddress;
 import io.netty.channel.unix.DomainSocketChannel;
 import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.util.concurrent.Future;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 /**
@@ -33,11 +39,20 @@ import org.springframework.stereotype.Component;
 @Component
 class Backend implements InitializingBean, DisposableBean {
 
+    private static final String SOCKET = "/var/run/docker.sock";
+    private final ProxyProps props;
     private Bootstrap bootstrap;
     private EpollEventLoopGroup group;
+    private FixedChannelPool pool;
+
+    @Autowired
+    Backend(ProxyProps props) {
+        this.props = props;
+    }
 
     @Override
     public void destroy() throws Exception {
+        pool.close();
         group.shutdownGracefully();
     }
 
@@ -54,9 +69,30 @@ class Backend implements InitializingBean, DisposableBean {
                        }
                    }
           );
+        // pool replace handler of bootstrap, therefore we give it a clone
+        Bootstrap pooled = bootstrap.clone().remoteAddress(new DomainSocketAddress(SOCKET));
+        this.pool = new FixedChannelPool(pooled, new AbstractChannelPoolHandler() {
+            @Override
+            public void channelCreated(Channel channel) throws Exception {
+                channel.pipeline().addLast(new HttpClientCodec());
+            }
+        }, ChannelHealthChecker.ACTIVE, FixedChannelPool.AcquireTimeoutAction.FAIL,
+          props.getAcquireTimeout(), props.getMaxConnections(), Integer.MAX_VALUE);
     }
 
     ChannelFuture connect() {
-        return bootstrap.connect(new DomainSocketAddress("/var/run/docker.sock"));
+        return bootstrap.connect(new DomainSocketAddress(SOCKET));
+    }
+
+    /**
+     * Acquire keep-alive connection from pool, it must be returned through {@link #release(Channel)}, even when closed.
+     * @return future of channel
+     */
+    Future<Channel> acquire() {
+        return pool.acquire();
+    }
+
+    void release(Channel channel) {
+        pool.release(channel);
     }
 }
@@ -16,6 +16,7 @@
 
 package com.codeabovelab.dm.agent.proxy;
 
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
@@ -25,6 +26,7 @@ import javax.servlet.Servlet;
 /**
  */
 @ComponentScan(basePackageClasses = DockerProxyConfiguration.class)
+@EnableConfigurationProperties(ProxyProps.class)
 @Configuration
 public class DockerProxyConfiguration {
 
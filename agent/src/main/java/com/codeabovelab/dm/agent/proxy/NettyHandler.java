@@ -16,7 +16,6 @@
 
 package com.codeabovelab.dm.agent.proxy;
 
-import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.handler.codec.http.*;
@@ -65,8 +64,7 @@ class NettyHandler extends ChannelInboundHandlerAdapter implements AutoCloseable
                         log.warn("{}: Stream null on non closed handler.", id);
                         return;
                     }
-                    ByteBuf buf = backendResp.content();
-                    copy(buf, sos);
+                    Utils.write(backendResp.content(), sos);
                     sos.flush();
                 }
             } finally {
@@ -79,16 +77,6 @@ class NettyHandler extends ChannelInboundHandlerAdapter implements AutoCloseable
         }
     }
 
-    private void copy(ByteBuf buf, ServletOutputStream sos) throws IOException {
-        byte arr[] = new byte[1024];
-        int end;
-        while ((end = buf.readableBytes()) > 0) {
-            int len = Math.min(end, arr.length);
-            buf.readBytes(arr, 0, len);
-            sos.write(arr, 0, len);
-        }
-    }
-
     private void handleHeader(HttpResponse backendResp) {
         HttpResponseStatus status = backendResp.status();
         synchronized (frontResp) {
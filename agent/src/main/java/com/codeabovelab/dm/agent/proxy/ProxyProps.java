@@ -0,0 +1,40 @@
+/*
+ * Copyright 2017 Code Above Lab LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.codeabovelab.dm.agent.proxy;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ */
+@Data
+@ConfigurationProperties("dm.agent.proxy")
+public class ProxyProps {
+    /**
+     * Serve requests through servlet async IO and pool of keep-alive connections to docker,
+     * otherwise each request holds servlet thread and its own connection.
+     */
+    private boolean async = false;
+    /**
+     * Max count of connections to docker in async mode.
+     */
+    private int maxConnections = 256;
+    /**
+     * Timeout of waiting for free connection in async mode, in milliseconds.
+     */
+    private long acquireTimeout = 30_000;
+}
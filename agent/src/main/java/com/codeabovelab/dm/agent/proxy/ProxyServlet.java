@@ -19,6 +19,7 @@ package com.codeabovelab.dm.agent.proxy;
 
 import com.codeabovelab.dm.common.utils.Closeables;
 import com.codeabovelab.dm.common.utils.Uuids;
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.handler.codec.http.*;
@@ -39,13 +40,21 @@ import static org.springframework.http.HttpHeaders.TRANSFER_ENCODING;
 class ProxyServlet extends GenericServlet {
 
     /**
-     * Max len of frontend request content
+     * Max len of frontend request content which is buffered, greater or chunked content is streamed to backend
      */
     private static final int MAX_FRONT_REQ_LEN = 1024 * 1024;
 
+    /**
+     * Size of chunks in which streamed request content is passed to backend
+     */
+    static final int BODY_CHUNK_LEN = 64 * 1024;
+
     @Autowired
     private Backend backend;
 
+    @Autowired
+    private ProxyProps props;
+
     @Override
     public void service(ServletRequest req, ServletResponse res) throws ServletException, IOException {
         final HttpServletRequest request = (HttpServletRequest) req;
@@ -60,12 +69,21 @@ class ProxyServlet extends GenericServlet {
                 doUpgrade(id, request,  response);
                 return;
             }
+            if(props.isAsync()) {
+                serviceAsync(id, request, uri);
+                return;
+            }
             ChannelFuture cf = backend.connect().sync();
             Channel channel = cf.channel();
-            DefaultFullHttpRequest backendReq = buildRequest(id, request, uri);
+            HttpRequest backendReq = buildRequest(id, request, uri);
             handler = new NettyHandler(id, request, response);
             channel.pipeline().addLast(handler);
-            channel.writeAndFlush(backendReq).sync();
+            if(backendReq instanceof FullHttpRequest) {
+                channel.writeAndFlush(backendReq).sync();
+            } else {
+                channel.writeAndFlush(backendReq);
+                streamBody(id, request, channel);
+            }
             channel.closeFuture().sync();
         } catch (Exception e) {
             log.error("{}: error in service(): ", id, e);
@@ -75,6 +93,16 @@ class ProxyServlet extends GenericServlet {
         }
     }
 
+    private void serviceAsync(String id, HttpServletRequest request, String uri) throws Exception {
+        HttpRequest backendReq = buildRequest(id, request, uri);
+        AsyncContext asyncContext = request.startAsync();
+        // docker may stream response infinitely (logs, events, etc.)
+        asyncContext.setTimeout(0);
+        AsyncProxyHandler handler = new AsyncProxyHandler(id, asyncContext, backend);
+        handler.start(backendReq);
+        log.debug("{}: dispatched", id);
+    }
+
     private void doUpgrade(String id, HttpServletRequest request, HttpServletResponse response) throws Exception {
         // currently we not support tcp upgrade (but websockets doing in WsProxy)
         // we can send error for docker clients (it accept only 400, 404 & 500 codes),
@@ -83,24 +111,68 @@ class ProxyServlet extends GenericServlet {
         log.debug("{}: close upgraded connection", id);
     }
 
-    private DefaultFullHttpRequest buildRequest(String id, HttpServletRequest request, String uri) throws IOException {
+    /**
+     * Pass request content to backend by chunks. When backend does not read content then channel becomes
+     * not writable, and we wait until chunk is written, so memory usage does not depend on size of content.
+     */
+    private void streamBody(String id, HttpServletRequest request, Channel channel) throws Exception {
+        long size = 0;
+        try(ServletInputStream is = request.getInputStream()) {
+            while(true) {
+                ByteBuf buf = channel.alloc().buffer(BODY_CHUNK_LEN);
+                int read;
+                try {
+                    read = buf.writeBytes(is, BODY_CHUNK_LEN);
+                } catch (Exception e) {
+                    buf.release();
+                    throw e;
+                }
+                if(read < 0) {
+                    buf.release();
+                    break;
+                }
+                size += read;
+                ChannelFuture wf = channel.writeAndFlush(new DefaultHttpContent(buf));
+                if(!channel.isWritable()) {
+                    wf.sync();
+                }
+            }
+        }
+        channel.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT).sync();
+        log.debug("{}: streamed {} bytes of request", id, size);
+    }
+
+    /**
+     * Make backend request. Small content is read into {@link FullHttpRequest}, otherwise only headers is returned
+     * and content must be streamed after them.
+     */
+    private HttpRequest buildRequest(String id, HttpServletRequest request, String uri) throws IOException {
         HttpMethod method = HttpMethod.valueOf(request.getMethod());
-        DefaultFullHttpRequest br = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, method, uri);
-        HttpHeaders bh = br.headers();
-        Utils.copyHeaders(request, bh);
         String transferEncoding = request.getHeader(TRANSFER_ENCODING);
-        if("chunked".equals(transferEncoding)) {
-            throw new IOException("Unsupported request transfer-encoding: " + transferEncoding);
-        }
-        int len = request.getContentLength();
-        if(len > 0) {
-            if(len > MAX_FRONT_REQ_LEN) {
-                throw new IOException("Request content too long: " + len + " max allowed: " + MAX_FRONT_REQ_LEN);
-            }
-            try(ServletInputStream is = request.getInputStream()) {
-                br.content().writeBytes(is, len);
+        long len = request.getContentLengthLong();
+        HttpRequest br;
+        if(HttpHeaderValues.CHUNKED.contentEqualsIgnoreCase(transferEncoding) || len > MAX_FRONT_REQ_LEN) {
+            log.debug("{}: stream request content, length: {}, transfer-encoding: {}", id, len, transferEncoding);
+            br = new DefaultHttpRequest(HttpVersion.HTTP_1_1, method, uri);
+            Utils.copyHeaders(request, br.headers());
+        } else {
+            DefaultFullHttpRequest fr = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, method, uri);
+            Utils.copyHeaders(request, fr.headers());
+            if(len > 0) {
+                ByteBuf content = fr.content();
+                try(ServletInputStream is = request.getInputStream()) {
+                    // stream may return less than requested
+                    while(content.readableBytes() < len) {
+                        if(content.writeBytes(is, (int) len - content.readableBytes()) < 0) {
+                            break;
+                        }
+                    }
+                }
             }
+            br = fr;
         }
+        // front container has already answered to 'Expect: 100-continue', so backend must not send interim response
+        br.headers().remove(HttpHeaderNames.EXPECT);
         return br;
     }
 }
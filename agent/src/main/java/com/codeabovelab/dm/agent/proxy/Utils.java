@@ -17,10 +17,14 @@
 package com.codeabovelab.dm.agent.proxy;
 
 import com.google.common.collect.Iterators;
+import io.netty.buffer.ByteBuf;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.websocketx.WebSocketVersion;
+import io.undertow.io.BufferWritableOutputStream;
 
 import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Enumeration;
 
 /**
@@ -57,4 +61,24 @@ class Utils {
             to.add(header, iter);
         }
     }
+
+    /**
+     * Write all readable bytes of buffer into stream, without intermediate copy when it possible.
+     * @param buf source
+     * @param os destination
+     * @throws IOException on error
+     */
+    static void write(ByteBuf buf, OutputStream os) throws IOException {
+        int len = buf.readableBytes();
+        if(len == 0) {
+            return;
+        }
+        if(os instanceof BufferWritableOutputStream && buf.nioBufferCount() > 0) {
+            ((BufferWritableOutputStream) os).write(buf.nioBuffers());
+            buf.skipBytes(len);
+            return;
+        }
+        // it write backing array of heap buffer directly, and use thread local array for direct buffer
+        buf.readBytes(os, len);
+    }
 }
@@ -26,8 +26,11 @@ import com.codeabovelab.dm.cluman.model.DockerServiceInfo;
 import com.codeabovelab.dm.cluman.model.ImageDescriptor;
 import com.codeabovelab.dm.common.cache.DefineCache;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureTask;
 
 import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 
 /**
@@ -104,6 +107,19 @@ public interface DockerService {
      */
     DockerServiceInfo getInfo();
 
+    /**
+     * Load system-wide information without blocking of caller thread. Cancellation of returned future
+     * is interpreted as timeout of request. <p/>
+     * Default implementation simply run {@link #getInfo()} in executor.
+     * @param executor executor which is used when implementation can not do it without blocking
+     * @return future with info
+     */
+    default ListenableFuture<DockerServiceInfo> getInfoAsync(Executor executor) {
+        ListenableFutureTask<DockerServiceInfo> task = new ListenableFutureTask<>(this::getInfo);
+        executor.execute(task);
+        return task;
+    }
+
     /**
      * Start specified by id container
      * @param id id of container
@@ -141,6 +157,21 @@ public interface DockerService {
 
     ServiceCallResult subscribeToEvents(GetEventsArg arg);
 
+    /**
+     * Subscribe to events without blocking of caller thread. Events are decoded and passed to watcher in specified
+     * executor. Stream may be stopped through {@link GetEventsArg#getInterrupter()}. <p/>
+     * Default implementation simply run {@link #subscribeToEvents(GetEventsArg)} in executor, so it holds
+     * executor thread until end of stream.
+     * @param arg argument
+     * @param executor executor which is used for processing of stream
+     * @return future which is completed at end of stream
+     */
+    default ListenableFuture<ServiceCallResult> subscribeToEventsAsync(GetEventsArg arg, Executor executor) {
+        ListenableFutureTask<ServiceCallResult> task = new ListenableFutureTask<>(() -> subscribeToEvents(arg));
+        executor.execute(task);
+        return task;
+    }
+
     ServiceCallResult restartContainer(StopContainerArg arg);
     ServiceCallResult killContainer(KillContainerArg arg);
     ServiceCallResult deleteContainer(DeleteContainerArg arg);
@@ -31,22 +31,28 @@ import com.codeabovelab.dm.common.utils.Consumers;
 import com.codeabovelab.dm.common.utils.SingleValueCache;
 import com.codeabovelab.dm.common.utils.StringUtils;
 import com.codeabovelab.dm.common.utils.Throwables;
+import com.codeabovelab.dm.platform.http.async.ChunkedInputStream;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.MoreExecutors;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.http.*;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.util.Assert;
 import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.SettableListenableFuture;
 import org.springframework.web.client.AsyncRestTemplate;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.net.SocketException;
@@ -56,7 +62,9 @@ import java.nio.CharBuffer;
 import java.nio.charset.StandardCharsets;
 import java.text.MessageFormat;
 import java.util.*;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -501,8 +509,53 @@ public class DockerServiceImpl implements DockerService {
         return dsi;
     }
 
+    @Override
+    public ListenableFuture<DockerServiceInfo> getInfoAsync(Executor executor) {
+        SettableListenableFuture<DockerServiceInfo> result = new SettableListenableFuture<>();
+        DockerServiceInfo cached = infoCache.getOrNull();
+        if(cached != null) {
+            result.set(cached);
+            return result;
+        }
+        ListenableFuture<ResponseEntity<Info>> future;
+        try {
+            OfflineCause offlineCause = offlineRef.get();
+            if(offlineCause != null) {
+                offlineCause.throwIfActual(this);
+            }
+            future = restTemplate.getForEntity(makeBaseUrl().path("/info").build().toUri(), Info.class);
+        } catch (Exception e) {
+            result.setException(e);
+            return result;
+        }
+        // note that callbacks is invoked in IO thread, so we must not block it
+        future.addCallback(entity -> {
+            try {
+                online();
+                DockerServiceInfo dsi = toServiceInfo(entity.getBody());
+                infoCache.put(dsi);
+                result.set(dsi);
+            } catch (Exception e) {
+                result.setException(e);
+            }
+        }, e -> {
+            checkOffline(e);
+            result.setException(e);
+        });
+        result.addCallback(dsi -> {}, e -> {
+            if(e instanceof CancellationException && future.cancel(true)) {
+                checkOffline(new TimeoutException("Request of info is cancelled."));
+            }
+        });
+        return result;
+    }
+
     private DockerServiceInfo getInfoForCache() {
         Info info = getFast(() -> restTemplate.getForEntity(makeBaseUrl().path("/info").build().toUri(), Info.class)).getBody();
+        return toServiceInfo(info);
+    }
+
+    private DockerServiceInfo toServiceInfo(Info info) {
         DockerServiceInfo.Builder dib = DockerInfoParser.parse(info);
         ListIterator<NodeInfo> i = dib.getNodeList().listIterator();
         while (i.hasNext()) {
@@ -692,7 +745,11 @@ public class DockerServiceImpl implements DockerService {
             ListenableFuture<Object> future = restTemplate.execute(url, HttpMethod.GET, null, response -> {
                 StreamContext<ProcessEvent> context = new StreamContext<>(response.getBody(), watcher);
                 context.getInterrupter().setFuture(arg.getInterrupter());
-                frameStreamProcessor.processResponseStream(context);
+                if (arg.getOutput() != null) {
+                    frameStreamProcessor.copyResponseStream(context, arg.getOutput());
+                } else {
+                    frameStreamProcessor.processResponseStream(context);
+                }
                 return null;
             });
             waitFuture(callResult, future);
@@ -710,14 +767,7 @@ public class DockerServiceImpl implements DockerService {
     @Override
     public ServiceCallResult subscribeToEvents(GetEventsArg arg) {
         ServiceCallResult callResult = new ServiceCallResult();
-        UriComponentsBuilder ucb = makeUrl("events");
-        if(arg.getSince() != null) {
-            ucb.queryParam("since", arg.getSince());
-        }
-        if(arg.getUntil() != null) {
-            ucb.queryParam("until", arg.getUntil());
-        }
-        URI uri = ucb.build().toUri();
+        URI uri = makeEventsUri(arg);
         try {
             ListenableFuture<Object> future = restTemplate.execute(uri, HttpMethod.GET, null, response -> {
                 online();// may be we need schedule it into another thread
@@ -733,6 +783,89 @@ public class DockerServiceImpl implements DockerService {
         return callResult;
     }
 
+    @Override
+    public ListenableFuture<ServiceCallResult> subscribeToEventsAsync(GetEventsArg arg, Executor executor) {
+        URI uri = makeEventsUri(arg);
+        SettableListenableFuture<ServiceCallResult> result = new SettableListenableFuture<>();
+        ListenableFuture<ClientHttpResponse> future;
+        try {
+            future = restTemplate.getAsyncRequestFactory().createAsyncRequest(uri, HttpMethod.GET).executeAsync();
+        } catch (IOException e) {
+            result.setException(e);
+            return result;
+        }
+        // note that callbacks is invoked in IO thread, so we must not block it
+        future.addCallback(response -> {
+            try {
+                onEventsResponse(arg, executor, response, result);
+            } catch (Exception e) {
+                response.close();
+                result.setException(e);
+            }
+        }, e -> {
+            checkOffline(e);
+            result.setException(e);
+        });
+        arg.getInterrupter().addListener(() -> future.cancel(true), MoreExecutors.directExecutor());
+        return result;
+    }
+
+    private void onEventsResponse(GetEventsArg arg, Executor executor, ClientHttpResponse response,
+                                  SettableListenableFuture<ServiceCallResult> result) throws IOException {
+        ServiceCallResult callResult = new ServiceCallResult();
+        HttpStatus status = response.getStatusCode();
+        if(!status.is2xxSuccessful()) {
+            // we do not read body of error response, because it may block IO thread
+            response.close();
+            setCode(status, callResult);
+            callResult.setMessage(status.getReasonPhrase());
+            result.set(callResult);
+            return;
+        }
+        online();
+        InputStream body = response.getBody();
+        if(!(body instanceof ChunkedInputStream)) {
+            executor.execute(() -> {
+                try {
+                    StreamContext<DockerEvent> context = new StreamContext<>(body, arg.getWatcher());
+                    context.getInterrupter().setFuture(arg.getInterrupter());
+                    eventStreamProcessor.processResponseStream(context);
+                    callResult.setCode(ResultCode.OK);
+                    result.set(callResult);
+                } catch (Exception e) {
+                    result.setException(e);
+                } finally {
+                    response.close();
+                }
+            });
+            return;
+        }
+        JsonStreamDecoder<DockerEvent> decoder = new JsonStreamDecoder<>((ChunkedInputStream<?>) body, objectMapper,
+          DockerEvent.class, arg.getWatcher(), executor, e -> {
+            response.close();
+            if(e != null) {
+                result.setException(e);
+            } else {
+                callResult.setCode(ResultCode.OK);
+                result.set(callResult);
+            }
+        });
+        // closing of connection cause end of stream
+        arg.getInterrupter().addListener(response::close, MoreExecutors.directExecutor());
+        decoder.start();
+    }
+
+    private URI makeEventsUri(GetEventsArg arg) {
+        UriComponentsBuilder ucb = makeUrl("events");
+        if(arg.getSince() != null) {
+            ucb.queryParam("since", arg.getSince());
+        }
+        if(arg.getUntil() != null) {
+            ucb.queryParam("until", arg.getUntil());
+        }
+        return ucb.build().toUri();
+    }
+
     private void processStatusCodeException(HttpStatusCodeException e, ServiceCallResult res, URI uri) {
         setCode(e.getStatusCode(), res);
         String msg = null;
@@ -27,17 +27,25 @@ import java.util.Arrays;
 /**
  * Breaks the input into frame. Similar to how a buffered reader would readLies.
  * <p/>
+ * Reader reuses its header and payload buffers between frames, so {@link #next()} does not allocate memory while
+ * frames fit into buffer. {@link #readFrame()} copies payload into new {@link Frame} on each call.
+ * <p/>
  * See: {@link }http://docs.docker.com/v1.6/reference/api/docker_remote_api_v1.13/#attach-to-a-container}
  */
 public class FrameReader implements AutoCloseable {
 
     private static final int HEADER_SIZE = 8;
+    private static final int RAW_READ_SIZE = 1024;
 
     private final InputStream inputStream;
 
     private boolean rawStreamDetected = false;
 
-    private final byte[] rawBuffer = new byte[1000];
+    private final byte[] header = new byte[HEADER_SIZE];
+
+    private byte[] buffer = new byte[RAW_READ_SIZE];
+
+    private StreamType streamType;
 
     public FrameReader(InputStream inputStream) {
         this.inputStream = inputStream;
@@ -60,61 +68,76 @@ public class FrameReader implements AutoCloseable {
      * @return A frame, or null if no more frames.
      */
     public Frame readFrame() throws IOException {
+        int len = next();
+        if (len == -1) {
+            return null;
+        }
+        return new Frame(streamType, Arrays.copyOf(buffer, len));
+    }
 
+    /**
+     * Read next frame into internal buffer, its payload is available through {@link #getBuffer()} until next call.
+     * @return size of frame payload, or -1 if no more frames.
+     */
+    public int next() throws IOException {
         if (rawStreamDetected) {
+            return inputStream.read(buffer, 0, RAW_READ_SIZE);
+        }
+        if (readFully(header, HEADER_SIZE) != HEADER_SIZE) {
+            return -1;
+        }
 
-            int read = inputStream.read(rawBuffer);
-            if (read == -1) {
-                return null;
-            }
-
-            return new Frame(StreamType.RAW, Arrays.copyOf(rawBuffer, read));
-
-        } else {
-
-            byte[] header = new byte[HEADER_SIZE];
+        // HexDump.dump(header, 0, System.err, 0);
 
-            int actualHeaderSize = 0;
+        streamType = streamType(header[0]);
 
-            do {
-                int headerCount = inputStream.read(header, actualHeaderSize, HEADER_SIZE - actualHeaderSize);
+        if (streamType.equals(StreamType.RAW)) {
+            rawStreamDetected = true;
+            System.arraycopy(header, 0, buffer, 0, HEADER_SIZE);
+            return HEADER_SIZE;
+        }
 
-                if (headerCount == -1) {
-                    return null;
-                }
-                actualHeaderSize += headerCount;
-            } while (actualHeaderSize < HEADER_SIZE);
+        int payloadSize = ((header[4] & 0xff) << 24) + ((header[5] & 0xff) << 16) + ((header[6] & 0xff) << 8)
+                + (header[7] & 0xff);
+        if (payloadSize > buffer.length) {
+            buffer = new byte[Math.max(payloadSize, buffer.length * 2)];
+        }
+        int actualPayloadSize = readFully(buffer, payloadSize);
+        if (actualPayloadSize != payloadSize) {
+            throw new IOException(String.format("payload must be %d bytes long, but was %d", payloadSize,
+                    actualPayloadSize));
+        }
+        return payloadSize;
+    }
 
-            // HexDump.dump(header, 0, System.err, 0);
+    /**
+     * @return type of last frame
+     */
+    public StreamType getStreamType() {
+        return streamType;
+    }
 
-            StreamType streamType = streamType(header[0]);
+    /**
+     * Buffer which contains payload of last frame from zero offset. Buffer may be replaced by next frame.
+     * @return buffer
+     */
+    public byte[] getBuffer() {
+        return buffer;
+    }
 
-            if (streamType.equals(StreamType.RAW)) {
-                rawStreamDetected = true;
-                return new Frame(StreamType.RAW, Arrays.copyOf(header, HEADER_SIZE));
+    /**
+     * @return count of read bytes, it is less than size only at end of stream
+     */
+    private int readFully(byte[] arr, int size) throws IOException {
+        int actual = 0;
+        while (actual < size) {
+            int count = inputStream.read(arr, actual, size - actual);
+            if (count == -1) {
+                break;
             }
-
-            int payloadSize = ((header[4] & 0xff) << 24) + ((header[5] & 0xff) << 16) + ((header[6] & 0xff) << 8)
-                    + (header[7] & 0xff);
-
-            byte[] payload = new byte[payloadSize];
-            int actualPayloadSize = 0;
-
-            do {
-                int count = inputStream.read(payload, actualPayloadSize, payloadSize - actualPayloadSize);
-
-                if (count == -1) {
-                    if (actualPayloadSize != payloadSize) {
-                        throw new IOException(String.format("payload must be %d bytes long, but was %d", payloadSize,
-                                actualPayloadSize));
-                    }
-                    break;
-                }
-                actualPayloadSize += count;
-            } while (actualPayloadSize < payloadSize);
-
-            return new Frame(streamType, payload);
+            actual += count;
         }
+        return actual;
     }
 
     @Override
@@ -122,4 +145,4 @@ public class FrameReader implements AutoCloseable {
         inputStream.close();
     }
 
-}
\ No newline at end of file
+}
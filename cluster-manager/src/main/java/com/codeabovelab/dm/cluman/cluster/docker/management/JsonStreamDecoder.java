@@ -0,0 +1,178 @@
+/*
+ * Copyright 2016 Code Above Lab LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.codeabovelab.dm.cluman.cluster.docker.management;
+
+import com.codeabovelab.dm.platform.http.async.ChunkedInputStream;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.Assert;
+
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Non blocking decoder of stream of json objects, where each object is ended by line feed (as docker do it
+ * for events). Unlike {@link JsonStreamProcessor} it does not hold thread while stream wait for new data: it reads
+ * only available bytes from {@link ChunkedInputStream} when chunk is come, and decode them in specified executor.
+ */
+@Slf4j
+class JsonStreamDecoder<T> {
+
+    private final ChunkedInputStream<?> stream;
+    private final ObjectReader reader;
+    private final Consumer<T> watcher;
+    private final Executor executor;
+    private final Consumer<Throwable> onEnd;
+    /**
+     * Count of notifications, which is not yet processed by {@link #drain()}, it guarantee that only one drain is
+     * executed at the same time.
+     */
+    private final AtomicInteger wip = new AtomicInteger();
+    private final byte[] buff = new byte[4096];
+    private byte[] line = new byte[1024];
+    private int lineLen;
+    private final AtomicBoolean ended = new AtomicBoolean();
+
+    /**
+     * @param stream source of data
+     * @param objectMapper mapper
+     * @param clazz type of objects
+     * @param watcher consumer of objects
+     * @param executor executor in which stream is decoded
+     * @param onEnd callback which is invoked once at end of stream, with null or error.
+     */
+    JsonStreamDecoder(ChunkedInputStream<?> stream, ObjectMapper objectMapper, Class<T> clazz,
+                      Consumer<T> watcher, Executor executor, Consumer<Throwable> onEnd) {
+        Assert.notNull(stream, "stream is null");
+        Assert.notNull(objectMapper, "objectMapper is null");
+        Assert.notNull(clazz, "clazz is null");
+        Assert.notNull(watcher, "watcher is null");
+        Assert.notNull(executor, "executor is null");
+        Assert.notNull(onEnd, "onEnd is null");
+        this.stream = stream;
+        this.reader = objectMapper.readerFor(clazz);
+        this.watcher = watcher;
+        this.executor = executor;
+        this.onEnd = onEnd;
+    }
+
+    void start() {
+        stream.setListener(this::schedule);
+        // some data may be added before listener
+        schedule();
+    }
+
+    private void schedule() {
+        if(wip.getAndIncrement() != 0) {
+            return;
+        }
+        try {
+            executor.execute(this::drain);
+        } catch (Exception e) {
+            end(e);
+        }
+    }
+
+    private void drain() {
+        int missed = wip.get();
+        while(true) {
+            try {
+                while(!ended.get()) {
+                    int read = stream.readAvailable(buff, 0, buff.length);
+                    if(read == ChunkedInputStream.EOF) {
+                        end(null);
+                    } else if(read == 0) {
+                        break;
+                    } else {
+                        decode(read);
+                    }
+                }
+            } catch (Exception e) {
+                end(e);
+            }
+            missed = wip.addAndGet(-missed);
+            if(missed == 0) {
+                return;
+            }
+        }
+    }
+
+    private void decode(int len) {
+        int start = 0;
+        for(int i = 0; i < len; ++i) {
+            if(buff[i] != '\n') {
+                continue;
+            }
+            append(start, i - start);
+            start = i + 1;
+            if(lineLen > 0) {
+                accept(line, lineLen);
+            }
+            lineLen = 0;
+        }
+        append(start, len - start);
+    }
+
+    private void append(int off, int len) {
+        if(len == 0) {
+            return;
+        }
+        int required = lineLen + len;
+        if(required > line.length) {
+            line = Arrays.copyOf(line, Math.max(required, line.length * 2));
+        }
+        System.arraycopy(buff, off, line, lineLen, len);
+        lineLen = required;
+    }
+
+    private void accept(byte[] data, int len) {
+        try (JsonParser jp = reader.getFactory().createParser(data, 0, len)) {
+            jp.nextToken();
+            T next = JsonStreamProcessor.readItem(reader, jp);
+            if (next == null) {
+                return;
+            }
+            log.trace("Monitor value: {}", next);
+            watcher.accept(next);
+        } catch (Exception e) {
+            log.error("Error on process json item.", e);
+        }
+    }
+
+    private void end(Throwable e) {
+        if(!ended.compareAndSet(false, true)) {
+            return;
+        }
+        stream.setListener(null);
+        try {
+            stream.close();
+        } catch (Exception ex) {
+            log.error("Can't close stream", ex);
+        }
+        if(lineLen > 0 && e == null) {
+            // last object may be without line feed
+            accept(line, lineLen);
+            lineLen = 0;
+        }
+        onEnd.accept(e);
+    }
+}
@@ -21,7 +21,7 @@ import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.SettableFuture;
 import lombok.extern.slf4j.Slf4j;
@@ -40,10 +40,27 @@ public class JsonStreamProcessor<T> implements ResponseStreamProcessor<T> {
         OBJECT_MAPPER.configure(JsonParser.Feature.AUTO_CLOSE_SOURCE, true);
     }
 
-    private final Class<T> clazz;
+    private final ObjectReader reader;
 
     public JsonStreamProcessor(Class<T> clazz) {
-        this.clazz = clazz;
+        this.reader = OBJECT_MAPPER.readerFor(clazz);
+    }
+
+    /**
+     * Bind object at current token of parser directly into value, without intermediate tree.
+     * Parser is left at end of object.
+     * @param reader reader of value type
+     * @param jp parser which current token is start of object
+     * @return value or null when object is empty
+     * @throws IOException on parse or bind error
+     */
+    static <T> T readItem(ObjectReader reader, JsonParser jp) throws IOException {
+        // exclude empty item serialization into class #461
+        if(jp.getCurrentToken() == JsonToken.START_OBJECT && jp.nextToken() == JsonToken.END_OBJECT) {
+            return null;
+        }
+        // bean deserializer accept object which is started from field name
+        return reader.readValue(jp);
     }
 
     @Override
@@ -59,15 +76,14 @@ public class JsonStreamProcessor<T> implements ResponseStreamProcessor<T> {
             JsonToken nextToken = jp.nextToken();
             while (!closed && nextToken != null && nextToken != JsonToken.END_OBJECT && !interrupter.isDone()) {
                 try {
-                    ObjectNode objectNode = OBJECT_MAPPER.readTree(jp);
-                    // exclude empty item serialization into class #461
-                    if (!objectNode.isEmpty(null)) {
-                        T next = OBJECT_MAPPER.treeToValue(objectNode, clazz);
+                    T next = readItem(reader, jp);
+                    if (next != null) {
                         log.trace("Monitor value: {}", next);
                         watcher.accept(next);
                     }
                 } catch (Exception e) {
                     log.error("Error on process json item.", e);
+                    skipToRoot(jp);
                 }
 
                 closed = jp.isClosed();
@@ -86,4 +102,13 @@ public class JsonStreamProcessor<T> implements ResponseStreamProcessor<T> {
 
     }
 
+    /**
+     * Skip rest of broken item, so next item can be read.
+     */
+    private static void skipToRoot(JsonParser jp) throws IOException {
+        while (!jp.getParsingContext().inRoot() && jp.nextToken() != null) {
+            // skip
+        }
+    }
+
 }
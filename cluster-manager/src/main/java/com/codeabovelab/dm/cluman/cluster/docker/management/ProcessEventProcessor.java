@@ -17,14 +17,22 @@
 package com.codeabovelab.dm.cluman.cluster.docker.management;
 
 import com.codeabovelab.dm.cluman.cluster.docker.management.result.ProcessEvent;
-import com.codeabovelab.dm.cluman.cluster.docker.model.Frame;
+import com.codeabovelab.dm.cluman.cluster.docker.model.StreamType;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.SettableFuture;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.function.Consumer;
 
+/**
+ * Decode multiplexed docker stream (logs, attach, exec) into lines. Frames are read into reusable buffer of
+ * {@link FrameReader} and each line is decoded from it directly into string.
+ */
 @Slf4j
 public class ProcessEventProcessor implements ResponseStreamProcessor<ProcessEvent> {
 
@@ -35,20 +43,153 @@ public class ProcessEventProcessor implements ResponseStreamProcessor<ProcessEve
         SettableFuture<Boolean> interrupter = context.getInterrupter();
         interrupter.addListener(() -> Thread.currentThread().interrupt(), MoreExecutors.directExecutor());
         try (FrameReader frameReader = new FrameReader(response)) {
-
-            Frame frame = frameReader.readFrame();
-            while (frame != null && !interrupter.isDone()) {
+            LineDecoder decoder = new LineDecoder(line -> {
                 try {
-                    ProcessEvent.watchRaw(watcher, frame.getMessage(), false);
+                    ProcessEvent.watchRaw(watcher, line, false);
                 } catch (Exception e) {
                     log.error("Cannot read body", e);
-                } finally {
-                    frame = frameReader.readFrame();
+                }
+            });
+            int len;
+            while (!interrupter.isDone() && (len = frameReader.next()) != -1) {
+                decoder.decode(frameReader.getStreamType(), frameReader.getBuffer(), len);
+                if (response.available() == 0) {
+                    // next read may block, so incomplete lines (like prompts) must not wait for it
+                    decoder.flushPartial();
                 }
             }
+            decoder.flush();
         } catch (Exception t) {
             log.error("Cannot close reader", t);
         }
 
     }
-}
\ No newline at end of file
+
+    /**
+     * Write payload of frames into specified stream as is, without decoding. Stream is flushed after each frame.
+     * @param context context, its watcher is not used
+     * @param out destination stream
+     * @throws IOException on error of reading or writing
+     */
+    public void copyResponseStream(StreamContext<?> context, OutputStream out) throws IOException {
+        SettableFuture<Boolean> interrupter = context.getInterrupter();
+        interrupter.addListener(() -> Thread.currentThread().interrupt(), MoreExecutors.directExecutor());
+        try (FrameReader frameReader = new FrameReader(context.getStream())) {
+            int len;
+            while (!interrupter.isDone() && (len = frameReader.next()) != -1) {
+                out.write(frameReader.getBuffer(), 0, len);
+                out.flush();
+            }
+        }
+    }
+
+    /**
+     * Split payload of frames into lines. Line may be split between frames, so its begin is kept for each stream
+     * type separately. Kept part is bounded by {@link #MAX_PENDING}, longer line is emitted by parts.
+     */
+    static final class LineDecoder {
+        static final int MAX_PENDING = 64 * 1024;
+        private final Consumer<String> consumer;
+        private final byte[][] pending = new byte[StreamType.values().length][];
+        private final int[] pendingLen = new int[pending.length];
+
+        LineDecoder(Consumer<String> consumer) {
+            this.consumer = consumer;
+        }
+
+        void decode(StreamType type, byte[] buf, int len) {
+            int t = type.ordinal();
+            int start = 0;
+            for (int i = 0; i < len; ++i) {
+                if (buf[i] != '\n') {
+                    continue;
+                }
+                if (pendingLen[t] > 0) {
+                    append(t, buf, start, i - start);
+                    emit(pending[t], 0, pendingLen[t]);
+                    pendingLen[t] = 0;
+                } else {
+                    emit(buf, start, i - start);
+                }
+                start = i + 1;
+            }
+            append(t, buf, start, len - start);
+            if (pendingLen[t] >= MAX_PENDING) {
+                // stream may never send line end (binary data, progress bars), so we do not keep it infinitely
+                emitPending(t, true);
+            }
+        }
+
+        /**
+         * Emit incomplete lines, it must be called at end of stream.
+         */
+        void flush() {
+            for (int t = 0; t < pending.length; ++t) {
+                emitPending(t, false);
+            }
+        }
+
+        /**
+         * Emit incomplete lines when no more data is available now. Incomplete UTF-8 char at end of line is kept
+         * for next frame.
+         */
+        void flushPartial() {
+            for (int t = 0; t < pending.length; ++t) {
+                emitPending(t, true);
+            }
+        }
+
+        private void emitPending(int t, boolean keepIncompleteChar) {
+            int len = pendingLen[t];
+            if (len == 0) {
+                return;
+            }
+            byte[] buf = pending[t];
+            int complete = keepIncompleteChar ? completeLength(buf, len) : len;
+            if (complete == 0) {
+                return;
+            }
+            emit(buf, 0, complete);
+            System.arraycopy(buf, complete, buf, 0, len - complete);
+            pendingLen[t] = len - complete;
+        }
+
+        /**
+         * @return length of data without incomplete UTF-8 sequence at its end
+         */
+        private static int completeLength(byte[] buf, int len) {
+            for (int i = len - 1; i >= 0 && i >= len - 4; --i) {
+                int b = buf[i] & 0xff;
+                if ((b & 0xC0) == 0x80) {
+                    // continuation byte, look for lead byte
+                    continue;
+                }
+                int required = b >= 0xF0 ? 4 : b >= 0xE0 ? 3 : b >= 0xC0 ? 2 : 1;
+                return len - i >= required ? len : i;
+            }
+            return len;
+        }
+
+        private void append(int t, byte[] buf, int off, int len) {
+            if (len == 0) {
+                return;
+            }
+            int required = pendingLen[t] + len;
+            byte[] dst = pending[t];
+            if (dst == null) {
+                dst = pending[t] = new byte[Math.max(required, 256)];
+            } else if (required > dst.length) {
+                dst = pending[t] = Arrays.copyOf(dst, Math.max(required, dst.length * 2));
+            }
+            System.arraycopy(buf, off, dst, pendingLen[t], len);
+            pendingLen[t] = required;
+        }
+
+        private void emit(byte[] buf, int off, int len) {
+            if (len > 0 && buf[off + len - 1] == '\r') {
+                len--;
+            }
+            consumer.accept(new String(buf, off, len, StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -22,6 +22,7 @@ import com.google.common.util.concurrent.SettableFuture;
 import lombok.Builder;
 import lombok.Data;
 
+import java.io.OutputStream;
 import java.util.Date;
 import java.util.function.Consumer;
 
@@ -36,6 +37,12 @@ public class GetLogContainerArg implements WithInterrupter {
 
     private final Consumer<ProcessEvent> watcher;
 
+    /**
+     * When specified, log is written into this stream as is, without decoding into lines, and watcher is not used.
+     * It is cheaper for callers which only forward log to client.
+     */
+    private final OutputStream output;
+
     /**
      * show stdout log. Default true
      */
@@ -69,6 +76,7 @@ public class GetLogContainerArg implements WithInterrupter {
         return MoreObjects.toStringHelper(this)
                 .add("id", id)
                 .add("watcher", watcher)
+                .add("output", output)
                 .add("stdout", stdout)
                 .add("stderr", stderr)
                 .add("follow", follow)
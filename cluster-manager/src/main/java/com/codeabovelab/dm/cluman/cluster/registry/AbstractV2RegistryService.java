@@ -16,19 +16,17 @@
 
 package com.codeabovelab.dm.cluman.cluster.registry;
 
-import com.codeabovelab.dm.cluman.cluster.docker.model.ContainerConfig;
 import com.codeabovelab.dm.cluman.cluster.registry.data.*;
 import com.codeabovelab.dm.cluman.cluster.registry.model.RegistryAdapter;
 import com.codeabovelab.dm.cluman.cluster.registry.model.RegistryConfig;
 import com.codeabovelab.dm.cluman.cluster.registry.model.RegistryCredentials;
 import com.codeabovelab.dm.cluman.model.*;
 import com.codeabovelab.dm.common.utils.Throwables;
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
+import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.*;
-import org.springframework.util.Assert;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
@@ -38,11 +36,13 @@ import java.net.ConnectException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.text.MessageFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.ExecutionException;
 import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import static org.springframework.web.util.UriComponentsBuilder.newInstance;
 
@@ -52,20 +52,34 @@ import static org.springframework.web.util.UriComponentsBuilder.newInstance;
 abstract class AbstractV2RegistryService implements RegistryService {
 
     private final RegistryAdapter adapter;
-    private final LoadingCache<String[], ImageDescriptor> descriptorCache;
+    /**
+     * Size of page for paginated requests.
+     */
+    private static final int PAGE_SIZE = 100;
+    private static final Pattern NEXT_LINK = Pattern.compile("<([^>]+)>\\s*;\\s*rel=\"?next\"?");
+    private final ImageDescriptorCache descriptorCache;
+    /**
+     * Last manifests with its ETag, they are used for conditional requests. Key is 'name:reference'.
+     */
+    private final Cache<String, TaggedManifest> manifestCache = CacheBuilder.newBuilder()
+      .maximumSize(1000)
+      .build();
     private Consumer<RegistryEvent> eventConsumer;
 
-    AbstractV2RegistryService(RegistryAdapter adapter) {
+    /**
+     * @param adapter adapter
+     * @param descriptorCache cache of descriptors, when null then in-memory cache is created
+     */
+    AbstractV2RegistryService(RegistryAdapter adapter, ImageDescriptorCache descriptorCache) {
         this.adapter = adapter;
-        // we use non expired cache, because imageId is descriptor hash, and it cannot be modified
-        this.descriptorCache = CacheBuilder.<String[], ImageDescriptor>newBuilder()
-                .build(new CacheLoader<String[], ImageDescriptor>() {
-                    @Override
-                    public ImageDescriptor load(String[] key) throws Exception {
-                        Assert.isTrue(key.length == 2, "key array must have tho items");
-                        return getDescriptor(key[0], key[1]);
-                    }
-                });
+        if(descriptorCache == null) {
+            descriptorCache = new ImageDescriptorCache(new ImageDescriptorCache.Config());
+        }
+        this.descriptorCache = descriptorCache;
+    }
+
+    ImageDescriptorCache getDescriptorCache() {
+        return descriptorCache;
     }
 
     public Consumer<RegistryEvent> getEventConsumer() {
@@ -79,9 +93,18 @@ abstract class AbstractV2RegistryService implements RegistryService {
     @Override
     public ImageCatalog getCatalog() {
         try {
-            ImageCatalog catalog = getRestTemplate().getForObject(makeBaseUrl().path("_catalog").build().toUri(), ImageCatalog.class);
+            List<String> images = new ArrayList<>();
+            URI uri = makeBaseUrl().path("_catalog").queryParam("n", PAGE_SIZE).build().toUri();
+            while(uri != null) {
+                ResponseEntity<ImageCatalog> page = getRestTemplate().getForEntity(uri, ImageCatalog.class);
+                ImageCatalog body = page.getBody();
+                if(body != null && body.getImages() != null) {
+                    images.addAll(body.getImages());
+                }
+                uri = getNextPage(page.getHeaders());
+            }
             online();
-            return catalog;
+            return new ImageCatalog(images);
         } catch (Exception e) {
             checkOnline(e);
             log.error("Can't fetch catalog from {}", getConfig(), e);
@@ -155,14 +178,28 @@ abstract class AbstractV2RegistryService implements RegistryService {
     @Override
     public Tags getTags(String name) {
         try {
-            Tags tags = getRestTemplate().getForObject(forName(name).path("/tags/list").build().toUri(),
-              Tags.class);
+            String tagsName = null;
+            List<String> tagList = null;
+            URI uri = forName(name).path("/tags/list").queryParam("n", PAGE_SIZE).build().toUri();
+            while(uri != null) {
+                ResponseEntity<Tags> page = getRestTemplate().getForEntity(uri, Tags.class);
+                Tags body = page.getBody();
+                if(body != null) {
+                    tagsName = body.getName();
+                    if(body.getTags() != null) {
+                        if(tagList == null) {
+                            tagList = new ArrayList<>();
+                        }
+                        tagList.addAll(body.getTags());
+                    }
+                }
+                uri = getNextPage(page.getHeaders());
+            }
             online();
-            List<String> tagList = tags.getTags();
             if (tagList != null) {
                 tagList.sort(ImageNameComparator.getTagsComparator());
             }
-            return tags;
+            return new Tags(tagsName, tagList);
         } catch (Exception e) {
             checkOnline(e);
             log.error("Can't fetch tags for {} from {}", name, getConfig(), e);
@@ -170,6 +207,24 @@ abstract class AbstractV2RegistryService implements RegistryService {
         }
     }
 
+    /**
+     * Parse 'Link: </v2/_catalog?last=b&n=100>; rel="next"' header of paginated response.
+     * @param headers response headers
+     * @return uri of next page or null
+     */
+    private URI getNextPage(HttpHeaders headers) throws URISyntaxException {
+        String link = headers.getFirst(HttpHeaders.LINK);
+        if(link == null) {
+            return null;
+        }
+        Matcher matcher = NEXT_LINK.matcher(link);
+        if(!matcher.find()) {
+            return null;
+        }
+        // link is usually relative to registry url
+        return new URI(adapter.getUrl()).resolve(matcher.group(1));
+    }
+
     private UriComponentsBuilder forName(String name) {
         UriComponentsBuilder ucb = makeBaseUrl();
         String processed = adapter.adaptNameForUrl(toRelative(name));
@@ -205,12 +260,28 @@ abstract class AbstractV2RegistryService implements RegistryService {
                 new MediaType("application", "vnd.docker.distribution.manifest.v2+json"),
                 new MediaType("application", "vnd.docker.distribution.manifest.v2+prettyjws")
         ));
-        HttpEntity entity = new HttpEntity<>(headers);
         URI uri = forName(name).path("/manifests/").path(reference).build().toUri();
+        String key = name + ":" + reference;
+        TaggedManifest old = manifestCache.getIfPresent(key);
+        if(old != null) {
+            headers.setIfNoneMatch(old.getEtag());
+        }
+        HttpEntity entity = new HttpEntity<>(headers);
         try {
             ResponseEntity<Manifest> exchange = getRestTemplate().exchange(uri, HttpMethod.GET, entity, Manifest.class);
-            return exchange.getBody();
+            if(old != null && exchange.getStatusCode() == HttpStatus.NOT_MODIFIED) {
+                return old.getManifest();
+            }
+            Manifest manifest = exchange.getBody();
+            String etag = exchange.getHeaders().getETag();
+            if(manifest != null && etag != null) {
+                manifestCache.put(key, new TaggedManifest(etag, manifest));
+            } else {
+                manifestCache.invalidate(key);
+            }
+            return manifest;
         } catch (HttpClientErrorException e) {
+            manifestCache.invalidate(key);
             if (e.getStatusCode() == HttpStatus.NOT_FOUND) {
                 return null;
             }
@@ -234,22 +305,7 @@ abstract class AbstractV2RegistryService implements RegistryService {
         if (imageId == null) {
             return null;
         }
-        try {
-            return this.descriptorCache.get(new String[]{name, imageId});
-        } catch (ExecutionException e) {
-            throw Throwables.asRuntime(e.getCause());
-        }
-    }
-
-    private ImageDescriptor getDescriptor(String name, String imageId) {
-        ImageData imageData = getBlob(name, imageId, ImageData.class);
-        ContainerConfig cc = imageData.getContainerConfig();
-        return ImageDescriptorImpl.builder()
-                .id(imageId)
-                .containerConfig(cc)
-                .created(imageData.getCreated())
-                .labels(cc.getLabels())
-                .build();
+        return this.descriptorCache.get(name, imageId, (n, id) -> getBlob(n, id, ImageData.class));
     }
 
     /**
@@ -303,4 +359,10 @@ abstract class AbstractV2RegistryService implements RegistryService {
     public RegistryCredentials getCredentials() {
         return adapter.getCredentials();
     }
+
+    @Data
+    private static class TaggedManifest {
+        private final String etag;
+        private final Manifest manifest;
+    }
 }
@@ -28,8 +28,8 @@ import java.util.Collections;
 public class DockerHubRegistryImpl extends AbstractV2RegistryService implements DockerHubRegistry {
 
     @Builder
-    public DockerHubRegistryImpl(RegistryAdapter adapter) {
-        super(adapter);
+    public DockerHubRegistryImpl(RegistryAdapter adapter, ImageDescriptorCache descriptorCache) {
+        super(adapter, descriptorCache);
     }
 
     @Override
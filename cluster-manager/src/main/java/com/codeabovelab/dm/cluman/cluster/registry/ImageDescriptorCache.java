@@ -0,0 +1,197 @@
+/*
+ * Copyright 2016 Code Above Lab LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.codeabovelab.dm.cluman.cluster.registry;
+
+import com.codeabovelab.dm.cluman.cluster.docker.model.ContainerConfig;
+import com.codeabovelab.dm.cluman.cluster.registry.data.ImageData;
+import com.codeabovelab.dm.cluman.model.ImageDescriptor;
+import com.codeabovelab.dm.cluman.model.ImageDescriptorImpl;
+import com.codeabovelab.dm.common.utils.Throwables;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.Assert;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+/**
+ * Cache of image descriptors. Key is digest of image config blob, because it is content addressable
+ * cache has no expiration and is only bounded by size. <p/>
+ * When directory is configured, loaded config blobs are also saved to it, so descriptors survive restart.
+ * Directory may be shared between caches, so its files are not deleted at eviction, instead oldest files are
+ * pruned after some count of writes.
+ */
+@Slf4j
+public class ImageDescriptorCache {
+
+    @Data
+    public static class Config {
+        private long maxSize = 1000;
+        /**
+         * Directory for persisting of config blobs, may be null.
+         */
+        private File dir;
+        private ObjectMapper objectMapper;
+    }
+
+    private static final String EXT = ".json";
+    private final Cache<String, ImageDescriptor> cache;
+    private final File dir;
+    private final ObjectMapper objectMapper;
+    private final long maxFiles;
+    /**
+     * Count of writes after which directory is pruned.
+     */
+    private final int pruneEvery;
+    private final AtomicInteger writes = new AtomicInteger();
+
+    public ImageDescriptorCache(Config config) {
+        this.cache = CacheBuilder.newBuilder()
+          .maximumSize(config.getMaxSize())
+          .recordStats()
+          .build();
+        this.objectMapper = config.getObjectMapper();
+        this.maxFiles = config.getMaxSize();
+        this.pruneEvery = (int) Math.max(1, Math.min(Integer.MAX_VALUE, maxFiles / 10));
+        File dir = config.getDir();
+        if(dir != null) {
+            Assert.notNull(this.objectMapper, "objectMapper is null while dir is " + dir);
+            if(!dir.exists() && !dir.mkdirs()) {
+                log.error("Can not create {}, descriptors will not be persisted.", dir);
+                dir = null;
+            }
+        }
+        this.dir = dir;
+        prune();
+    }
+
+    /**
+     * Give descriptor for specified digest.
+     * @param name name of image, used only for loading
+     * @param digest digest of image config blob
+     * @param loader function which load config blob by image name and digest
+     * @return descriptor, never null
+     */
+    public ImageDescriptor get(String name, String digest, BiFunction<String, String, ImageData> loader) {
+        try {
+            return cache.get(digest, () -> {
+                ImageData data = read(digest);
+                if(data == null) {
+                    data = loader.apply(name, digest);
+                    Assert.notNull(data, "Can not load config of " + name + " by " + digest);
+                    write(digest, data);
+                }
+                return toDescriptor(digest, data);
+            });
+        } catch (ExecutionException e) {
+            throw Throwables.asRuntime(e.getCause());
+        }
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    public long getSize() {
+        return cache.size();
+    }
+
+    private static ImageDescriptor toDescriptor(String digest, ImageData imageData) {
+        ContainerConfig cc = imageData.getContainerConfig();
+        return ImageDescriptorImpl.builder()
+          .id(digest)
+          .containerConfig(cc)
+          .created(imageData.getCreated())
+          .labels(cc.getLabels())
+          .build();
+    }
+
+    private File toFile(String digest) {
+        // digest has 'algorithm:hex' format, ':' is not allowed in file names on some systems
+        return new File(dir, digest.replaceAll("[^\\w.-]", "_") + EXT);
+    }
+
+    private ImageData read(String digest) {
+        if(dir == null) {
+            return null;
+        }
+        File file = toFile(digest);
+        if(!file.exists()) {
+            return null;
+        }
+        try {
+            ImageData data = objectMapper.readValue(file, ImageData.class);
+            // used files must survive pruning
+            file.setLastModified(System.currentTimeMillis());
+            return data;
+        } catch (Exception e) {
+            log.warn("Can not read {}, it will be reloaded: {}", file, e.toString());
+            return null;
+        }
+    }
+
+    private void write(String digest, ImageData data) {
+        if(dir == null) {
+            return;
+        }
+        File file = toFile(digest);
+        File tmp = new File(dir, file.getName() + ".tmp");
+        try {
+            objectMapper.writeValue(tmp, data);
+            if(!tmp.renameTo(file)) {
+                log.warn("Can not rename {} to {}", tmp, file);
+                tmp.delete();
+                return;
+            }
+        } catch (Exception e) {
+            log.warn("Can not write {}: {}", file, e.toString());
+            tmp.delete();
+            return;
+        }
+        if(writes.incrementAndGet() >= pruneEvery) {
+            writes.set(0);
+            prune();
+        }
+    }
+
+    /**
+     * Remove oldest files when its count exceed max size of cache.
+     */
+    private synchronized void prune() {
+        if(dir == null) {
+            return;
+        }
+        File[] files = dir.listFiles();
+        if(files == null || files.length <= maxFiles) {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for(int i = 0; i < files.length - maxFiles; ++i) {
+            if(!files[i].delete()) {
+                log.warn("Can not delete {}", files[i]);
+            }
+        }
+    }
+}
@@ -39,8 +39,9 @@ public class PublicDockerHubRegistryImpl extends AbstractV2RegistryService imple
 
     @Builder
     public PublicDockerHubRegistryImpl(RegistryAdapter adapter,
-                                       String dockerHubSearchRegistryUrl) {
-        super(adapter);
+                                       String dockerHubSearchRegistryUrl,
+                                       ImageDescriptorCache descriptorCache) {
+        super(adapter, descriptorCache);
         this.dockerHubSearchRegistryUrl = dockerHubSearchRegistryUrl;
     }
 
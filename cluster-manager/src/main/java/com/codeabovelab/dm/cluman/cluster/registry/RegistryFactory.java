@@ -19,14 +19,18 @@ package com.codeabovelab.dm.cluman.cluster.registry;
 import com.codeabovelab.dm.cluman.cluster.registry.aws.*;
 import com.codeabovelab.dm.cluman.cluster.registry.model.*;
 import com.codeabovelab.dm.cluman.utils.HttpUserAgentInterceptor;
+import com.codeabovelab.dm.common.fc.FbStorage;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableList;
+import com.google.common.cache.CacheStats;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
 import org.springframework.http.HttpRequest;
 import org.springframework.http.MediaType;
 import org.springframework.http.client.ClientHttpRequestExecution;
@@ -39,17 +43,20 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.Assert;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.File;
 import java.io.IOException;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 
 @Service
 @Slf4j
-public class RegistryFactory implements DisposableBean {
+public class RegistryFactory implements DisposableBean, PublicMetrics {
+
+    private static final String METRIC_PREFIX = "dm.registry.descriptors.";
 
     @Autowired
     private ObjectMapper objectMapper;
@@ -69,11 +76,25 @@ public class RegistryFactory implements DisposableBean {
     @Value("${dm.registry.search.cacheMinutes:10}")
     private long searchCacheMinutes;
 
+    @Value("${dm.registry.search.loadParallelism:4}")
+    private int searchLoadParallelism = 4;
+
+    @Value("${dm.registry.descriptorCache.maxSize:1000}")
+    private long descriptorCacheMaxSize = 1000;
+
+    @Value("${dm.registry.descriptorCache.persist:true}")
+    private boolean descriptorCachePersist = true;
+
     @Autowired
     private AwsService awsService;
 
+    @Autowired(required = false)
+    private FbStorage fbStorage;
+
     private final ScheduledExecutorService scheduledExecutorService;
+    private final ExecutorService searchLoadExecutor;
     private final Map<Class<?>, RegistryFactoryAdapter> adapters;
+    private final ConcurrentMap<String, ImageDescriptorCache> descriptorCaches = new ConcurrentHashMap<>();
 
     @Autowired
     public RegistryFactory(AwsRegistryFactoryAdapter awsRegistryFactoryAdapter) {
@@ -99,6 +120,7 @@ public class RegistryFactory implements DisposableBean {
                   return RegistryServiceImpl.builder()
                     .adapter(new PrivateRegistryAdapter(config, RegistryFactory.this::restTemplate))
                     .searchConfig(getSearchIndexDefaultConfig())
+                    .descriptorCache(getDescriptorCache(config.getName()))
                     .build();
               }
 
@@ -116,6 +138,11 @@ public class RegistryFactory implements DisposableBean {
                 .setDaemon(true)
                 .setNameFormat(getClass().getSimpleName() + "-scheduled-%d")
                 .build());
+        // count of threads is bounded by SearchIndex.Config.loadParallelism for each registry
+        this.searchLoadExecutor = Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat(getClass().getSimpleName() + "-search-load-%d")
+                .build());
     }
 
     public RestTemplate restTemplate(RegistryAuthAdapter registryAuthAdapter) {
@@ -152,6 +179,7 @@ public class RegistryFactory implements DisposableBean {
     DockerHubRegistry createHubRegistryService(HubRegistryConfig config) {
         DockerHubRegistryImpl registryService = DockerHubRegistryImpl.builder()
                 .adapter(new HubRegistryAdapter(config, this::restTemplate, dockerHubUrl))
+                .descriptorCache(getDescriptorCache(config.getName()))
                 .build();
         return new DockerHubRegistryServiceWrapper(registryService, config.getUsername());
 
@@ -161,6 +189,7 @@ public class RegistryFactory implements DisposableBean {
         PublicDockerHubRegistryImpl registryService = PublicDockerHubRegistryImpl.builder()
                 .adapter(new HubRegistryAdapter(config, this::restTemplate, dockerHubUrl))
                 .dockerHubSearchRegistryUrl(dockerSearchHubUrl)
+                .descriptorCache(getDescriptorCache(config.getName()))
                 .build();
         return registryService;
 
@@ -169,6 +198,7 @@ public class RegistryFactory implements DisposableBean {
     @Override
     public void destroy() throws Exception {
         this.scheduledExecutorService.shutdownNow();
+        this.searchLoadExecutor.shutdownNow();
     }
 
     public <T extends RegistryConfig> RegistryService createRegistryService(T config) {
@@ -194,7 +224,43 @@ public class RegistryFactory implements DisposableBean {
         SearchIndex.Config config = new SearchIndex.Config();
         config.setScheduledExecutorService(scheduledExecutorService);
         config.setCacheMinutes(this.searchCacheMinutes);
+        config.setLoadExecutor(searchLoadExecutor);
+        config.setLoadParallelism(searchLoadParallelism);
         return config;
     }
 
+    /**
+     * Give descriptor cache of specified registry. Cache is retained when registry service is recreated
+     * (for example after update of its config).
+     * @param registryName name of registry
+     * @return cache, never null
+     */
+    public ImageDescriptorCache getDescriptorCache(String registryName) {
+        Assert.hasText(registryName, "registryName is null or empty");
+        return descriptorCaches.computeIfAbsent(registryName, (name) -> {
+            ImageDescriptorCache.Config config = new ImageDescriptorCache.Config();
+            config.setMaxSize(descriptorCacheMaxSize);
+            config.setObjectMapper(objectMapper);
+            if(descriptorCachePersist && fbStorage != null) {
+                // blobs are content addressable, so directory may be shared between registries
+                config.setDir(new File(fbStorage.getStorageDir(), "registry-descriptors"));
+            }
+            return new ImageDescriptorCache(config);
+        });
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        List<Metric<?>> list = new ArrayList<>();
+        descriptorCaches.forEach((name, cache) -> {
+            CacheStats stats = cache.getStats();
+            String prefix = METRIC_PREFIX + name + ".";
+            list.add(new Metric<>(prefix + "hits", stats.hitCount()));
+            list.add(new Metric<>(prefix + "misses", stats.missCount()));
+            list.add(new Metric<>(prefix + "hitRate", stats.hitRate()));
+            list.add(new Metric<>(prefix + "size", cache.getSize()));
+        });
+        return list;
+    }
+
 }
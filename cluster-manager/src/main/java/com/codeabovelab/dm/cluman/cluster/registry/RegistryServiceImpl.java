@@ -30,8 +30,9 @@ public class RegistryServiceImpl extends AbstractV2RegistryService implements Au
 
     @Builder
     public RegistryServiceImpl(RegistryAdapter adapter,
-                               SearchIndex.Config searchConfig) {
-        super(adapter);
+                               SearchIndex.Config searchConfig,
+                               ImageDescriptorCache descriptorCache) {
+        super(adapter, descriptorCache);
         this.searchIndex = new SearchIndex(this, searchConfig);
     }
 
@@ -30,11 +30,17 @@ import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 
 /**
+ * Index of registry images. It is reloaded incrementally: descriptor of repository is loaded only when its
+ * tag list is changed. Search use inverted index of trigrams over image names and descriptions.
  */
 @Slf4j
 class SearchIndex implements SupportSearch, AutoCloseable {
@@ -44,119 +50,170 @@ class SearchIndex implements SupportSearch, AutoCloseable {
     public static class Config {
         private long cacheMinutes = 2L;
         private ScheduledExecutorService scheduledExecutorService;
+        /**
+         * Executor for loading of image descriptors, when null descriptors are loaded sequentially.
+         */
+        private Executor loadExecutor;
+        /**
+         * Max count of concurrently loaded descriptors of one registry.
+         */
+        private int loadParallelism = 4;
     }
 
     public static final String LABEL_DESCRIPTION = "description";
+    private static final int GRAM = 3;
     private final long timeout;
     private final RegistryService service;
-    private final SingleValueCache<Map<String, ImageInfo>> cache;
+    private final SingleValueCache<Index> cache;
     private final String registryName;
     private final ScheduledExecutorService ses;
+    private final Executor loadExecutor;
+    private final int loadParallelism;
     private ScheduledFuture<?> future;
 
     public SearchIndex(RegistryService service, Config config) {
         this.service = service;
         this.registryName = this.service.getConfig().getName();
         this.ses = config.getScheduledExecutorService();
+        this.loadExecutor = config.getLoadExecutor();
+        this.loadParallelism = Math.max(1, config.getLoadParallelism());
         this.timeout = TimeUnit.MINUTES.toMillis(config.cacheMinutes);
-        this.cache = SingleValueCache.builder(this::load).timeAfterWrite(TimeUnit.MILLISECONDS, getTimeout()).build();
+        this.cache = SingleValueCache.builder(this::load)
+          .timeAfterWrite(TimeUnit.MILLISECONDS, getTimeout())
+          .refreshAsync(this.ses)
+          .build();
     }
 
-    private Map<String, ImageInfo> load() {
+    private Index load() {
         long begin = System.currentTimeMillis();
         //sometime we may found duplicates
         String regId = registryName + "@" + Objects.hashCode(service);
         log.info("Begin load index of {} ", regId);
-        Map<String, ImageInfo> old = this.cache.getOldValue();
-        Map<String, ImageInfo> images = new HashMap<>();
+        Index oldIndex = this.cache.getOldValue();
+        Map<String, ImageInfo> old = oldIndex == null ? Collections.emptyMap() : oldIndex.images;
+        Map<String, ImageInfo> images = new ConcurrentHashMap<>();
         ImageCatalog catalog = this.service.getCatalog();
         if(catalog == null) {
             log.info("Catalog of {} is null, see above log for details.", regId);
         } else {
-            for(String image: catalog.getImages()) {
-                String fullName = ContainerUtils.buildImageName(registryName, image, null);
-                ImageDescriptor descriptor = loadDescriptor(regId, image);
-                ImageInfo ii = new ImageInfo(fullName, descriptor);
-                images.put(fullName, ii);
+            Semaphore semaphore = new Semaphore(loadParallelism);
+            try {
+                for(String image: catalog.getImages()) {
+                    semaphore.acquire();
+                    Runnable task = () -> {
+                        try {
+                            String fullName = ContainerUtils.buildImageName(registryName, image, null);
+                            images.put(fullName, loadImage(regId, fullName, image, old.get(fullName)));
+                        } finally {
+                            semaphore.release();
+                        }
+                    };
+                    if(loadExecutor == null) {
+                        task.run();
+                    } else {
+                        try {
+                            loadExecutor.execute(task);
+                        } catch (RejectedExecutionException e) {
+                            // task must release its permit, otherwise we wait it forever
+                            task.run();
+                        }
+                    }
+                }
+                // wait end of all tasks
+                semaphore.acquire(loadParallelism);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                // partial index must not replace previous one
+                throw new IllegalStateException("Load index of " + regId + " was interrupted.", e);
             }
         }
+        long reused = images.entrySet().stream().filter(e -> e.getValue() == old.get(e.getKey())).count();
         float seconds = (System.currentTimeMillis() - begin)/1000f;
-        log.info("End load index of {} in {} seconds, loaded {} records", regId, seconds, images.size());
+        log.info("End load index of {} in {} seconds, loaded {} records, {} of them are not changed",
+          regId, seconds, images.size(), reused);
         if(service instanceof AbstractV2RegistryService && !Objects.equals(old, images)) {
             // we detect difference in image catalogs and send update event
             ((AbstractV2RegistryService)service).fireEvent(RegistryEvent.builder().action(StandardActions.UPDATE));
         }
-        return images;
+        return new Index(images);
+    }
+
+    /**
+     * Load info about image, or reuse previous when its tags are not changed.
+     */
+    private ImageInfo loadImage(String regId, String fullName, String image, ImageInfo prev) {
+        List<String> tags = null;
+        try {
+            Tags res = this.service.getTags(image);
+            if(res == null) {
+                log.info("Tags of image {} from registry {} is null, see above log for details.", image, regId);
+            } else {
+                tags = res.getTags();
+            }
+        } catch (Exception e) {
+            log.info("Can not load tags of image {} from registry {} with error: {}", image, regId, e.toString());
+        }
+        if(prev != null && (tags == null || tags.equals(prev.getTags()))) {
+            return prev;
+        }
+        ImageDescriptor descriptor = loadDescriptor(regId, image, tags);
+        return new ImageInfo(fullName, tags, descriptor);
     }
 
-    private ImageDescriptor loadDescriptor(String regId, String image) {
+    private ImageDescriptor loadDescriptor(String regId, String image, List<String> tags) {
         // we use descriptor of latest image
-        ImageDescriptor descriptor = null;
         String latestTag = "latest";
+        if(!CollectionUtils.isEmpty(tags) && !tags.contains(latestTag)) {
+            //not any image has 'latest' tag
+            //order of tags is sometime random and we need to sort them
+            List<String> list = new ArrayList<>(tags);
+            list.sort(ImageNameComparator.getTagsComparator());
+            latestTag = list.get(list.size() - 1);
+        }
         try {
-            descriptor = this.service.getImage(image, latestTag);
-            if(descriptor == null) {
-                //not any image has 'latest' tag and we may try load tags
-                Tags tags = this.service.getTags(image);
-                if(tags == null) {
-                    log.info("Tags of image {} from registry {} is null, see above log for details.", image, regId);
-                } else {
-                    List<String> list = tags.getTags();
-                    if(!CollectionUtils.isEmpty(list)) {
-                        //order of tags is sometime random and we need to sort them
-                        list.sort(ImageNameComparator.getTagsComparator());
-                        latestTag = list.get(list.size() - 1);
-                        descriptor = this.service.getImage(image, latestTag);
-                    }
-                }
-            }
+            return this.service.getImage(image, latestTag);
         } catch (Exception e) {
             // for prevent noise in log (it may happen when registry is down) we do not print stack trace
             log.info("Can not load latest image {} from registry {} with error: {}", image, regId, e.toString());
+            return null;
         }
-        return descriptor;
     }
 
     @Override
     public SearchResult search(String query, int page, int count) {
         Assert.hasText(query, "query is null");
         SearchResult result = new SearchResult();
-        result.setPage(0);
-        result.setNumPages(1);
         result.setQuery(query);
-        List<SearchResult.Result> results = new ArrayList<>();
-        result.setResults(results);
-        Map<String, ImageInfo> images = getImages();
-        for(String fullImageName: images.keySet()) {
-            boolean match = fullImageName == null ? query == null : query != null && fullImageName.contains(query);
-            if(match) {
-                SearchResult.Result res = new SearchResult.Result();
-                res.setName(fullImageName);
-                ImageInfo ii = images.get(fullImageName);
-                String description = getDescription(ii);
-                res.setDescription(description);
-                res.getRegistries().add(registryName);
-                results.add(res);
-            }
+        Index index = getIndex();
+        int[] found = index.find(query.toLowerCase());
+        // when count is not specified we return all results on single page
+        int pageSize = count > 0 ? count : Math.max(found.length, 1);
+        int numPages = Math.max((found.length + pageSize - 1) / pageSize, 1);
+        int from = Math.max(page, 0) * pageSize;
+        int to = Math.min(from + pageSize, found.length);
+        List<SearchResult.Result> results = new ArrayList<>(Math.max(to - from, 0));
+        for(int i = from; i < to; ++i) {
+            ImageInfo ii = index.infos[found[i]];
+            SearchResult.Result res = new SearchResult.Result();
+            res.setName(ii.getName());
+            res.setDescription(getDescription(ii));
+            res.getRegistries().add(registryName);
+            results.add(res);
         }
-        results.sort(null);
-        result.setNumResults(results.size());
-        result.setPageSize(result.getNumResults());
+        result.setResults(results);
+        result.setPage(Math.max(page, 0));
+        result.setNumPages(numPages);
+        result.setNumResults(found.length);
+        result.setPageSize(pageSize);
         return result;
     }
 
-    private Map<String, ImageInfo> getImages() {
-        Map<String, ImageInfo> images = cache.getOrNull();
-        if(images == null) {
-            images = cache.getOldValue();
-        }
-        if(images == null) {
-            images = cache.get();
-        }
-        return images;
+    private Index getIndex() {
+        // expired index is returned while it is refreshed in background
+        return cache.get();
     }
 
-    private String getDescription(ImageInfo ii) {
+    private static String getDescription(ImageInfo ii) {
         String description = null;
         ImageDescriptor descriptor = ii.getDescriptor();
         if(descriptor != null) {
@@ -171,7 +228,6 @@ class SearchIndex implements SupportSearch, AutoCloseable {
 
     public void init() {
         if(ses != null) {
-            //TODO we must return old cache when update in progress
             this.future = ses.scheduleWithFixedDelay(cache::get, 1000L, getTimeout(), TimeUnit.MILLISECONDS);
         }
     }
@@ -188,13 +244,80 @@ class SearchIndex implements SupportSearch, AutoCloseable {
         }
     }
 
+    /**
+     * Immutable snapshot of images with inverted index. Images are ordered by name, so posting lists
+     * of trigrams contain ascending ordinals of images and results of search are sorted.
+     */
+    private static final class Index {
+        private final Map<String, ImageInfo> images;
+        private final ImageInfo[] infos;
+        /**
+         * Lower cased name and description of image.
+         */
+        private final String[] texts;
+        private final Map<String, int[]> grams;
+
+        Index(Map<String, ImageInfo> images) {
+            this.images = images;
+            List<ImageInfo> list = new ArrayList<>(images.values());
+            list.sort((l, r) -> ImageNameComparator.STRING.compare(l.getName(), r.getName()));
+            this.infos = list.toArray(new ImageInfo[list.size()]);
+            this.texts = new String[infos.length];
+            Map<String, BitSet> postings = new HashMap<>();
+            for(int i = 0; i < infos.length; ++i) {
+                ImageInfo ii = infos[i];
+                // '\n' is never present in query, so grams can not cross boundary of name and description
+                String text = (ii.getName() + "\n" + getDescription(ii)).toLowerCase();
+                texts[i] = text;
+                for(int j = 0; j + GRAM <= text.length(); ++j) {
+                    postings.computeIfAbsent(text.substring(j, j + GRAM), k -> new BitSet()).set(i);
+                }
+            }
+            this.grams = new HashMap<>(postings.size());
+            postings.forEach((k, v) -> grams.put(k, v.stream().toArray()));
+        }
+
+        /**
+         * Find images which name or description contains query.
+         * @param query lower cased query
+         * @return ascending ordinals of images
+         */
+        int[] find(String query) {
+            int[] candidates = null;
+            if(query.length() >= GRAM) {
+                // we use the shortest posting list, then check each candidate
+                for(int j = 0; j + GRAM <= query.length(); ++j) {
+                    int[] posting = grams.get(query.substring(j, j + GRAM));
+                    if(posting == null) {
+                        return new int[0];
+                    }
+                    if(candidates == null || posting.length < candidates.length) {
+                        candidates = posting;
+                    }
+                }
+            }
+            int size = candidates == null ? texts.length : candidates.length;
+            int[] found = new int[size];
+            int count = 0;
+            for(int i = 0; i < size; ++i) {
+                int ordinal = candidates == null ? i : candidates[i];
+                if(texts[ordinal].contains(query)) {
+                    found[count++] = ordinal;
+                }
+            }
+            return Arrays.copyOf(found, count);
+        }
+    }
+
     @EqualsAndHashCode
     public static class ImageInfo {
         private final String name;
+        private final List<String> tags;
         private final ImageDescriptor descriptor;
 
-        public ImageInfo(String name, ImageDescriptor descriptor) {
+        public ImageInfo(String name, List<String> tags, ImageDescriptor descriptor) {
             this.name = name;
+            this.tags = tags;
             this.descriptor = descriptor;
         }
 
@@ -202,6 +325,14 @@ class SearchIndex implements SupportSearch, AutoCloseable {
             return name;
         }
 
+        /**
+         * Tags of image at time of loading, it used for detecting changes.
+         * @return tags or null
+         */
+        public List<String> getTags() {
+            return tags;
+        }
+
         /**
          * Descriptor of latest image.
          * @return descriptor or null
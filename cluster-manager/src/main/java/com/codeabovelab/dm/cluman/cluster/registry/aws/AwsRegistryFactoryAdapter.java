@@ -34,6 +34,7 @@ public class AwsRegistryFactoryAdapter implements RegistryFactoryAdapter<AwsRegi
         return RegistryServiceImpl.builder()
           .adapter(new AwsRegistryAdapter(awsService, config, factory::restTemplate))
           .searchConfig(factory.getSearchIndexDefaultConfig())
+          .descriptorCache(factory.getDescriptorCache(config.getName()))
           .build();
     }
 
@@ -18,6 +18,7 @@ package com.codeabovelab.dm.cluman.configuration;
 
 import com.codeabovelab.dm.cluman.persistent.PersistentBusFactory;
 import com.codeabovelab.dm.common.fc.FbStorage;
+import com.codeabovelab.dm.common.fc.FbSyncMode;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
@@ -29,10 +30,12 @@ import org.springframework.context.annotation.Configuration;
 @ComponentScan(basePackageClasses = PersistentBusFactory.class)
 public class FbConfiguration {
     @Bean
-    FbStorage fileBackedStorage(@Value("${dm.fbstorage.location}") String storagePath) {
+    FbStorage fileBackedStorage(@Value("${dm.fbstorage.location}") String storagePath,
+                                @Value("${dm.fbstorage.syncMode:NONE}") FbSyncMode syncMode) {
         return FbStorage.builder()
           .maxFileSize(1024 * 1024 * 512)
           .path(storagePath)
+          .syncMode(syncMode)
           .build();
     }
 }
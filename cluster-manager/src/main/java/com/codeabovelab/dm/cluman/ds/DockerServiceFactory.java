@@ -34,6 +34,8 @@ import com.codeabovelab.dm.common.utils.Throwables;
 import com.codeabovelab.dm.platform.http.async.NettyRequestFactory;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.handler.ssl.ClientAuth;
 import io.netty.handler.ssl.JdkSslContext;
 import lombok.extern.slf4j.Slf4j;
@@ -67,6 +69,10 @@ public class DockerServiceFactory {
     private final MessageBus<DockerServiceEvent> dockerServiceEventMessageBus;
     private final NodeStorage nodeStorage;
     private final ExecutorService executor;
+    /**
+     * All docker services share one group of IO threads, otherwise each node will hold its own set of threads.
+     */
+    private final EventLoopGroup eventLoopGroup;
     private final AccessContextFactory aclContextFactory;
     private final ObjectMapper objectMapper;
     private final ResourceLoader resourceLoader;
@@ -94,6 +100,11 @@ public class DockerServiceFactory {
           .setNameFormat(getClass().getSimpleName() + "-executor-%d")
           .setUncaughtExceptionHandler(Throwables.uncaughtHandler(log))
           .build());
+        this.eventLoopGroup = new NioEventLoopGroup(Runtime.getRuntime().availableProcessors() * 2, new ThreadFactoryBuilder()
+          .setDaemon(true)
+          .setNameFormat(getClass().getSimpleName() + "-io-%d")
+          .setUncaughtExceptionHandler(Throwables.uncaughtHandler(log))
+          .build());
         this.objectMapper = objectMapper;
         this.aclContextFactory = aclContextFactory;
         this.nodeStorage = nodeStorage;
@@ -132,7 +143,7 @@ public class DockerServiceFactory {
 
     private AsyncRestTemplate createNewRestTemplate(String addr) {
         // we use async client because usual client does not allow to interruption in some cases
-        NettyRequestFactory factory = new NettyRequestFactory();
+        NettyRequestFactory factory = new NettyRequestFactory(eventLoopGroup);
         if(AddressUtils.isHttps(addr)) {
             try {
                 initSsl(addr, factory);
@@ -184,6 +195,7 @@ public class DockerServiceFactory {
     @PreDestroy
     private void preDestroy() {
         this.executor.shutdownNow();
+        this.eventLoopGroup.shutdownGracefully();
     }
 
 }
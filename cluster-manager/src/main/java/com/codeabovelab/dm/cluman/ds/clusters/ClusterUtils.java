@@ -16,9 +16,11 @@
 
 package com.codeabovelab.dm.cluman.ds.clusters;
 
+import com.codeabovelab.dm.cluman.cluster.docker.model.DockerEvent;
 import com.codeabovelab.dm.cluman.model.NodeGroupState;
 import com.codeabovelab.dm.cluman.model.NodesGroup;
 import com.codeabovelab.dm.cluman.validate.ExtendedAssert;
+import com.codeabovelab.dm.common.mb.Subscriptions;
 import org.springframework.util.StringUtils;
 
 import java.util.Set;
@@ -60,4 +62,16 @@ public final class ClusterUtils {
         return features.contains(NodesGroup.Feature.SWARM) ||
           features.contains(NodesGroup.Feature.SWARM_MODE);
     }
+
+    /**
+     * Merged docker events of nodes of virtual group.
+     * @param nodesGroup group
+     * @return subscriptions which pass last events to new subscribers, or null when group is not virtual
+     */
+    public static Subscriptions<DockerEvent> getDockerEventSubscriptions(NodesGroup nodesGroup) {
+        if(!(nodesGroup instanceof NodesGroupImpl)) {
+            return null;
+        }
+        return ((NodesGroupImpl) nodesGroup).getDockerEventSubscriptions();
+    }
 }
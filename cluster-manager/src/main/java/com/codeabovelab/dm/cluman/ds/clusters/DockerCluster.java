@@ -81,14 +81,15 @@ public class DockerCluster extends AbstractNodesGroup<DockerClusterConfig> {
     DockerCluster(DiscoveryStorageImpl storage, DockerClusterConfig config) {
         super(config, storage, Collections.singleton(Feature.SWARM_MODE));
         long cacheTimeAfterWrite = config.getConfig().getCacheTimeAfterWrite();
-        nodesMap = SingleValueCache.builder(this::loadNodesMap)
-          .timeAfterWrite(cacheTimeAfterWrite)
-          .nullStrategy(SingleValueCache.NullStrategy.DIRTY)
-          .build();
         this.scheduledExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
           .setDaemon(true)
           .setNameFormat(getClass().getSimpleName() + "-" + getName() + "-%d")
           .build());
+        nodesMap = SingleValueCache.builder(this::loadNodesMap)
+          .timeAfterWrite(TimeUnit.SECONDS, cacheTimeAfterWrite)
+          .nullStrategy(SingleValueCache.NullStrategy.DIRTY)
+          .refreshAsync(getRefreshExecutor())
+          .build();
         this.rereadNodesTask = RescheduledTask.builder()
           .runnable(this::rereadNodes)
           .service(this.scheduledExecutor)
@@ -146,6 +147,19 @@ public class DockerCluster extends AbstractNodesGroup<DockerClusterConfig> {
         this.createDefaultNetwork();
     }
 
+    /**
+     * Executor for background refresh of cluster caches, it run tasks with system authority,
+     * because docker service of cluster is secured.
+     * @return executor
+     */
+    Executor getRefreshExecutor() {
+        return (r) -> scheduledExecutor.execute(() -> {
+            try (TempAuth ta = TempAuth.asSystem()) {
+                r.run();
+            }
+        });
+    }
+
     private void scheduleRereadNodes() {
         rereadNodesTask.schedule();
     }
@@ -156,6 +170,7 @@ public class DockerCluster extends AbstractNodesGroup<DockerClusterConfig> {
     }
 
     protected void initImpl() {
+        this.data.invalidate();
         List<String> hosts = this.config.getManagers();
         if(CollectionUtils.isEmpty(hosts)) {
             cancelInit("config must contains at least one manager host.");
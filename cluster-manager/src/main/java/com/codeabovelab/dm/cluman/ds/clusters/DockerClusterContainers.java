@@ -57,9 +57,11 @@ class DockerClusterContainers implements ContainersManager {
         this.containerCreator = containerCreator;
         this.svcmap = SingleValueCache.builder(this::loadServices)
           .timeAfterWrite(TimeUnit.SECONDS, dc.getConfig().getConfig().getCacheTimeAfterWrite())
+          .refreshAsync(dc.getRefreshExecutor())
           .build();
         this.tasksmap = SingleValueCache.builder(this::loadTasks)
           .timeAfterWrite(TimeUnit.SECONDS, dc.getConfig().getConfig().getCacheTimeAfterWrite())
+          .refreshAsync(dc.getRefreshExecutor())
           .build();
     }
 
@@ -99,13 +101,8 @@ class DockerClusterContainers implements ContainersManager {
 
     private List<DockerContainer> getContainersInternal() {
         ImmutableList.Builder<DockerContainer> conts = ImmutableList.builder();
-        List<ContainerRegistration> crs = containerStorage.getContainers();
-        crs.forEach((cr) -> {
-            DockerContainer container = cr.getContainer();
-            if(this.dc.hasNode(container.getNode())) {
-                conts.add(container);
-            }
-        });
+        List<ContainerRegistration> crs = containerStorage.getContainersByNodes(this.dc::hasNode);
+        crs.forEach((cr) -> conts.add(cr.getContainer()));
         return conts.build();
     }
 
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2016 Code Above Lab LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.codeabovelab.dm.cluman.ds.clusters;
+
+import com.codeabovelab.dm.cluman.cluster.docker.management.DockerService;
+import com.codeabovelab.dm.cluman.ds.nodes.NodeStorage;
+import com.codeabovelab.dm.cluman.model.Node;
+import com.codeabovelab.dm.common.utils.FanOut;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Call docker services of many nodes in parallel, with deadline for whole call. Nodes which does not answer
+ * before deadline are skipped, so result contains only answers of other nodes.
+ */
+@Component
+public class NodesFanOut {
+
+    private final FanOut fanOut;
+
+    @Autowired
+    public NodesFanOut(NodesFanOutConfig config) {
+        this.fanOut = new FanOut(getClass().getSimpleName(), config);
+    }
+
+    @PreDestroy
+    private void preDestroy() {
+        this.fanOut.close();
+    }
+
+    /**
+     * Invoke function on services of online nodes. Offline nodes, nodes which deny access and nodes which
+     * fail with error are absent in result.
+     * @param nodeStorage storage of nodes
+     * @param nodes nodes
+     * @param func function which is invoked in other thread, with security context of caller
+     * @param <R> type of answer
+     * @return answers by node names, never null
+     */
+    public <R> FanOut.Result<String, R> call(NodeStorage nodeStorage, Collection<? extends Node> nodes, Function<DockerService, R> func) {
+        Map<String, DockerService> services = new LinkedHashMap<>();
+        for(Node node: nodes) {
+            String name = node.getName();
+            DockerService service = nodeStorage.getNodeService(name);
+            if(VirtualDockerService.isOffline(service)) {
+                // due to different causes service can be null
+                continue;
+            }
+            services.put(name, service);
+        }
+        return fanOut.call(services.keySet(), name -> func.apply(services.get(name)));
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2016 Code Above Lab LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.codeabovelab.dm.cluman.ds.clusters;
+
+import com.codeabovelab.dm.common.utils.FanOut;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration of calls which virtual nodes group does to its nodes, threads are shared between all groups.
+ */
+@Component
+@ConfigurationProperties("dm.nodesGroup.fanOut")
+public class NodesFanOutConfig extends FanOut.Config {
+
+    public NodesFanOutConfig() {
+        setThreads(16);
+        setDeadlineSeconds(20);
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2016 Code Above Lab LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.codeabovelab.dm.cluman.ds.clusters;
+
+import com.codeabovelab.dm.cluman.cluster.docker.management.argument.GetEventsArg;
+import com.codeabovelab.dm.cluman.cluster.docker.management.result.ResultCode;
+import com.codeabovelab.dm.cluman.cluster.docker.management.result.ServiceCallResult;
+import com.codeabovelab.dm.cluman.cluster.docker.model.Actor;
+import com.codeabovelab.dm.cluman.cluster.docker.model.DockerEvent;
+import com.codeabovelab.dm.cluman.cluster.docker.model.Node;
+import com.codeabovelab.dm.cluman.model.ContainerBase;
+import com.codeabovelab.dm.cluman.model.DockerLogEvent;
+import com.codeabovelab.dm.common.mb.*;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.Assert;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Merged stream of docker events from nodes of group. It is made from single subscription on
+ * {@link DockerLogEvent#BUS}, so count of group consumers does not affect count of node streams. Events are
+ * converted into {@link DockerEvent} once, before publishing. Last events are kept and passed to new subscribers,
+ * see {@link SmartConsumer#getHistoryCount()}.
+ */
+@Slf4j
+class NodesGroupEvents implements AutoCloseable {
+
+    /**
+     * Count of last events, which are passed to new subscribers.
+     */
+    static final int REPLAY_SIZE = 100;
+    private final Subscriptions<DockerLogEvent> source;
+    private final Predicate<String> nodeFilter;
+    private final MessageBus<DockerEvent> bus;
+    private final Consumer<DockerLogEvent> listener = this::onEvent;
+    private final ArrayDeque<DockerEvent> replay = new ArrayDeque<>(REPLAY_SIZE);
+
+    /**
+     * Create and subscribe on source.
+     * @param id id of group bus
+     * @param source bus of all node events
+     * @param nodeFilter filter which accept names of nodes of group
+     */
+    NodesGroupEvents(String id, Subscriptions<DockerLogEvent> source, Predicate<String> nodeFilter) {
+        Assert.notNull(source, "source is null");
+        Assert.notNull(nodeFilter, "nodeFilter is null");
+        this.source = source;
+        this.nodeFilter = nodeFilter;
+        this.bus = MessageBusImpl.builder(DockerEvent.class, MessageSubscriptionsWrapper::new)
+          .id(id)
+          .onSubscribe(this::onSubscribe)
+          .build();
+        this.source.subscribe(listener);
+    }
+
+    private void onEvent(DockerLogEvent e) {
+        String node = e.getNode();
+        if(node == null || !nodeFilter.test(node)) {
+            return;
+        }
+        DockerEvent de = toDockerEvent(e);
+        synchronized (replay) {
+            if(replay.size() == REPLAY_SIZE) {
+                replay.pollFirst();
+            }
+            replay.addLast(de);
+        }
+        bus.accept(de);
+    }
+
+    private void onSubscribe(MessageBus<DockerEvent> mb, Consumer<DockerEvent> consumer) {
+        SmartConsumer<DockerEvent> sc = SmartConsumer.of(consumer);
+        int count = sc.getHistoryCount();
+        if(count == 0) {
+            return;
+        }
+        List<DockerEvent> events;
+        synchronized (replay) {
+            events = new ArrayList<>(replay);
+        }
+        Predicate<DockerEvent> filter = sc.historyFilter();
+        for(DockerEvent e: events.subList(Math.max(0, events.size() - count), events.size())) {
+            if(filter.test(e)) {
+                consumer.accept(e);
+            }
+        }
+    }
+
+    Subscriptions<DockerEvent> getSubscriptions() {
+        return bus.asSubscriptions();
+    }
+
+    /**
+     * Pass events of group into watcher of argument until its interrupter is set. Like docker it does not
+     * pass past events.
+     * @param arg argument
+     * @return result
+     */
+    ServiceCallResult subscribe(GetEventsArg arg) {
+        Consumer<DockerEvent> watcher = arg.getWatcher();
+        Assert.notNull(watcher, "watcher is null");
+        SmartConsumer<DockerEvent> consumer = new SmartConsumer<DockerEvent>() {
+            @Override
+            public int getHistoryCount() {
+                return 0;
+            }
+
+            @Override
+            public void accept(DockerEvent e) {
+                watcher.accept(e);
+            }
+        };
+        ServiceCallResult res = new ServiceCallResult();
+        bus.subscribe(consumer);
+        try {
+            arg.getInterrupter().get();
+            res.code(ResultCode.OK);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            res.code(ResultCode.ERROR).message("Interrupted");
+        } catch (ExecutionException e) {
+            res.code(ResultCode.ERROR).message(e.getMessage());
+        } finally {
+            bus.unsubscribe(consumer);
+        }
+        return res;
+    }
+
+    private static DockerEvent toDockerEvent(DockerLogEvent e) {
+        DockerEvent de = new DockerEvent();
+        de.setType(e.getType());
+        de.setAction(e.getAction());
+        de.setStatus(e.getStatus());
+        long time = e.getTimeInMilliseconds();
+        if(time != Long.MIN_VALUE) {
+            de.setTime(TimeUnit.MILLISECONDS.toSeconds(time));
+        }
+        de.setNode(new Node(null, 0, null, null, e.getNode(), 0L, null));
+        ContainerBase container = e.getContainer();
+        if(container != null) {
+            de.setId(container.getId());
+            de.setFrom(container.getImage());
+            Map<String, String> attrs = new HashMap<>(container.getLabels());
+            if(container.getName() != null) {
+                attrs.put("name", container.getName());
+            }
+            if(container.getImage() != null) {
+                attrs.put("image", container.getImage());
+            }
+            Actor actor = new Actor();
+            actor.setId(container.getId());
+            actor.setAttributes(attrs);
+            de.setActor(actor);
+        }
+        return de;
+    }
+
+    @Override
+    public void close() throws Exception {
+        source.unsubscribe(listener);
+        bus.close();
+    }
+}
@@ -19,20 +19,23 @@ package com.codeabovelab.dm.cluman.ds.clusters;
 import com.codeabovelab.dm.cluman.cluster.docker.management.DockerService;
 import com.codeabovelab.dm.cluman.cluster.docker.management.argument.GetContainersArg;
 import com.codeabovelab.dm.cluman.cluster.docker.management.result.ServiceCallResult;
+import com.codeabovelab.dm.cluman.cluster.docker.model.DockerEvent;
 import com.codeabovelab.dm.cluman.cluster.filter.Filter;
 import com.codeabovelab.dm.cluman.cluster.filter.FilterFactory;
 import com.codeabovelab.dm.cluman.ds.SwarmClusterContainers;
 import com.codeabovelab.dm.cluman.ds.container.ContainerCreator;
 import com.codeabovelab.dm.cluman.ds.container.ContainerRegistration;
 import com.codeabovelab.dm.cluman.ds.container.ContainerStorage;
-import com.codeabovelab.dm.cluman.ds.nodes.NodeStorage;
 import com.codeabovelab.dm.cluman.model.*;
+import com.codeabovelab.dm.common.mb.Subscriptions;
+import com.codeabovelab.dm.common.utils.Closeables;
 import com.google.common.collect.ImmutableSet;
 import lombok.Builder;
 import lombok.Singular;
 import lombok.ToString;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.access.AccessDeniedException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.util.Assert;
 
 import java.util.*;
 
@@ -50,20 +53,8 @@ class NodesGroupImpl extends AbstractNodesGroup<DefaultNodesGroupConfig> {
 
         public List<DockerContainer> getContainers(NodesGroupImpl ng, GetContainersArg arg) {
             List<DockerContainer> list = new ArrayList<>();
-            NodeStorage nodeStorage = ng.getNodeStorage();
-            for(Node node: ng.getNodes()) {
-                DockerService service = nodeStorage.getNodeService(node.getName());
-                if(VirtualDockerService.isOffline(service)) {
-                    // due to different causes service can be null
-                    continue;
-                }
-                try {
-                    List<DockerContainer> nodeContainer = service.getContainers(arg);
-                    list.addAll(nodeContainer);
-                } catch (AccessDeniedException e) {
-                    //nothing
-                }
-            }
+            ng.getFanOut().call(ng.getNodeStorage(), ng.getNodes(), service -> service.getContainers(arg))
+              .getResults().values().forEach(list::addAll);
             return list;
         }
     }
@@ -86,6 +77,8 @@ class NodesGroupImpl extends AbstractNodesGroup<DefaultNodesGroupConfig> {
     private ContainerCreator containerCreator;
     private ContainerStorage containerStorage;
     private ContainersProvider containersProvider;
+    private NodesFanOut fanOut;
+    private NodesGroupEvents events;
 
     @Builder
     public NodesGroupImpl(DiscoveryStorageImpl storage,
@@ -120,6 +113,42 @@ class NodesGroupImpl extends AbstractNodesGroup<DefaultNodesGroupConfig> {
         this.containerStorage = containerStorage;
     }
 
+    @Autowired
+    void setFanOut(NodesFanOut fanOut) {
+        this.fanOut = fanOut;
+    }
+
+    NodesFanOut getFanOut() {
+        return this.fanOut;
+    }
+
+    @Autowired
+    void setDockerLogSubscriptions(@Qualifier(DockerLogEvent.BUS) Subscriptions<DockerLogEvent> subscriptions) {
+        Assert.isNull(this.events, "Events is already initialized");
+        this.events = new NodesGroupEvents(DockerLogEvent.BUS + ":" + getName(), subscriptions, (node) -> {
+            // predicate is null until group is inited
+            return this.predicate != null && hasNode(node);
+        });
+    }
+
+    /**
+     * Merged docker events of group nodes.
+     * @return subscriptions, which also pass last events to new subscriber, or null when events is not inited
+     */
+    Subscriptions<DockerEvent> getDockerEventSubscriptions() {
+        NodesGroupEvents events = this.events;
+        return events == null ? null : events.getSubscriptions();
+    }
+
+    NodesGroupEvents getEvents() {
+        return this.events;
+    }
+
+    @Override
+    protected void closeImpl() {
+        Closeables.close(this.events);
+    }
+
     @Override
     protected void initImpl() {
         if(predicate != null) {
@@ -28,14 +28,16 @@ import com.codeabovelab.dm.cluman.ds.nodes.NodeStorage;
 import com.codeabovelab.dm.cluman.ds.nodes.NodeUtils;
 import com.codeabovelab.dm.cluman.model.*;
 import com.codeabovelab.dm.cluman.model.Node;
+import com.codeabovelab.dm.common.utils.FanOut;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.access.AccessDeniedException;
 import org.springframework.util.Assert;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  */
@@ -129,22 +131,18 @@ class VirtualDockerService implements DockerService {
     @Override
     public List<ImageItem> getImages(GetImagesArg arg) {
         List<ImageItem> virt = new ArrayList<>();
-        for(Node node: cluster.getNodes()) {
-            DockerService service = getServiceByNode(node);
-            if(isOffline(service)) {
-                // due to different causes service can be null
-                continue;
-            }
-            try {
-                List<ImageItem> images = service.getImages(arg);
-                virt.addAll(images);
-            } catch (AccessDeniedException e) {
-                //nothing
-            }
-        }
+        fanOut(service -> service.getImages(arg)).getResults().values().forEach(virt::addAll);
         return virt;
     }
 
+    /**
+     * Call all nodes of group in parallel.
+     * @see NodesFanOut#call(NodeStorage, Collection, Function)
+     */
+    private <R> FanOut.Result<String, R> fanOut(Function<DockerService, R> func) {
+        return cluster.getFanOut().call(getNodeStorage(), cluster.getNodes(), func);
+    }
+
     private DockerService getServiceByNode(Node node) {
         Assert.notNull(node, "Node is null");
         return  getNodeStorage().getNodeService(node.getName());
@@ -254,7 +252,7 @@ class VirtualDockerService implements DockerService {
 
     @Override
     public ServiceCallResult subscribeToEvents(GetEventsArg arg) {
-        throw new UnsupportedOperationException("Virtual cluster does not support.");
+        return this.cluster.getEvents().subscribe(arg);
     }
 
     @Override
@@ -283,17 +281,23 @@ class VirtualDockerService implements DockerService {
     @Override
     public RemoveImageResult removeImage(RemoveImageArg removeImageArg) {
         RemoveImageResult removeImageResult = new RemoveImageResult();
-        removeImageResult.code(ResultCode.OK);
-        for(Node node: cluster.getNodes()) {
-            DockerService service = getServiceByNode(node);
-            if (isOffline(service)) {
-                continue;
-            }
-            try {
-                service.removeImage(removeImageArg);
-            } catch (AccessDeniedException e) {
-                //nothing
+        removeImageResult.setImage(removeImageArg.getImageId());
+        FanOut.Result<String, RemoveImageResult> res = fanOut(service -> service.removeImage(removeImageArg));
+        List<String> errors = new ArrayList<>();
+        res.getResults().forEach((node, nodeRes) -> {
+            ResultCode code = nodeRes.getCode();
+            // image may be absent on some nodes of group
+            if(code != ResultCode.OK && code != ResultCode.NOT_MODIFIED && code != ResultCode.NOT_FOUND) {
+                errors.add(node + ": " + code + " " + nodeRes.getMessage());
             }
+        });
+        res.getFailed().forEach(node -> errors.add(node + ": failed"));
+        res.getTimedOut().forEach(node -> errors.add(node + ": does not answer in time"));
+        if(errors.isEmpty()) {
+            removeImageResult.code(ResultCode.OK);
+        } else {
+            removeImageResult.code(ResultCode.ERROR);
+            removeImageResult.message("Can not remove image on nodes: " + errors);
         }
         return removeImageResult;
     }
@@ -333,23 +337,8 @@ class VirtualDockerService implements DockerService {
 
     @Override
     public ImageDescriptor getImage(String name) {
-        ImageDescriptor image = null;
-        for(Node node: cluster.getNodes()) {
-            DockerService service = getServiceByNode(node);
-            if(isOffline(service)) {
-                // due to different causes service can be null
-                continue;
-            }
-            try {
-                image = service.getImage(name);
-                if (image != null) {
-                    break;
-                }
-            } catch (AccessDeniedException e) {
-                //nothing
-            }
-        }
-        return image;
+        Collection<ImageDescriptor> images = fanOut(service -> service.getImage(name)).getResults().values();
+        return images.isEmpty()? null : images.iterator().next();
     }
 
     @Override
@@ -20,6 +20,7 @@ import com.codeabovelab.dm.cluman.cluster.docker.management.DockerService;
 import com.codeabovelab.dm.cluman.cluster.docker.management.DockerServiceEvent;
 import com.codeabovelab.dm.cluman.cluster.docker.management.argument.GetContainersArg;
 import com.codeabovelab.dm.cluman.cluster.docker.model.EventType;
+import com.codeabovelab.dm.cluman.ds.nodes.NodeEventStreams;
 import com.codeabovelab.dm.cluman.ds.nodes.NodeStorage;
 import com.codeabovelab.dm.cluman.model.*;
 import com.codeabovelab.dm.cluman.security.TempAuth;
@@ -30,39 +31,65 @@ import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
 import org.springframework.context.SmartLifecycle;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Utility which subscribe to different events and refresh container list. Also it refresh list o timeout. <p/>
+ * In {@link ContainerUpdateConfig#isEventDeltas()} mode container events are applied to storage directly, and
+ * list of node containers is fully refreshed (resynced) only when events may be lost. Resyncs of different nodes
+ * run in parallel. <p/>
  * NOTE: we do _not_ check node services to 'online' state in this class.
  */
 @Slf4j
 @Component
-class ContainerInfoUpdater implements SmartLifecycle {
+class ContainerInfoUpdater implements SmartLifecycle, PublicMetrics {
+    private static final String METRIC_PREFIX = "dm.containers.";
     private final ContainerStorageImpl containerStorage;
     private final ConcurrentMap<String, RescheduledTask> scheduledNodes;
+    /**
+     * Nodes which are resynced now, it prevent concurrent resync of one node.
+     */
+    private final Set<String> resyncing = ConcurrentHashMap.newKeySet();
+    /**
+     * Duration of last resync of node in milliseconds.
+     */
+    private final Map<String, Long> resyncLatency = new ConcurrentHashMap<>();
+    private final AtomicLong resyncs = new AtomicLong();
+    private final AtomicLong resyncFailures = new AtomicLong();
+    private final AtomicLong appliedEvents = new AtomicLong();
     private final ScheduledExecutorService scheduledService;
     private final NodeStorage nodeStorage;
+    private final boolean eventDeltas;
     private boolean started;
 
     @Autowired
     public ContainerInfoUpdater(NodeStorage nodeStorage,
                                 ContainerStorageImpl containerStorage,
+                                ContainerUpdateConfig config,
+                                NodeEventStreams eventStreams,
                                 @Qualifier(NodeEvent.BUS) Subscriptions<NodeEvent> nodeSubs,
                                 @Qualifier(DockerServiceEvent.BUS) Subscriptions<DockerServiceEvent> dockerSubs,
                                 @Qualifier(DockerLogEvent.BUS) Subscriptions<DockerLogEvent> dockerLogSubs) {
         this.nodeStorage = nodeStorage;
         this.containerStorage = containerStorage;
+        this.eventDeltas = config.isEventDeltas();
         nodeSubs.subscribe(this::onNodeEvent);
         dockerSubs.subscribe(this::onDockerEvent);
         dockerLogSubs.subscribe(this::onDockerLogEvent);
-        this.scheduledService = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+        eventStreams.addReconnectListener(this::onEventsReconnect);
+        this.scheduledService = Executors.newScheduledThreadPool(Math.max(1, config.getResyncThreads()), new ThreadFactoryBuilder()
           .setDaemon(true)
           .setNameFormat(getClass().getSimpleName() + "-%d")
           .build());
@@ -114,11 +141,22 @@ class ContainerInfoUpdater implements SmartLifecycle {
         final String id = container.getId();
         ContainerRegistration cr = null;
         String action = dle.getAction();
+        String node = dle.getNode();
+        // resync may be started before event and finished while it is applied
+        boolean resync = isResyncing(node);
         switch(action) {
             case StandardActions.DELETE: {
                 containerStorage.deleteContainer(id);
                 break;
             }
+            case StandardActions.CREATE: {
+                cr = containerStorage.getContainer(id);
+                if(cr == null && eventDeltas && node != null) {
+                    cr = containerStorage.updateAndGetContainer(container, node);
+                    cr.modify(cb -> cb.setState(DockerContainer.State.CREATED));
+                }
+                break;
+            }
             default: {
                 cr = containerStorage.getContainer(id);
             }
@@ -134,11 +172,59 @@ class ContainerInfoUpdater implements SmartLifecycle {
                 }
             });
         }
-        String node = dle.getNode();
+        if(eventDeltas) {
+            boolean applied = StandardActions.DELETE.equals(action) || (cr != null && isDelta(action, container));
+            if(applied) {
+                appliedEvents.incrementAndGet();
+                if(resync || isResyncing(node)) {
+                    // resync write its older snapshot over applied delta, so we need one more resync
+                    log.info("Schedule node '{}' update because container '{}' changed to '{}' during update.", node, id, action);
+                    scheduleNodeUpdate(node);
+                }
+                return;
+            }
+            if(cr != null && !isChange(action)) {
+                // exec, attach and etc. do not change container
+                return;
+            }
+        }
         log.info("Schedule node '{}' update due to container '{}' changed to: {}", node, id, action);
         scheduleNodeUpdate(node);
     }
 
+    private boolean isResyncing(String node) {
+        return node != null && resyncing.contains(node);
+    }
+
+    /**
+     * @return true when event is fully applied to storage
+     */
+    private static boolean isDelta(String action, ContainerBase container) {
+        return StandardActions.CREATE.equals(action) || container.getState() != null;
+    }
+
+    /**
+     * @return true when event changes container in way which can not be applied from event, like rename
+     */
+    private static boolean isChange(String action) {
+        switch (action) {
+            case "rename":
+            case "update":
+            case "oom":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private void onEventsReconnect(String node) {
+        if(!eventDeltas) {
+            return;
+        }
+        log.info("Events stream of node '{}' is reconnected, schedule update containers.", node);
+        scheduleNodeUpdate(node);
+    }
+
     /**
      * Schedule update of specified node in yhe next 10 seconds. Concrete time may be changed in future.
      * @param node name of node
@@ -190,7 +276,11 @@ class ContainerInfoUpdater implements SmartLifecycle {
         if(NodeEvent.Action.DELETE == action) {
             log.info("Node '{}' is '{}' remove containers.", name, action);
             containerStorage.removeNodeContainers(name);
-            scheduledNodes.remove(name);
+            resyncLatency.remove(name);
+            RescheduledTask task = scheduledNodes.remove(name);
+            if(task != null) {
+                task.close();
+            }
             return;
         }
         // at first event 'ONLINE', node does not have a service, but we ignore second event
@@ -216,19 +306,45 @@ class ContainerInfoUpdater implements SmartLifecycle {
         try(TempAuth ta = TempAuth.asSystem()) {
             log.info("Begin update containers list");
             for(String node: nodeStorage.getNodeNames()) {
-                DockerService nodeService = nodeStorage.getNodeService(node);
-                // we do _not_ check service to 'online' here
-                if(nodeService == null) {
-                    continue;
+                // resync of nodes run in parallel
+                try {
+                    scheduledService.execute(() -> updateNodeByName(node));
+                } catch (RejectedExecutionException e) {
+                    log.warn("Can not schedule update containers of node '{}': {}", node, e.toString());
                 }
-                updateForNode(nodeService);
             }
             log.info("End update containers list");
         }
     }
 
+    @Override
+    public Collection<Metric<?>> metrics() {
+        List<Metric<?>> list = new ArrayList<>();
+        list.add(new Metric<>(METRIC_PREFIX + "resync.count", resyncs.get()));
+        list.add(new Metric<>(METRIC_PREFIX + "resync.failures", resyncFailures.get()));
+        list.add(new Metric<>(METRIC_PREFIX + "events.applied", appliedEvents.get()));
+        resyncLatency.forEach((node, latency) -> list.add(new Metric<>(METRIC_PREFIX + "resync.latency." + node, latency)));
+        return list;
+    }
+
     private void updateForNode(DockerService nodeService) {
         String node = nodeService.getNode();
+        if(!resyncing.add(node)) {
+            // node is updated now, so we check it again later, because its containers may be changed
+            scheduleNodeUpdate(node);
+            return;
+        }
+        long begin = System.currentTimeMillis();
+        try {
+            resyncNode(nodeService, node);
+        } finally {
+            resyncs.incrementAndGet();
+            resyncLatency.put(node, System.currentTimeMillis() - begin);
+            resyncing.remove(node);
+        }
+    }
+
+    private void resyncNode(DockerService nodeService, String node) {
         log.info("Update containers list of node '{}'", node);
         try {
             List<DockerContainer> containers = nodeService.getContainers(new GetContainersArg(true));
@@ -240,6 +356,7 @@ class ContainerInfoUpdater implements SmartLifecycle {
             this.containerStorage.remove(old);
             log.info("Containers of node '{}', current:{}, removed:{}", node, containers.size(), old.size());
         } catch (Exception e) {
+            resyncFailures.incrementAndGet();
             Throwable root = Throwables.getRootCause(e);
             if(root instanceof java.net.SocketException) {
                 //reduce log noise when node has permanent network failure
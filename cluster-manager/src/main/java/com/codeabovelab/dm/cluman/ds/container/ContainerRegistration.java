@@ -41,12 +41,14 @@ public class ContainerRegistration {
     private final Object lock = new Object();
     private DockerContainer cached;
     private KvMap<?> map;
+    private final ContainerStorageImpl csi;
 
     ContainerRegistration(ContainerStorageImpl csi, String id) {
         this.id = id;
         Assert.notNull(id, "id is null");
         this.container = DockerContainer.builder().id(id);
         this.map = csi.map;
+        this.csi = csi;
         this.resheduleTask = RescheduledTask.builder()
           .maxDelay(10L, TimeUnit.SECONDS)
           .service(csi.executorService)
@@ -103,6 +105,7 @@ public class ContainerRegistration {
             validate();
             this.cached = null;
         }
+        csi.reindex(this);
         scheduleFlush();
     }
 
@@ -19,6 +19,7 @@ package com.codeabovelab.dm.cluman.ds.container;
 import com.codeabovelab.dm.cluman.model.ContainerBaseIface;
 
 import java.util.List;
+import java.util.function.Predicate;
 
 public interface ContainerStorage {
 
@@ -33,6 +34,21 @@ public interface ContainerStorage {
     ContainerRegistration findContainer(String name);
     List<ContainerRegistration> getContainersByNode(String nodeName);
 
+    /**
+     * Containers of nodes which are accepted by filter. Unlike filtering of {@link #getContainers()}
+     * it does not load containers of other nodes.
+     * @param nodeFilter filter of node names
+     * @return list of registrations
+     */
+    List<ContainerRegistration> getContainersByNodes(Predicate<String> nodeFilter);
+
+    /**
+     * Containers which are created from specified image.
+     * @param image image name as it present in container
+     * @return list of registrations
+     */
+    List<ContainerRegistration> getContainersByImage(String image);
+
     /**
      * It also create container if it unexists.
      * @param container container
@@ -18,10 +18,14 @@ package com.codeabovelab.dm.cluman.ds.container;
 
 import com.codeabovelab.dm.cluman.model.ContainerBaseIface;
 import com.codeabovelab.dm.cluman.model.DockerContainer;
+import com.codeabovelab.dm.common.kv.KvStorageEvent;
 import com.codeabovelab.dm.common.kv.mapping.KvMap;
+import com.codeabovelab.dm.common.kv.mapping.KvMapEvent;
+import com.codeabovelab.dm.common.kv.mapping.KvMapLocalEvent;
 import com.codeabovelab.dm.common.kv.mapping.KvMapperFactory;
 import com.codeabovelab.dm.common.utils.Throwables;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -29,20 +33,94 @@ import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
-import java.util.List;
-import java.util.Objects;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 @Component
 @Slf4j
 public class ContainerStorageImpl implements ContainerStorage {
 
+    /**
+     * Values of indexed attributes of container, which is used for removing of container from index.
+     */
+    private static final class Keys {
+        private final String node;
+        private final String name;
+        private final String image;
+
+        Keys(ContainerRegistration cr) {
+            DockerContainer dc = cr.getContainer();
+            this.node = dc == null ? null : dc.getNode();
+            this.name = dc == null ? null : dc.getName();
+            this.image = dc == null ? null : dc.getImage();
+        }
+    }
+
+    /**
+     * Index of container ids by some attribute.
+     */
+    private static final class Index {
+        private final ConcurrentHashMap<String, Set<String>> map = new ConcurrentHashMap<>();
+        private final Function<Keys, String> attr;
+
+        Index(Function<Keys, String> attr) {
+            this.attr = attr;
+        }
+
+        void update(String id, Keys old, Keys keys) {
+            String oldVal = old == null ? null : attr.apply(old);
+            String newVal = keys == null ? null : attr.apply(keys);
+            if(Objects.equals(oldVal, newVal)) {
+                return;
+            }
+            if(oldVal != null) {
+                map.computeIfPresent(oldVal, (k, ids) -> {
+                    ids.remove(id);
+                    return ids.isEmpty() ? null : ids;
+                });
+            }
+            if(newVal != null) {
+                map.compute(newVal, (k, ids) -> {
+                    if(ids == null) {
+                        ids = ConcurrentHashMap.newKeySet();
+                    }
+                    ids.add(id);
+                    return ids;
+                });
+            }
+        }
+
+        Set<String> get(String val) {
+            if(val == null) {
+                return Collections.emptySet();
+            }
+            Set<String> ids = map.get(val);
+            return ids == null ? Collections.emptySet() : ImmutableSet.copyOf(ids);
+        }
+
+        Set<String> values() {
+            return ImmutableSet.copyOf(map.keySet());
+        }
+    }
+
     final KvMap<ContainerRegistration> map;
+    /**
+     * Current keys of each indexed container, modifications of it are guarded by itself.
+     */
+    private final Map<String, Keys> indexed = new HashMap<>();
+    private final Index byNode = new Index(k -> k.node);
+    private final Index byName = new Index(k -> k.name);
+    private final Index byImage = new Index(k -> k.image);
     final ScheduledExecutorService executorService;
+    /**
+     * Keys of containers which is scheduled for loading after kv events.
+     */
+    private final Set<String> pendingLoads = ConcurrentHashMap.newKeySet();
 
     @Autowired
     public ContainerStorageImpl(KvMapperFactory kvmf) {
@@ -51,6 +129,8 @@ public class ContainerStorageImpl implements ContainerStorage {
           .mapper(kvmf)
           .path(prefix)
           .factory((key, type) -> new ContainerRegistration(this, key))
+          .localListener(this::onLocalEvent)
+          .listener(this::onKvEvent)
           .build();
         this.executorService = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
           .setDaemon(true)
@@ -62,6 +142,8 @@ public class ContainerStorageImpl implements ContainerStorage {
     @PostConstruct
     public void postConstruct() {
         this.map.load();
+        // map load values lazily, but indexes must contain all persisted containers
+        this.map.values().forEach(this::reindex);
     }
 
     @PreDestroy
@@ -69,9 +151,87 @@ public class ContainerStorageImpl implements ContainerStorage {
         this.executorService.shutdown();
     }
 
+    private void onLocalEvent(KvMapLocalEvent<ContainerRegistration> e) {
+        ContainerRegistration cr = e.getNewValue();
+        if(cr == null) {
+            unindex(e.getKey());
+        } else {
+            reindex(cr);
+        }
+    }
+
+    private void onKvEvent(KvMapEvent<ContainerRegistration> e) {
+        KvStorageEvent.Crud action = e.getAction();
+        if(action == KvStorageEvent.Crud.READ) {
+            return;
+        }
+        // map load values lazily, but index must see containers which are changed by another instance,
+        // loading raise local event which update index; each property raise own event, so we coalesce them
+        String key = e.getKey();
+        if(!pendingLoads.add(key)) {
+            return;
+        }
+        executorService.execute(() -> {
+            // remove before loading, so event which come in loading time will schedule new load
+            pendingLoads.remove(key);
+            // delete event is raised for removed property too, so we check that container is actually absent,
+            // also removed container may be never loaded here, therefore local event is not guaranteed
+            if(map.get(key) == null) {
+                unindex(key);
+            }
+        });
+    }
+
+    /**
+     * Update indexes by current state of container. Invoked after each modification of registration.
+     * @param cr registration
+     */
+    void reindex(ContainerRegistration cr) {
+        String id = cr.getId();
+        synchronized (indexed) {
+            Keys keys = new Keys(cr);
+            updateIndexes(id, indexed.put(id, keys), keys);
+        }
+    }
+
+    private void unindex(String id) {
+        synchronized (indexed) {
+            Keys old = indexed.remove(id);
+            if(old != null) {
+                updateIndexes(id, old, null);
+            }
+        }
+    }
+
+    private void updateIndexes(String id, Keys old, Keys keys) {
+        byNode.update(id, old, keys);
+        byName.update(id, old, keys);
+        byImage.update(id, old, keys);
+    }
+
+    /**
+     * Resolve indexed ids into registrations, with check of actual value, because value may be changed
+     * before index is updated.
+     */
+    private List<ContainerRegistration> resolve(Set<String> ids, Predicate<DockerContainer> check) {
+        List<ContainerRegistration> list = new ArrayList<>(ids.size());
+        for(String id: ids) {
+            ContainerRegistration cr = map.get(id);
+            if(cr == null) {
+                continue;
+            }
+            DockerContainer dc = cr.getContainer();
+            if(dc != null && check.test(dc)) {
+                list.add(cr);
+            }
+        }
+        return list;
+    }
+
     @Override
     public void deleteContainer(String id) {
         ContainerRegistration cr = map.remove(id);
+        unindex(id);
         if(cr != null) {
             log.info("Container remove: {} ", cr.forLog());
             cr.close();
@@ -91,29 +251,48 @@ public class ContainerStorageImpl implements ContainerStorage {
     @Override
     public ContainerRegistration findContainer(String name) {
         ContainerRegistration cr = map.get(name);
-        if(cr == null) {
-            cr = map.values().stream().filter((item) -> {
-                DockerContainer container = item.getContainer();
-                return container != null && (item.getId().startsWith(name) || Objects.equals(container.getName(), name));
-            }).findAny().orElse(null);
+        if(cr != null) {
+            return cr;
         }
-        return cr;
+        List<ContainerRegistration> named = resolve(byName.get(name), dc -> Objects.equals(dc.getName(), name));
+        if(!named.isEmpty()) {
+            return named.get(0);
+        }
+        // ids of all containers is present in map keys, so it does not need loading of values
+        for(String id: map.list()) {
+            if(id.startsWith(name)) {
+                cr = map.get(id);
+                if(cr != null) {
+                    return cr;
+                }
+            }
+        }
+        return null;
     }
 
     @Override
     public List<ContainerRegistration> getContainersByNode(String nodeName) {
-        return containersByNode(nodeName)
-          .collect(Collectors.toList());
+        return resolve(byNode.get(nodeName), dc -> Objects.equals(dc.getNode(), nodeName));
+    }
+
+    @Override
+    public List<ContainerRegistration> getContainersByNodes(Predicate<String> nodeFilter) {
+        List<ContainerRegistration> list = new ArrayList<>();
+        for(String node: byNode.values()) {
+            if(nodeFilter.test(node)) {
+                list.addAll(getContainersByNode(node));
+            }
+        }
+        return list;
     }
 
-    private Stream<ContainerRegistration> containersByNode(String nodeName) {
-        return map.values()
-          .stream()
-          .filter(c -> Objects.equals(c.getNode(), nodeName));
+    @Override
+    public List<ContainerRegistration> getContainersByImage(String image) {
+        return resolve(byImage.get(image), dc -> Objects.equals(dc.getImage(), image));
     }
 
     Set<String> getContainersIdsByNode(String nodeName) {
-        return containersByNode(nodeName)
+        return getContainersByNode(nodeName).stream()
           .map(ContainerRegistration::getId)
           .collect(Collectors.toSet());
     }
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2016 Code Above Lab LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.codeabovelab.dm.cluman.ds.container;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration of containers update.
+ */
+@Data
+@Component
+@ConfigurationProperties("dm.containers.update")
+public class ContainerUpdateConfig {
+    /**
+     * Apply container events from docker directly to storage. Containers of node are fully resynced only
+     * when its event stream is reconnected, on events which can not be applied, and periodically.
+     * When false, each container event cause resync of its node.
+     */
+    private boolean eventDeltas = true;
+    /**
+     * Count of threads in which containers of nodes are resynced.
+     */
+    private int resyncThreads = 4;
+}
@@ -35,10 +35,15 @@ import mousio.etcd4j.responses.EtcdKeysResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -46,24 +51,112 @@ public class EtcdClientWrapper implements KeyValueStorage {
     private static final int KEY_NOT_FOUND = 100;
     private static final int NOT_A_FILE = 102;
     private static final int KEY_ALREADY_EXISTS = 105;
+    private static final long WATCH_RETRY_MS = 1000L;
     private final Logger logger = LoggerFactory.getLogger(getClass());
     private final EtcdClient etcd;
     private final String prefix;
     private final MessageBus<KvStorageEvent> bus;
     private final ExecutorService executor;
+    private final ScheduledExecutorService watchRetryExecutor;
+    private final EtcdReplica replica;
 
     public EtcdClientWrapper(EtcdClient etcd, String prefix) {
+        this(etcd, prefix, false);
+    }
+
+    /**
+     * @param etcd client
+     * @param prefix prefix of keys
+     * @param replica when true, keys under prefix are replicated into memory and read from it
+     */
+    public EtcdClientWrapper(EtcdClient etcd, String prefix, boolean replica) {
         this.etcd = etcd;
         this.prefix = prefix;
+        this.replica = replica ? new EtcdReplica(prefix) : null;
         //possibly we need to create better id ob bus
-        this.bus = MessageBusImpl.builder(KvStorageEvent.class, (s) -> new ConditionalMessageBusWrapper<>(s, KvStorageEvent::getKey, KvUtils::predicate))
+        this.bus = MessageBusImpl.builder(KvStorageEvent.class, (s) -> ConditionalMessageBusWrapper.pathIndexed(s, KvStorageEvent::getKey, KvUtils::predicate))
           .id(getClass().getName())
           .build();
         this.executor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
           .setNameFormat(getClass().getName() + "-bus-%d")
           .setDaemon(true)
           .build());
-        eventWhirligig(-1);
+        this.watchRetryExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+          .setNameFormat(getClass().getName() + "-watch-retry-%d")
+          .setDaemon(true)
+          .build());
+        startWatch();
+    }
+
+    private void startWatch() {
+        if(replica == null) {
+            eventWhirligig(-1);
+            return;
+        }
+        try {
+            long index = loadReplica();
+            // we watch from index of loaded state, so no one change is lost
+            eventWhirligig(index + 1);
+        } catch (Exception e) {
+            logger.error("Can not load replica of '{}', reads will go to etcd until retry.", prefix, e);
+            retryWatch();
+        }
+    }
+
+    private void retryWatch() {
+        watchRetryExecutor.schedule(this::startWatch, WATCH_RETRY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Load all keys under prefix into replica by one recursive request.
+     * @return etcd index of loaded state
+     */
+    private long loadReplica() throws Exception {
+        replica.beginLoad();
+        long index;
+        try {
+            EtcdKeysResponse r = etcd.get(prefix).recursive().send().get();
+            loadNode(r.node);
+            index = r.etcdIndex;
+        } catch (EtcdException e) {
+            if(e.errorCode != KEY_NOT_FOUND) {
+                throw e;
+            }
+            index = e.index;
+        }
+        replica.endLoad(index);
+        log.info("Replica of '{}' is loaded at index {}", prefix, index);
+        return index;
+    }
+
+    private void loadNode(EtcdKeysResponse.EtcdNode node) {
+        replica.set(node.key, node.value, node.dir, node.modifiedIndex);
+        if(node.nodes != null) {
+            node.nodes.forEach(this::loadNode);
+        }
+    }
+
+    /**
+     * Apply result of write or watch to replica.
+     */
+    private void applyToReplica(EtcdKeysResponse r) {
+        if(replica == null || r.node == null) {
+            return;
+        }
+        EtcdKeysResponse.EtcdNode node = r.node;
+        switch (r.action) {
+            case compareAndDelete:
+            case delete:
+            case expire:
+                replica.delete(node.key, node.modifiedIndex);
+                break;
+            case create:
+            case compareAndSwap:
+            case set:
+            case update:
+                replica.set(node.key, node.value, node.dir, node.modifiedIndex);
+                break;
+        }
     }
 
 
@@ -80,8 +173,24 @@ public class EtcdClientWrapper implements KeyValueStorage {
             EtcdResponsePromise<EtcdKeysResponse> promise = req.send();
             final boolean debug = log.isDebugEnabled();
             promise.addListener(rp -> {
+                EtcdKeysResponse r;
+                try {
+                    r = rp.get();
+                } catch (Exception e) {
+                    // it also happen when index is outdated and cleared, so we have gap in events and
+                    // replica must be reloaded
+                    logger.error("Error when watch events, retry after {} ms", WATCH_RETRY_MS, e);
+                    if(replica != null) {
+                        replica.reset();
+                    }
+                    retryWatch();
+                    return;
+                }
                 try {
-                    EtcdKeysResponse r = rp.get();
+                    if(replica != null) {
+                        applyToReplica(r);
+                        replica.applied(r.node.modifiedIndex);
+                    }
                     //immediate subscribe for next events
                     eventWhirligig(r.node.modifiedIndex + 1);
                     //in future we must to remove this logging, but not now
@@ -114,7 +223,11 @@ public class EtcdClientWrapper implements KeyValueStorage {
                 }
             });
         } catch (Exception e) {
-            logger.error("Error when process events", e);
+            logger.error("Error when process events, retry after {} ms", WATCH_RETRY_MS, e);
+            if(replica != null) {
+                replica.reset();
+            }
+            retryWatch();
         }
     }
 
@@ -133,6 +246,9 @@ public class EtcdClientWrapper implements KeyValueStorage {
 
     @Override
     public KvNode get(String key) {
+        if(replica != null && replica.covers(key)) {
+            return replica.get(key);
+        }
         try {
             EtcdResponsePromise<EtcdKeysResponse> send = etcd.get(key).send();
             EtcdKeysResponse resp = send.get();
@@ -153,6 +269,7 @@ public class EtcdClientWrapper implements KeyValueStorage {
         try {
             EtcdResponsePromise<EtcdKeysResponse> send = etcd.put(key, value).send();
             EtcdKeysResponse resp = send.get();
+            applyToReplica(resp);
             log.debug("set value {} for key {}", resp.node.value, resp.node.key);
             return toNode(resp);
         } catch (Exception e) {
@@ -166,6 +283,7 @@ public class EtcdClientWrapper implements KeyValueStorage {
         fillPutReq(ops, req);
         try {
             EtcdKeysResponse resp = executeRequest(req);
+            applyToReplica(resp);
             log.debug("set value {} for key {}, ops {}", resp.node.value, resp.node.key, ops);
             return toNode(resp);
         } catch (Exception e) {
@@ -181,7 +299,7 @@ public class EtcdClientWrapper implements KeyValueStorage {
         fillDeleteReq(ops, req);
         try {
             EtcdKeysResponse resp = executeRequest(req);
-
+            applyToReplica(resp);
             log.debug("deleted key {}", resp.node.key);
             return toNode(resp);
         } catch (Exception e) {
@@ -189,6 +307,67 @@ public class EtcdClientWrapper implements KeyValueStorage {
         }
     }
 
+    @Override
+    public CompletableFuture<KvNode> getAsync(String key) {
+        if(replica != null && replica.covers(key)) {
+            return CompletableFuture.completedFuture(replica.get(key));
+        }
+        return executeAsync(etcd.get(key), e -> {
+            if (e.errorCode != KEY_NOT_FOUND) {
+                log.error("Error during fetching key", e);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<KvNode> setAsync(String key, String value, WriteOptions ops) {
+        EtcdKeyPutRequest req = etcd.put(key, value);
+        fillPutReq(ops, req);
+        return executeAsync(req, null);
+    }
+
+    @Override
+    public CompletableFuture<KvNode> deleteAsync(String key, WriteOptions ops) {
+        EtcdKeyDeleteRequest req = etcd.delete(key);
+        fillDeleteReq(ops, req);
+        return executeAsync(req, null);
+    }
+
+    /**
+     * Send request without waiting of response. Response is applied to replica and converted to node
+     * in netty thread, so consumers of future must not do long work in non async callbacks.
+     * @param req request
+     * @param errorHandler handler which convert etcd error to result, when null error fails future
+     * @return future
+     */
+    private CompletableFuture<KvNode> executeAsync(EtcdKeyRequest req, Function<EtcdException, KvNode> errorHandler) {
+        CompletableFuture<KvNode> future = new CompletableFuture<>();
+        try {
+            req.send().addListener(rp -> {
+                try {
+                    EtcdKeysResponse resp;
+                    try {
+                        resp = rp.get();
+                    } catch (EtcdException e) {
+                        if(errorHandler == null) {
+                            throw e;
+                        }
+                        future.complete(errorHandler.apply(e));
+                        return;
+                    }
+                    applyToReplica(resp);
+                    future.complete(toNode(resp));
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
     private EtcdKeysResponse executeRequest(EtcdKeyRequest req) throws Exception {
         EtcdResponsePromise<EtcdKeysResponse> send = req.send();
         return send.get();
@@ -231,6 +410,7 @@ public class EtcdClientWrapper implements KeyValueStorage {
         fillPutReq(ops, req);
         try {
             EtcdKeysResponse resp = executeRequest(req);
+            applyToReplica(resp);
             log.debug("make dir at key {}", resp.node.key);
             return toNode(resp);
         } catch (EtcdException e) {
@@ -258,6 +438,7 @@ public class EtcdClientWrapper implements KeyValueStorage {
         fillDeleteReq(ops, req);
         try {
             EtcdKeysResponse resp = executeRequest(req);
+            applyToReplica(resp);
             log.debug("deleted key {}", resp.node.key);
             return toNode(resp);
         } catch (EtcdException e) {
@@ -272,6 +453,14 @@ public class EtcdClientWrapper implements KeyValueStorage {
 
     @Override
     public List<String> list(String key) {
+        Map<String, KvNode> children = getLocalChildren(key);
+        if(children != null) {
+            String dir = EtcdReplica.normalize(key);
+            return children.keySet().stream().map(n -> EtcdReplica.child(dir, n)).collect(Collectors.toList());
+        }
+        if(isLocallyAbsent(key)) {
+            return null;
+        }
         try {
             EtcdResponsePromise<EtcdKeysResponse> send = etcd.getDir(key).send();
             EtcdKeysResponse r = send.get();
@@ -288,6 +477,17 @@ public class EtcdClientWrapper implements KeyValueStorage {
 
     @Override
     public Map<String, String> map(String key) {
+        Map<String, KvNode> children = getLocalChildren(key);
+        // etcd can not return value of directory, so we leave this case to it
+        if(children != null && children.values().stream().noneMatch(KvNode::isDirectory)) {
+            String dir = EtcdReplica.normalize(key);
+            Map<String, String> map = new HashMap<>();
+            children.forEach((n, node) -> map.put(EtcdReplica.child(dir, n), node.getValue()));
+            return map;
+        }
+        if(children == null && isLocallyAbsent(key)) {
+            return null;
+        }
         try {
             EtcdResponsePromise<EtcdKeysResponse> send = etcd.get(key).recursive().send();
             EtcdKeysResponse r = send.get();
@@ -303,6 +503,50 @@ public class EtcdClientWrapper implements KeyValueStorage {
         }
     }
 
+    @Override
+    public Map<String, KvNode> getChildren(String key) {
+        Map<String, KvNode> children = getLocalChildren(key);
+        if(children != null) {
+            return children;
+        }
+        if(isLocallyAbsent(key)) {
+            return null;
+        }
+        try {
+            EtcdResponsePromise<EtcdKeysResponse> send = etcd.getDir(key).send();
+            EtcdKeysResponse r = send.get();
+            Map<String, KvNode> map = new HashMap<>();
+            for(EtcdKeysResponse.EtcdNode node: r.node.nodes) {
+                String name = node.key.substring(node.key.lastIndexOf('/') + 1);
+                map.put(name, node.dir ? KvNode.dir(node.modifiedIndex) : KvNode.leaf(node.modifiedIndex, node.value));
+            }
+            return map;
+        } catch (EtcdException e) {
+            if (e.errorCode != KEY_NOT_FOUND) {
+                log.error("Error during fetching key", e);
+            }
+            return null;
+        } catch (Exception e) {
+            throw Throwables.asRuntime(e);
+        }
+    }
+
+    /**
+     * Give children from replica.
+     * @param key key of directory
+     * @return children or null when replica can not answer or directory is absent
+     */
+    private Map<String, KvNode> getLocalChildren(String key) {
+        if(replica == null || !replica.covers(key)) {
+            return null;
+        }
+        return replica.getChildren(key);
+    }
+
+    private boolean isLocallyAbsent(String key) {
+        return replica != null && replica.covers(key) && replica.get(key) == null;
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     public ConditionalSubscriptions<KvStorageEvent, String> subscriptions() {
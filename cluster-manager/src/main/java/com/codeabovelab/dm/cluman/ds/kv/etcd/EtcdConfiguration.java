@@ -20,6 +20,7 @@ import com.codeabovelab.dm.cluman.ds.swarm.SwarmDiscoveryUrlFunction;
 import lombok.extern.slf4j.Slf4j;
 import mousio.etcd4j.EtcdClient;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -41,7 +42,14 @@ public class EtcdConfiguration {
     @Value("${dm.kv.prefix:/cluman}")
     private String prefix;
 
+    /**
+     * Keep replica of keys under prefix in memory and serve reads from it.
+     */
+    @Value("${dm.kv.etcd.replica:false}")
+    private boolean replica;
+
     @Bean
+    @ConditionalOnProperty(name = "dm.kv.type", havingValue = "etcd", matchIfMissing = true)
     public EtcdClientWrapper client() {
         List<URI> uris = new ArrayList<>();
         for (String etcdUrl : etcdUrls) {
@@ -49,7 +57,7 @@ public class EtcdConfiguration {
         }
         log.info("About to connect to etcd: {}", (Object)etcdUrls);
         EtcdClient etcd = new EtcdClient(uris.toArray(new URI[uris.size()]));
-        return new EtcdClientWrapper(etcd, prefix.trim());
+        return new EtcdClientWrapper(etcd, prefix.trim(), replica);
     }
 
     @Bean
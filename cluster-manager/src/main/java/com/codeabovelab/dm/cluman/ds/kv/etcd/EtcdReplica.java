@@ -0,0 +1,262 @@
+/*
+ * Copyright 2016 Code Above Lab LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.codeabovelab.dm.cluman.ds.kv.etcd;
+
+import com.codeabovelab.dm.common.kv.KvNode;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Local replica of etcd keys under prefix. It is filled by one recursive request, and then updated from
+ * watch stream and responses of local writes. Each node keeps its 'modifiedIndex', so older changes can not
+ * overwrite newer. <p/>
+ * Replica does not answer for keys out of prefix, hidden keys (which is not visible in recursive requests)
+ * and when it is not ready (before load or after failure of watch).
+ */
+final class EtcdReplica {
+
+    private static final class Node {
+        private final String key;
+        private final ConcurrentMap<String, Node> children = new ConcurrentHashMap<>();
+        /**
+         * Immutable snapshot of value, dir flag and index, it replaced at once so readers never see mix of
+         * different versions.
+         */
+        private volatile KvNode state;
+
+        Node(String key, boolean dir, long index) {
+            this.key = key;
+            this.state = dir ? KvNode.dir(index) : KvNode.leaf(index, null);
+        }
+
+        KvNode toKvNode() {
+            return state;
+        }
+    }
+
+    private final String prefix;
+    private volatile Node root;
+    private volatile boolean ready;
+    private long appliedIndex;
+    /**
+     * Index of deleted keys, it protect from applying of older changes, which come from watch after local delete.
+     * Guarded by this.
+     */
+    private final Map<String, Long> tombstones = new HashMap<>();
+
+    EtcdReplica(String prefix) {
+        prefix = normalize(prefix);
+        // root is stored as empty string, because we append '/' to prefix
+        this.prefix = "/".equals(prefix) ? "" : prefix;
+    }
+
+    /**
+     * Begin load of new state, replica is not ready until {@link #endLoad(long)}.
+     */
+    synchronized void beginLoad() {
+        this.ready = false;
+        this.root = new Node(prefix, true, 0);
+        this.tombstones.clear();
+    }
+
+    synchronized void endLoad(long index) {
+        this.appliedIndex = index;
+        this.ready = true;
+    }
+
+    /**
+     * Mark replica as not ready, so all reads go to etcd.
+     */
+    synchronized void reset() {
+        this.ready = false;
+    }
+
+    boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Apply change of key.
+     * @param key key
+     * @param value value of leaf
+     * @param dir is directory
+     * @param index modified index of key
+     */
+    synchronized void set(String key, String value, boolean dir, long index) {
+        key = normalize(key);
+        if(!isUnderPrefix(key) || isBuried(key, index)) {
+            return;
+        }
+        Node node = root;
+        if(!isRoot(key)) {
+            for(String name: split(key)) {
+                Node parent = node;
+                node = parent.children.computeIfAbsent(name, (n) -> new Node(child(parent.key, n), true, index));
+            }
+        }
+        if(node.state.getIndex() > index) {
+            return;
+        }
+        node.state = dir ? KvNode.dir(index) : KvNode.leaf(index, value);
+    }
+
+    /**
+     * Apply deletion of key.
+     * @param key key
+     * @param index modified index of key
+     */
+    synchronized void delete(String key, long index) {
+        key = normalize(key);
+        if(!isUnderPrefix(key)) {
+            return;
+        }
+        tombstones.merge(key, index, Math::max);
+        if(isRoot(key)) {
+            root.children.clear();
+            return;
+        }
+        Node parent = root;
+        List<String> names = split(key);
+        for(int i = 0; i < names.size() - 1 && parent != null; ++i) {
+            parent = parent.children.get(names.get(i));
+        }
+        if(parent == null) {
+            return;
+        }
+        String name = names.get(names.size() - 1);
+        Node node = parent.children.get(name);
+        if(node != null && node.state.getIndex() <= index) {
+            parent.children.remove(name);
+        }
+    }
+
+    /**
+     * Mark that all changes up to index are received from watch stream.
+     * @param index modified index of last event
+     */
+    synchronized void applied(long index) {
+        if(index > appliedIndex) {
+            appliedIndex = index;
+        }
+        tombstones.values().removeIf(i -> i <= appliedIndex);
+    }
+
+    private boolean isBuried(String key, long index) {
+        if(tombstones.isEmpty()) {
+            return false;
+        }
+        String curr = key;
+        while(true) {
+            Long deleted = tombstones.get(curr);
+            if(deleted != null && deleted >= index) {
+                return true;
+            }
+            if(isRoot(curr)) {
+                return false;
+            }
+            curr = curr.substring(0, curr.lastIndexOf('/'));
+            if(curr.isEmpty()) {
+                curr = "/";
+            }
+        }
+    }
+
+    /**
+     * Check that replica can answer for key.
+     * @param key key
+     * @return true when replica is ready and key is under prefix
+     */
+    boolean covers(String key) {
+        if(!ready) {
+            return false;
+        }
+        key = normalize(key);
+        // hidden keys are not present in recursive responses
+        return isUnderPrefix(key) && !key.contains("/_");
+    }
+
+    /**
+     * Give node by key, invoke only after {@link #covers(String)}.
+     * @param key key
+     * @return node or null when it absent
+     */
+    KvNode get(String key) {
+        Node node = find(key);
+        return node == null ? null : node.toKvNode();
+    }
+
+    /**
+     * Give children of directory, invoke only after {@link #covers(String)}.
+     * @param key key of directory
+     * @return map of child name to node, null when node is absent or is not a directory
+     */
+    Map<String, KvNode> getChildren(String key) {
+        Node node = find(key);
+        if(node == null || !node.state.isDirectory()) {
+            return null;
+        }
+        Map<String, KvNode> map = new HashMap<>();
+        node.children.forEach((name, child) -> map.put(name, child.toKvNode()));
+        return map;
+    }
+
+    private Node find(String key) {
+        key = normalize(key);
+        Node node = root;
+        if(isRoot(key)) {
+            return node;
+        }
+        for(String name: split(key)) {
+            node = node.children.get(name);
+            if(node == null) {
+                return null;
+            }
+        }
+        return node;
+    }
+
+    private boolean isRoot(String key) {
+        return key.equals(prefix) || (prefix.isEmpty() && key.equals("/"));
+    }
+
+    private boolean isUnderPrefix(String key) {
+        return isRoot(key) || (key.startsWith(prefix) && key.charAt(prefix.length()) == '/');
+    }
+
+    private List<String> split(String key) {
+        return Arrays.asList(key.substring(prefix.length() + 1).split("/"));
+    }
+
+    static String child(String parent, String name) {
+        return parent + "/" + name;
+    }
+
+    static String normalize(String key) {
+        if(key.isEmpty() || key.charAt(0) != '/') {
+            key = "/" + key;
+        }
+        while(key.length() > 1 && key.charAt(key.length() - 1) == '/') {
+            key = key.substring(0, key.length() - 1);
+        }
+        return key;
+    }
+}
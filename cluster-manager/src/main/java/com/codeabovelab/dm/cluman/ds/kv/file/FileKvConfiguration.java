@@ -0,0 +1,62 @@
+/*
+ * Copyright 2016 Code Above Lab LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.codeabovelab.dm.cluman.ds.kv.file;
+
+import com.codeabovelab.dm.common.fc.FbStorage;
+import com.codeabovelab.dm.common.kv.FileKeyValueStorage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+/**
+ * Embedded file backed kv storage, it replace etcd when 'dm.kv.type=file'.
+ * Note that it can not be shared between many instances of application.
+ */
+@Configuration
+@ConditionalOnProperty(name = "dm.kv.type", havingValue = "file")
+@Slf4j
+public class FileKvConfiguration {
+
+    @Value("${dm.kv.prefix:/cluman}")
+    private String prefix;
+
+    /**
+     * Directory of storage, by default it placed into 'kv' of 'dm.fbstorage.location'.
+     */
+    @Value("${dm.kv.file.location:}")
+    private String location;
+
+    @Value("${dm.kv.file.compactThreshold:10000}")
+    private int compactThreshold;
+
+    @Bean
+    public FileKeyValueStorage fileKeyValueStorage(FbStorage fbStorage) {
+        FileKeyValueStorage.Builder b = FileKeyValueStorage.builder()
+          .storage(fbStorage)
+          .prefix(prefix.trim())
+          .compactThreshold(compactThreshold);
+        if(StringUtils.hasText(location)) {
+            b.path(location);
+        }
+        log.info("Use embedded kv storage at: {}", b.getPath());
+        return b.build();
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * Copyright 2016 Code Above Lab LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.codeabovelab.dm.cluman.ds.nodes;
+
+import com.codeabovelab.dm.cluman.cluster.docker.management.DockerService;
+import com.codeabovelab.dm.cluman.cluster.docker.management.argument.GetEventsArg;
+import com.codeabovelab.dm.cluman.cluster.docker.management.result.ResultCode;
+import com.codeabovelab.dm.cluman.cluster.docker.management.result.ServiceCallResult;
+import com.codeabovelab.dm.cluman.cluster.docker.model.DockerEvent;
+import com.codeabovelab.dm.cluman.ds.swarm.DockerEventsConfig;
+import com.codeabovelab.dm.cluman.security.TempAuth;
+import com.codeabovelab.dm.common.utils.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+import org.springframework.util.concurrent.ListenableFuture;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Keeps docker event streams of all nodes. Streams are read by shared IO threads of docker services, and
+ * decoded in small shared pool (see {@link DockerEventsConfig#getCountOfThreads()}), so count of threads
+ * does not depend on count of nodes. Broken stream is reconnected with exponential backoff.
+ */
+@Slf4j
+@Component
+public class NodeEventStreams implements PublicMetrics {
+
+    private static final String METRIC_PREFIX = "dm.docker.events.";
+    private final DockerEventsConfig config;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicInteger registered = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong reconnects = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong events = new AtomicLong();
+    private final List<Consumer<String>> reconnectListeners = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    public NodeEventStreams(DockerEventsConfig config) {
+        this.config = config;
+        this.scheduler = Executors.newScheduledThreadPool(Math.max(1, config.getCountOfThreads()), new ThreadFactoryBuilder()
+          .setDaemon(true)
+          .setNameFormat(getClass().getSimpleName() + "-%d")
+          .setUncaughtExceptionHandler(Throwables.uncaughtHandler(log, "Uncaught exception in node events stream."))
+          .build());
+    }
+
+    /**
+     * Open event stream of node.
+     * @param node name of node
+     * @param docker docker service of node
+     * @param watcher consumer of events, it must not block
+     * @return handle, closing of which stop the stream
+     */
+    AutoCloseable open(String node, DockerService docker, Consumer<DockerEvent> watcher) {
+        Assert.notNull(node, "node is null");
+        Assert.notNull(docker, "docker is null");
+        Assert.notNull(watcher, "watcher is null");
+        Stream stream = new Stream(node, docker, watcher);
+        registered.incrementAndGet();
+        log.info("Register events stream from {} node, renew every {} seconds", node, config.getPeriodInSeconds());
+        stream.schedule(TimeUnit.SECONDS.toMillis(config.getInitialDelayInSeconds()));
+        return stream;
+    }
+
+    /**
+     * Add listener which is invoked with name of node when its broken stream is reconnected, because
+     * events between break and reconnect are lost.
+     * @param listener listener, it must not block
+     */
+    public void addReconnectListener(Consumer<String> listener) {
+        Assert.notNull(listener, "listener is null");
+        reconnectListeners.add(listener);
+    }
+
+    private void fireReconnect(String node) {
+        for(Consumer<String> listener: reconnectListeners) {
+            try {
+                listener.accept(node);
+            } catch (Exception e) {
+                log.error("Error in reconnect listener of {} node", node, e);
+            }
+        }
+    }
+
+    /**
+     * @return count of streams which is registered by nodes
+     */
+    public int getRegistered() {
+        return registered.get();
+    }
+
+    /**
+     * @return count of streams which is connected now
+     */
+    public int getActive() {
+        return active.get();
+    }
+
+    /**
+     * @return count of reconnects of broken streams
+     */
+    public long getReconnects() {
+        return reconnects.get();
+    }
+
+    /**
+     * @return count of streams which is ended with error
+     */
+    public long getFailures() {
+        return failures.get();
+    }
+
+    /**
+     * @return count of received events
+     */
+    public long getEvents() {
+        return events.get();
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        List<Metric<?>> list = new ArrayList<>();
+        list.add(new Metric<>(METRIC_PREFIX + "streams.registered", getRegistered()));
+        list.add(new Metric<>(METRIC_PREFIX + "streams.active", getActive()));
+        list.add(new Metric<>(METRIC_PREFIX + "streams.reconnects", getReconnects()));
+        list.add(new Metric<>(METRIC_PREFIX + "streams.failures", getFailures()));
+        list.add(new Metric<>(METRIC_PREFIX + "received", getEvents()));
+        return list;
+    }
+
+    @PreDestroy
+    private void preDestroy() {
+        this.scheduler.shutdownNow();
+    }
+
+    private long backoff(int attempt) {
+        long delay = TimeUnit.SECONDS.toMillis(config.getReconnectDelayInSeconds()) << Math.min(attempt, 16);
+        return Math.min(delay, TimeUnit.SECONDS.toMillis(config.getMaxReconnectDelayInSeconds()));
+    }
+
+    private final class Stream implements AutoCloseable {
+        private final String node;
+        private final DockerService docker;
+        private final Consumer<DockerEvent> watcher;
+        private volatile boolean closed;
+        private volatile ScheduledFuture<?> future;
+        private volatile GetEventsArg current;
+        /**
+         * Count of failed connections in row, streams of one node never run concurrently.
+         */
+        private volatile int attempts;
+        /**
+         * Previous stream is broken, so some events may be lost.
+         */
+        private volatile boolean broken;
+
+        Stream(String node, DockerService docker, Consumer<DockerEvent> watcher) {
+            this.node = node;
+            this.docker = docker;
+            this.watcher = watcher;
+        }
+
+        void schedule(long delay) {
+            if(closed) {
+                return;
+            }
+            try {
+                this.future = scheduler.schedule(this::connect, delay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                log.warn("Can not schedule events stream of {} node: {}", node, e.toString());
+            }
+        }
+
+        private void connect() {
+            if(closed) {
+                return;
+            }
+            long time = System.currentTimeMillis();
+            long until = time + TimeUnit.SECONDS.toMillis(config.getPeriodInSeconds());
+            GetEventsArg arg = GetEventsArg.builder()
+              .since(time)
+              .until(until)
+              .watcher(this::onEvent)
+              .build();
+            this.current = arg;
+            if(broken) {
+                broken = false;
+                fireReconnect(node);
+            }
+            log.debug("getting events args {}", arg);
+            active.incrementAndGet();
+            ListenableFuture<ServiceCallResult> lf;
+            try (TempAuth ta = TempAuth.asSystem()) {
+                lf = docker.subscribeToEventsAsync(arg, scheduler);
+            } catch (Exception e) {
+                active.decrementAndGet();
+                onEnd(null, e, until);
+                return;
+            }
+            lf.addCallback(res -> {
+                active.decrementAndGet();
+                onEnd(res, null, until);
+            }, e -> {
+                active.decrementAndGet();
+                onEnd(null, e, until);
+            });
+        }
+
+        private void onEvent(DockerEvent e) {
+            events.incrementAndGet();
+            watcher.accept(e);
+        }
+
+        private void onEnd(ServiceCallResult res, Throwable e, long until) {
+            this.current = null;
+            if(closed) {
+                return;
+            }
+            String error = null;
+            if(e != null) {
+                error = e.toString();
+            } else if(res.getCode() != ResultCode.OK) {
+                error = res.getCode() + " " + res.getMessage();
+            }
+            long delay = 0;
+            if(error == null && System.currentTimeMillis() >= until) {
+                // stream is ended as expected, so we simply open next
+                attempts = 0;
+            } else {
+                if(error != null) {
+                    failures.incrementAndGet();
+                }
+                broken = true;
+                int attempt = attempts;
+                attempts = attempt + 1;
+                delay = backoff(attempt);
+                reconnects.incrementAndGet();
+                log.warn("Events stream of {} node is broken, try again after {} ms, error: {}", node, delay, error);
+            }
+            schedule(delay);
+        }
+
+        @Override
+        public void close() {
+            if(closed) {
+                return;
+            }
+            closed = true;
+            registered.decrementAndGet();
+            ScheduledFuture<?> future = this.future;
+            if(future != null) {
+                future.cancel(false);
+            }
+            GetEventsArg arg = this.current;
+            if(arg != null) {
+                arg.getInterrupter().set(true);
+            }
+        }
+    }
+}
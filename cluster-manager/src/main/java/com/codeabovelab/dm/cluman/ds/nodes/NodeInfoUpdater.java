@@ -29,21 +29,36 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
 import org.springframework.stereotype.Component;
+import org.springframework.util.concurrent.ListenableFuture;
 
 import java.net.SocketException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 
 /**
+ * Periodically update info of all nodes. Nodes are requested asynchronously, no more than
+ * {@link NodeStorageConfig#getUpdateConcurrency()} at the same time, and whole update is bounded by
+ * {@link NodeStorageConfig#getUpdateDeadlineSeconds()}, so hung nodes does not delay update of others.
  */
 @Slf4j
 @Component
-class NodeInfoUpdater extends AbstractAutostartup {
+class NodeInfoUpdater extends AbstractAutostartup implements PublicMetrics {
 
+    private static final String METRIC_PREFIX = "dm.nodes.update.";
     private final ScheduledExecutorService scheduledExecutor;
     private final NodeStorage storage;
     private final Subscriptions<DockerServiceEvent> dockerServiceSubs;
@@ -51,6 +66,12 @@ class NodeInfoUpdater extends AbstractAutostartup {
     private final DiscoveryStorage discoveryStorage;
     @Value(SwarmUtils.EXPR_NODES_UPDATE_MS)
     private long updateTimeout;
+    /**
+     * Current update, it is modified from scheduled executor, or from IO thread when executor reject tasks.
+     */
+    private volatile Sweep sweep;
+    private volatile SweepStats lastStats;
+    private volatile long sweeps;
 
     @Autowired
     public NodeInfoUpdater(DiscoveryStorage discoveryStorage, @Qualifier(NodesGroupEvent.BUS) Subscriptions<NodesGroupEvent> nodesGroupSubs,
@@ -105,20 +126,51 @@ class NodeInfoUpdater extends AbstractAutostartup {
 
     private void checkNodes() {
         // periodically check online status of nodes
+        if(sweep != null) {
+            log.info("Skip update list of nodes, previous update is not finished yet");
+            return;
+        }
         try(TempAuth ta = TempAuth.asSystem()) {
-            log.info("Begin update list of nodes");
-            storage.forEachInternal(this::updateNodeInfo);
-            log.info("End update list of nodes");
+            List<NodeRegistrationImpl> nodes = new ArrayList<>();
+            storage.forEachInternal(nodes::add);
+            log.info("Begin update list of {} nodes", nodes.size());
+            sweep = new Sweep(nodes, storage.getStorageConfig());
+            sweep.next();
         } catch(Exception e) {
+            sweep = null;
             log.error("Fail update list of nodes:", e);
         }
     }
 
-    private void updateNodeInfo(NodeRegistrationImpl nr) {
+    /**
+     * @return statistic of last finished update or null
+     */
+    SweepStats getLastStats() {
+        return lastStats;
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        List<Metric<?>> list = new ArrayList<>();
+        list.add(new Metric<>(METRIC_PREFIX + "count", sweeps));
+        SweepStats stats = this.lastStats;
+        if(stats != null) {
+            list.add(new Metric<>(METRIC_PREFIX + "nodes", stats.nodes));
+            list.add(new Metric<>(METRIC_PREFIX + "timeouts", stats.timeouts));
+            list.add(new Metric<>(METRIC_PREFIX + "skipped", stats.skipped));
+            list.add(new Metric<>(METRIC_PREFIX + "duration", stats.duration));
+            list.add(new Metric<>(METRIC_PREFIX + "node.p50", stats.p50));
+            list.add(new Metric<>(METRIC_PREFIX + "node.p95", stats.p95));
+            list.add(new Metric<>(METRIC_PREFIX + "node.p99", stats.p99));
+            list.add(new Metric<>(METRIC_PREFIX + "node.max", stats.max));
+        }
+        return list;
+    }
+
+    private void updateNodeInfo(NodeRegistrationImpl nr, DockerServiceInfo dsi) {
         String clusterName = nr.getCluster();
         final NodesGroup ng = clusterName == null? null : discoveryStorage.getCluster(clusterName);
         log.info("Update node '{}' of '{}' cluster", nr.getName(), ng == null? null : ng.getName());
-        final DockerServiceInfo dsi = loadDockerInfo(nr);
         nr.updateNodeInfo(b -> {
             NodeMetrics.Builder nmb = NodeMetrics.builder().from(b.getHealth());
             boolean online = dsi != null;
@@ -138,23 +190,187 @@ class NodeInfoUpdater extends AbstractAutostartup {
         nr.getNodeInfo();
     }
 
-    private DockerServiceInfo loadDockerInfo(NodeRegistrationImpl nr) {
-        DockerServiceInfo tmp = null;
-        try {
+    private void logLoadError(NodeRegistrationImpl nr, Throwable e) {
+        if(e instanceof CancellationException) {
+            log.error("Fail to load node '{}' info due to timeout.", nr.getName());
+        } else if(Throwables.has(e, SocketException.class)) {
+            // suppress stack traces when exception is expected
+            log.error("Fail to load node '{}' info due to error: {}", nr.getName(), e.toString());
+        } else {
+            log.error("Fail to load node '{}' info.", nr.getName(), e);
+        }
+    }
+
+    /**
+     * Statistic of one update, durations in milliseconds.
+     */
+    static final class SweepStats {
+        final int nodes;
+        final int timeouts;
+        final int skipped;
+        final long duration;
+        final long p50;
+        final long p95;
+        final long p99;
+        final long max;
+
+        SweepStats(int nodes, int timeouts, int skipped, long duration, long[] latencies) {
+            this.nodes = nodes;
+            this.timeouts = timeouts;
+            this.skipped = skipped;
+            this.duration = duration;
+            Arrays.sort(latencies);
+            this.p50 = percentile(latencies, 50);
+            this.p95 = percentile(latencies, 95);
+            this.p99 = percentile(latencies, 99);
+            this.max = latencies.length == 0 ? 0 : latencies[latencies.length - 1];
+        }
+
+        private static long percentile(long[] sorted, int p) {
+            if(sorted.length == 0) {
+                return 0;
+            }
+            int i = (int) Math.ceil(sorted.length * p / 100d) - 1;
+            return sorted[Math.max(0, i)];
+        }
+
+        @Override
+        public String toString() {
+            return "nodes=" + nodes + ", timeouts=" + timeouts + ", skipped=" + skipped + ", duration=" + duration +
+              "ms, p50=" + p50 + "ms, p95=" + p95 + "ms, max=" + max + "ms";
+        }
+    }
+
+    /**
+     * Update of nodes, its methods are invoked in scheduled executor, except of handling of rejected tasks,
+     * therefore counters are guarded by this.
+     */
+    private final class Sweep {
+        private final Deque<NodeRegistrationImpl> queue;
+        private final int nodes;
+        private final int concurrency;
+        private final long nodeTimeout;
+        private final long start;
+        private final long deadline;
+        private final long[] latencies;
+        private int finished;
+        private int running;
+        private int timeouts;
+        private int skipped;
+        private boolean ended;
+
+        Sweep(List<NodeRegistrationImpl> nodes, NodeStorageConfig config) {
+            this.queue = new ArrayDeque<>(nodes);
+            this.nodes = nodes.size();
+            this.concurrency = Math.max(1, config.getUpdateConcurrency());
+            this.nodeTimeout = TimeUnit.SECONDS.toMillis(config.getUpdateNodeTimeoutSeconds());
+            this.start = System.currentTimeMillis();
+            this.deadline = start + TimeUnit.SECONDS.toMillis(config.getUpdateDeadlineSeconds());
+            this.latencies = new long[nodes.size()];
+        }
+
+        synchronized void next() {
+            while(running < concurrency && !queue.isEmpty()) {
+                long now = System.currentTimeMillis();
+                if(now >= deadline) {
+                    skipped += queue.size();
+                    log.warn("Deadline of update is reached, skip {} nodes", queue.size());
+                    queue.clear();
+                    break;
+                }
+                NodeRegistrationImpl nr = queue.poll();
+                running++;
+                load(nr, Math.min(nodeTimeout, deadline - now));
+            }
+            if(running == 0 && queue.isEmpty()) {
+                end();
+            }
+        }
+
+        private void load(NodeRegistrationImpl nr, long timeout) {
+            long begin = System.currentTimeMillis();
             DockerService docker = nr.getDocker();
-            if(docker != null) {
-                tmp = docker.getInfo();
-            } else {
+            if(docker == null) {
                 log.error("Fail to load node '{}' info due to docker is null (address is '{}').", nr.getName(), nr.getAddress());
+                onLoad(nr, null, begin);
+                return;
+            }
+            ListenableFuture<DockerServiceInfo> future;
+            try {
+                future = docker.getInfoAsync(scheduledExecutor);
+            } catch (Exception e) {
+                logLoadError(nr, e);
+                onLoad(nr, null, begin);
+                return;
+            }
+            ScheduledFuture<?> timer = scheduledExecutor.schedule(() -> {
+                if(future.cancel(true)) {
+                    timeouts++;
+                }
+            }, timeout, TimeUnit.MILLISECONDS);
+            // callbacks may be invoked in IO threads, so we move processing into our executor
+            future.addCallback(dsi -> {
+                timer.cancel(false);
+                execute(nr, dsi, begin);
+            }, e -> {
+                timer.cancel(false);
+                logLoadError(nr, e);
+                execute(nr, null, begin);
+            });
+        }
+
+        private void execute(NodeRegistrationImpl nr, DockerServiceInfo dsi, long begin) {
+            try {
+                scheduledExecutor.execute(() -> onLoad(nr, dsi, begin));
+            } catch (RejectedExecutionException e) {
+                log.warn("Can not process info of node '{}', due to: {}", nr.getName(), e.toString());
+                onRejected(begin);
+            }
+        }
+
+        private synchronized void finish(long begin) {
+            latencies[finished++] = System.currentTimeMillis() - begin;
+            running--;
+        }
+
+        /**
+         * Executor does not accept tasks, so we can not continue update, but must finish it, otherwise
+         * all next updates will be skipped.
+         */
+        private synchronized void onRejected(long begin) {
+            finish(begin);
+            skipped += queue.size() + 1;
+            queue.clear();
+            if(running == 0) {
+                end();
+            }
+        }
+
+        private void onLoad(NodeRegistrationImpl nr, DockerServiceInfo dsi, long begin) {
+            finish(begin);
+            try(TempAuth ta = TempAuth.asSystem()) {
+                try {
+                    updateNodeInfo(nr, dsi);
+                } catch (Exception e) {
+                    log.error("Fail to update node '{}'.", nr.getName(), e);
+                }
+                next();
+            }
+        }
+
+        private synchronized void end() {
+            if(ended) {
+                return;
             }
-        } catch (Exception e) {
-            if(Throwables.has(e, SocketException.class)) {
-                // suppress stack traces when exception is expected
-                log.error("Fail to load node '{}' info due to error: {}", nr.getName(), e.toString());
-            } else {
-                log.error("Fail to load node '{}' info.", nr.getName(), e);
+            ended = true;
+            SweepStats stats = new SweepStats(nodes, timeouts, skipped, System.currentTimeMillis() - start,
+              Arrays.copyOf(latencies, finished));
+            lastStats = stats;
+            sweeps++;
+            if(sweep == this) {
+                sweep = null;
             }
+            log.info("End update list of nodes: {}", stats);
         }
-        return tmp;
     }
 }
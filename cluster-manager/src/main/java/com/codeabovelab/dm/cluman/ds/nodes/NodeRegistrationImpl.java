@@ -17,30 +17,21 @@
 package com.codeabovelab.dm.cluman.ds.nodes;
 
 import com.codeabovelab.dm.cluman.cluster.docker.management.DockerService;
-import com.codeabovelab.dm.cluman.cluster.docker.management.argument.GetEventsArg;
 import com.codeabovelab.dm.cluman.cluster.docker.model.Actor;
 import com.codeabovelab.dm.cluman.cluster.docker.model.DockerEvent;
 import com.codeabovelab.dm.cluman.cluster.docker.model.EventType;
-import com.codeabovelab.dm.cluman.ds.swarm.DockerEventsConfig;
 import com.codeabovelab.dm.cluman.model.*;
 import com.codeabovelab.dm.cluman.persistent.PersistentBusFactory;
 import com.codeabovelab.dm.cluman.security.AccessContextFactory;
 import com.codeabovelab.dm.cluman.security.SecuredType;
-import com.codeabovelab.dm.cluman.security.TempAuth;
 import com.codeabovelab.dm.common.mb.*;
 import com.codeabovelab.dm.common.security.Action;
-import com.codeabovelab.dm.common.utils.Throwables;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.acls.model.ObjectIdentity;
 import org.springframework.util.Assert;
 
 import java.util.*;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
@@ -59,8 +50,7 @@ class NodeRegistrationImpl implements NodeRegistration, AutoCloseable {
     private final ObjectIdentity oid;
     private volatile DockerService docker;
     private final NodeStorage nodeStorage;
-    private final ScheduledExecutorService logFetcher;
-    private volatile ScheduledFuture<?> logFuture;
+    private volatile AutoCloseable eventStream;
 
     NodeRegistrationImpl(NodeStorage nodeStorage, PersistentBusFactory pbf, NodeInfo nodeInfo) {
         String name = nodeInfo.getName();
@@ -73,11 +63,6 @@ class NodeRegistrationImpl implements NodeRegistration, AutoCloseable {
         synchronized (lock) {
             this.builder = NodeInfoImpl.builder(nodeInfo);
         }
-        this.logFetcher = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
-          .setDaemon(true)
-          .setNameFormat("node-"+name +"-log-fetcher-%d")
-          .setUncaughtExceptionHandler(Throwables.uncaughtHandler(log, "Uncaught exception in '" + name + "' node log fetcher."))
-          .build());
     }
 
     void init() {
@@ -281,31 +266,8 @@ class NodeRegistrationImpl implements NodeRegistration, AutoCloseable {
     }
 
     private void subscribe() {
-        DockerEventsConfig cfg = nodeStorage.getDockerEventConfig();
-        final int periodInSeconds = cfg.getPeriodInSeconds();
-        log.info("Register log fetcher from {} node, repeat every {} seconds", name, periodInSeconds);
-        Assert.isNull(this.logFuture, "Future of docker logging is not null");
-        this.logFuture = logFetcher.scheduleAtFixedRate(() -> {
-            // we must handle errors here, because its may stop of task scheduling
-            // for example - temporary disconnect of node will breaks logs fetching due to system restart
-              try {
-                  Long time = System.currentTimeMillis();
-                  Long afterTime = time + periodInSeconds * 1000L;
-                  GetEventsArg getEventsArg = GetEventsArg.builder()
-                    .since(time)
-                    .until(afterTime)
-                    .watcher(this::proxyDockerEvent)
-                    .build();
-                  log.debug("getting events args {}", getEventsArg);
-                  try (TempAuth ta = TempAuth.asSystem()) {
-                      docker.subscribeToEvents(getEventsArg);
-                  }
-              } catch (Exception e) {
-                  log.error("Can not fetch logs from {}, try again after {} seconds, error: {}", name, periodInSeconds, e.toString());
-              }
-          },
-          cfg.getInitialDelayInSeconds(),
-          periodInSeconds, TimeUnit.SECONDS);
+        Assert.isNull(this.eventStream, "Stream of docker events is not null");
+        this.eventStream = nodeStorage.getEventStreams().open(name, docker, this::proxyDockerEvent);
     }
 
     private void proxyDockerEvent(DockerEvent e) {
@@ -398,10 +360,14 @@ class NodeRegistrationImpl implements NodeRegistration, AutoCloseable {
 
 
     private void unsubscribe() {
-        ScheduledFuture<?> future = this.logFuture;
-        this.logFuture = null;
-        if(future != null) {
-            future.cancel(true);
+        AutoCloseable stream = this.eventStream;
+        this.eventStream = null;
+        if(stream != null) {
+            try {
+                stream.close();
+            } catch (Exception e) {
+                log.error("Can not close stream of docker events from {}", name, e);
+            }
         }
     }
 
@@ -414,6 +380,5 @@ class NodeRegistrationImpl implements NodeRegistration, AutoCloseable {
     @Override
     public void close() throws Exception {
         unsubscribe();
-        this.logFetcher.shutdownNow();
     }
 }
@@ -20,7 +20,6 @@ import com.codeabovelab.dm.cluman.cluster.docker.ClusterConfig;
 import com.codeabovelab.dm.cluman.cluster.docker.ClusterConfigImpl;
 import com.codeabovelab.dm.cluman.cluster.docker.management.DockerService;
 import com.codeabovelab.dm.cluman.ds.DockerServiceFactory;
-import com.codeabovelab.dm.cluman.ds.swarm.DockerEventsConfig;
 import com.codeabovelab.dm.cluman.model.*;
 import com.codeabovelab.dm.cluman.persistent.PersistentBusFactory;
 import com.codeabovelab.dm.cluman.reconfig.ReConfigObject;
@@ -47,6 +46,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.util.Assert;
@@ -64,7 +65,9 @@ import java.util.function.Predicate;
  */
 @ReConfigurable
 @Component
-public class NodeStorage implements NodeInfoProvider, NodeRegistry {
+public class NodeStorage implements NodeInfoProvider, NodeRegistry, PublicMetrics {
+
+    private static final String METRIC_PREFIX = "dm.nodes.kv.";
 
     private final Logger log = LoggerFactory.getLogger(getClass());
     private final KvMap<NodeRegistrationImpl> nodes;
@@ -72,7 +75,7 @@ public class NodeStorage implements NodeInfoProvider, NodeRegistry {
     private final MessageBus<DockerLogEvent> dockerLogBus;
     private final PersistentBusFactory persistentBusFactory;
     private final ExecutorService executorService;
-    private final DockerEventsConfig dockerEventConfig;
+    private final NodeEventStreams eventStreams;
     private final NodeStorageConfig config;
     private DockerServiceFactory dockerFactory;
 
@@ -81,12 +84,12 @@ public class NodeStorage implements NodeInfoProvider, NodeRegistry {
                        KvMapperFactory kvmf,
                        @Qualifier(NodeEvent.BUS) MessageBus<NodeEvent> nodeEventBus,
                        @Qualifier(DockerLogEvent.BUS) MessageBus<DockerLogEvent> dockerLogBus,
-                       DockerEventsConfig dockerEventConfig,
+                       NodeEventStreams eventStreams,
                        PersistentBusFactory persistentBusFactory) {
         this.config = config;
         this.nodeEventBus = nodeEventBus;
         this.persistentBusFactory = persistentBusFactory;
-        this.dockerEventConfig = dockerEventConfig;
+        this.eventStreams = eventStreams;
         this.dockerLogBus = dockerLogBus;
         KeyValueStorage storage = kvmf.getStorage();
         String nodesPrefix = storage.getPrefix() + "/nodes/";
@@ -464,11 +467,19 @@ public class NodeStorage implements NodeInfoProvider, NodeRegistry {
         });
     }
 
-    DockerEventsConfig getDockerEventConfig() {
-        return dockerEventConfig;
+    NodeEventStreams getEventStreams() {
+        return eventStreams;
     }
 
     NodeStorageConfig getStorageConfig() {
         return config;
     }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        List<Metric<?>> list = new ArrayList<>();
+        list.add(new Metric<>(METRIC_PREFIX + "skippedWrites", nodes.getSkippedWrites()));
+        list.add(new Metric<>(METRIC_PREFIX + "suppressedReloads", nodes.getSuppressedReloads()));
+        return list;
+    }
 }
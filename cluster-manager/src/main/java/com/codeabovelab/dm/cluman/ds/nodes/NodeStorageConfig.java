@@ -41,4 +41,16 @@ public class NodeStorageConfig {
      * Time between nodes update
      */
     private int updateSeconds = 60;
+    /**
+     * Max count of nodes which are updated at the same time.
+     */
+    private int updateConcurrency = 16;
+    /**
+     * Timeout of update of single node in seconds, node which is not respond in this time is interpreted as offline.
+     */
+    private int updateNodeTimeoutSeconds = 10;
+    /**
+     * Max duration of whole update in seconds. Nodes which are not updated until it are skipped to next update.
+     */
+    private int updateDeadlineSeconds = 50;
 }
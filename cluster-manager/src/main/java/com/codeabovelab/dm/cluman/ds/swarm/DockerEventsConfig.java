@@ -25,8 +25,16 @@ import org.springframework.stereotype.Component;
 @ConfigurationProperties("dm.docker.events.configuration")
 public class DockerEventsConfig {
 
+    /**
+     * Count of threads which is shared by event streams of all nodes.
+     */
     private int countOfThreads = 2;
     private int periodInSeconds = 90;
     private int initialDelayInSeconds = 10;
+    /**
+     * Initial delay before reconnect of broken stream, it doubled on each failed attempt.
+     */
+    private int reconnectDelayInSeconds = 1;
+    private int maxReconnectDelayInSeconds = 120;
 
 }
@@ -28,8 +28,10 @@ import com.codeabovelab.dm.cluman.model.ImageDescriptor;
 import com.codeabovelab.dm.common.security.Action;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.util.Assert;
+import org.springframework.util.concurrent.ListenableFuture;
 
 import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -153,6 +155,12 @@ public class DockerServiceSecurityWrapper implements DockerService {
         return service.getInfo();
     }
 
+    @Override
+    public ListenableFuture<DockerServiceInfo> getInfoAsync(Executor executor) {
+        checkServiceAccess(Action.READ);
+        return service.getInfoAsync(executor);
+    }
+
     @Override
     public ServiceCallResult startContainer(String id) {
         checkContainerAccess(id, Action.EXECUTE);
@@ -189,6 +197,12 @@ public class DockerServiceSecurityWrapper implements DockerService {
         return service.subscribeToEvents(arg);
     }
 
+    @Override
+    public ListenableFuture<ServiceCallResult> subscribeToEventsAsync(GetEventsArg arg, Executor executor) {
+        checkServiceAccess(Action.READ);
+        return service.subscribeToEventsAsync(arg, executor);
+    }
+
     @Override
     public ServiceCallResult restartContainer(StopContainerArg arg) {
         checkContainerAccess(arg.getId(), Action.EXECUTE);
@@ -323,15 +323,9 @@ public class ContainerApi {
                     .stderr(stderr)
                     .timestamps(timestamps)
                     .since(since)
-                    .watcher(processEvent -> {
-                        // we use '\n' as delimiter for log formatter in js
-                        try {
-                            writer.println(processEvent.getMessage());
-                            writer.flush();
-                        } catch (IOException e) {
-                            log.error("", e);
-                        }
-                    }).build();
+                    // docker ends each line by '\n', we use it as delimiter for log formatter in js
+                    .output(writer)
+                    .build();
             ServiceCallResult res = service.getContainerLog(arg);
             objectWriter.writeValue(writer, res);
         }
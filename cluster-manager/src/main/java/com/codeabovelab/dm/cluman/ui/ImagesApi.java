@@ -49,6 +49,8 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
@@ -64,6 +66,7 @@ public class ImagesApi {
     private final DiscoveryStorage discoveryStorage;
     private final RegistryRepository registryRepository;
     private final FilterFactory filterFactory;
+    private final ImagesLoader imagesLoader;
 
     @RequestMapping(value = "/clusters/{cluster}/list", method = RequestMethod.GET)
     public List<ImageItem> getImages(@PathVariable("cluster") String cluster) {
@@ -258,7 +261,8 @@ public class ImagesApi {
         RegistryService registry = registryRepository.getRegistryByImageName(imageName);
         Tags tgs = registry.getTags(name);
         List<String> tags = filter(tgs, name, registry, imageFilter);
-        return tags.stream().map(t -> {
+        // tags which is not loaded before deadline are absent in result
+        return imagesLoader.map(tags, t -> {
             try {
                 ImageDescriptor image = registry.getImage(name, t);
                 return new UiTagCatalog(registry.getConfig().getName(), name, null, t, image != null ? image.getId() : null,
@@ -269,7 +273,7 @@ public class ImagesApi {
                 return null;
             }
 
-        }).filter(Objects::nonNull).collect(Collectors.toList());
+        });
 
     }
 
@@ -280,40 +284,48 @@ public class ImagesApi {
     public List<UiImageCatalog> listImageCatalogs(@RequestParam(value = "filter", required = false) String filterStr,
                                                   @RequestParam(value = "cluster", required = false) String cluster) {
         final Filter filter = calculateImageFilter(filterStr, cluster);
-        Map<String, UiImageCatalog> catalogs = getDownloadedImages(filter);
+        // images are loaded in parallel, but merged in caller thread in order of loaders:
+        // downloaded images at first, then images from registries
+        List<Supplier<Consumer<Map<String, UiImageCatalog>>>> loaders = new ArrayList<>();
+        getDownloadedImages(filter, loaders);
         Collection<String> registries = registryRepository.getAvailableRegistries();
-        ImageObject io = new ImageObject();
-
         for (String registry : registries) {
             RegistryService registryService = registryRepository.getByName(registry);
-            if (!registryService.getConfig().isDisabled()) {
-                String registryName = registryService.getConfig().getName();
-                ImageCatalog ic = registryService.getCatalog();
-                if (ic != null) {
-
-                    for (String name : ic.getImages()) {
-                        io.setName(name);
-                        io.setRegistry(registryName);
-                        String fullName = StringUtils.isEmpty(registryName) ? name : registryName + "/" + name;
-                        io.setFullName(fullName);
-                        if (!filter.test(io)) {
-                            continue;
-                        }
-                        //we simply create uic if it absent
-                        UiImageCatalog uic = catalogs.putIfAbsent(fullName, new UiImageCatalog(fullName, registryService.getConfig().getName()));
-                    }
-                }
+            if (registryService == null || registryService.getConfig().isDisabled()) {
+                continue;
             }
+            loaders.add(() -> {
+                ImageCatalog ic = registryService.getCatalog();
+                return ic == null ? null : (catalogs) -> processRegistry(filter, catalogs, registryService, ic);
+            });
         }
+        Map<String, UiImageCatalog> catalogs = new TreeMap<>();
+        imagesLoader.map(loaders, Supplier::get).forEach(merger -> merger.accept(catalogs));
         List<UiImageCatalog> list = new ArrayList<>(catalogs.values());
         Collections.sort(list);
         return list;
     }
 
-    private Map<String, UiImageCatalog> getDownloadedImages(Filter filter) {
+    private void processRegistry(Filter filter, Map<String, UiImageCatalog> catalogs,
+                                 RegistryService registryService, ImageCatalog ic) {
+        ImageObject io = new ImageObject();
+        String registryName = registryService.getConfig().getName();
+        for (String name : ic.getImages()) {
+            io.setName(name);
+            io.setRegistry(registryName);
+            String fullName = StringUtils.isEmpty(registryName) ? name : registryName + "/" + name;
+            io.setFullName(fullName);
+            if (!filter.test(io)) {
+                continue;
+            }
+            //we simply create uic if it absent
+            catalogs.putIfAbsent(fullName, new UiImageCatalog(fullName, registryName));
+        }
+    }
+
+    private void getDownloadedImages(Filter filter, List<Supplier<Consumer<Map<String, UiImageCatalog>>>> loaders) {
         //we can use result of this it for evaluate used space and deleting images, so need to se all images
         List<NodesGroup> nodesGroups = discoveryStorage.getClusters();
-        Map<String, UiImageCatalog> catalogs = new TreeMap<>();
         for (NodesGroup nodesGroup : nodesGroups) {
             // we gather images from real clusters and orphans nodes
             String groupName = nodesGroup.getName();
@@ -321,20 +333,26 @@ public class ImagesApi {
                     !DiscoveryStorage.GROUP_ID_ORPHANS.equals(groupName)) {
                 continue;
             }
-
-            try {
-                processGroup(filter, catalogs, nodesGroup);
-            } catch (Exception e) {
-                log.error("Error while process images of \"{}\"", groupName, e);
-            }
+            loaders.add(() -> {
+                try {
+                    List<ImageItem> images = nodesGroup.getDocker().getImages(GetImagesArg.ALL);
+                    return (catalogs) -> {
+                        try {
+                            processGroup(filter, catalogs, nodesGroup, images);
+                        } catch (Exception e) {
+                            log.error("Error while process images of \"{}\"", groupName, e);
+                        }
+                    };
+                } catch (Exception e) {
+                    log.error("Error while process images of \"{}\"", groupName, e);
+                    return null;
+                }
+            });
         }
-        return catalogs;
     }
 
-    private void processGroup(Filter filter, Map<String, UiImageCatalog> catalogs, NodesGroup nodesGroup) {
+    private void processGroup(Filter filter, Map<String, UiImageCatalog> catalogs, NodesGroup nodesGroup, List<ImageItem> images) {
         ImageObject io = new ImageObject();
-        GetImagesArg getImagesArg = GetImagesArg.ALL;
-        List<ImageItem> images = nodesGroup.getDocker().getImages(getImagesArg);
         final String clusterName = nodesGroup.getName();
         io.setCluster(clusterName);
         //note that in some cases not all nodes of cluster have same images set, but we ignore it at this time
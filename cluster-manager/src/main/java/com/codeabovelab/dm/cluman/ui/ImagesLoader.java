@@ -0,0 +1,59 @@
+/*
+ * Copyright 2016 Code Above Lab LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.codeabovelab.dm.cluman.ui;
+
+import com.codeabovelab.dm.common.utils.FanOut;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Load image details (from registries and clusters) in parallel, with deadline for whole request.
+ * Items which is not loaded before deadline are skipped, so result may be partial.
+ */
+@Component
+public class ImagesLoader {
+
+    private final FanOut fanOut;
+
+    @Autowired
+    public ImagesLoader(ImagesLoaderConfig config) {
+        this.fanOut = new FanOut(getClass().getSimpleName(), config);
+    }
+
+    @PreDestroy
+    private void preDestroy() {
+        this.fanOut.close();
+    }
+
+    /**
+     * Apply function to each item in parallel.
+     * @param items unique items
+     * @param func function which is invoked in other thread, with security context of caller
+     * @param <T> type of item
+     * @param <R> type of result
+     * @return non null results in order of items, results of failed and timed out items are absent
+     */
+    public <T, R> List<R> map(Collection<T> items, Function<T, R> func) {
+        return new ArrayList<>(fanOut.call(items, func).getResults().values());
+    }
+}
@@ -30,6 +30,8 @@ import com.codeabovelab.dm.cluman.events.EventsUtils;
 import com.codeabovelab.dm.cluman.model.*;
 import com.codeabovelab.dm.cluman.security.DockerServiceSecurityWrapper;
 import com.codeabovelab.dm.cluman.ui.model.UIStatistics;
+import com.codeabovelab.dm.common.mb.MessageSubscriptionsWrapper;
+import com.codeabovelab.dm.common.mb.Subscription;
 import com.codeabovelab.dm.common.mb.Subscriptions;
 import com.codeabovelab.dm.common.security.Action;
 import com.codeabovelab.dm.cluman.security.TempAuth;
@@ -47,6 +49,7 @@ import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 /**
@@ -132,10 +135,17 @@ class EventSources {
             esuc.putAll(systemSubs);
             List<NodesGroup> clusters = clusterStorage.getClusters();
             for(NodesGroup ng: clusters) {
-                if(!ClusterUtils.isDockerBased(ng) || !ng.getState().isOk()) {
+                // virtual groups give merged events of its nodes
+                if(!ng.getState().isOk()) {
                     continue;
                 }
                 String id = "cluster:" + ng.getName() + ":docker";
+                Subscriptions<DockerEvent> groupEvents = ClusterUtils.getDockerEventSubscriptions(ng);
+                if(groupEvents != null) {
+                    // group already has merged stream, so we do not need thread which will read it
+                    esuc.update(id, (i) -> makeGroupDocker(ng.getDocker(), groupEvents));
+                    continue;
+                }
                 //swarm produce events only after 1.2.4 version
                 esuc.update(id, (i) -> makeDocker(ng.getDocker(), id));
             }
@@ -252,9 +262,7 @@ class EventSources {
         dms.setExecutorService(this.executor);
         dms.setDocker(service);
         dms.argument((c) -> {
-            if (service instanceof DockerServiceSecurityWrapper) {
-                ((DockerServiceSecurityWrapper) service).checkServiceAccess(Action.READ);
-            }
+            checkServiceAccess(service);
             return GetEventsArg.builder().watcher(c).build();
         });
         dms.method(service::subscribeToEvents);
@@ -262,6 +270,28 @@ class EventSources {
         return builder.build();
     }
 
+    private Subscriptions<?> makeGroupDocker(DockerService service, Subscriptions<DockerEvent> events) {
+        return new MessageSubscriptionsWrapper<DockerEvent>(events) {
+            @Override
+            public void subscribe(Consumer<DockerEvent> listener) {
+                checkServiceAccess(service);
+                super.subscribe(listener);
+            }
+
+            @Override
+            public Subscription openSubscription(Consumer<DockerEvent> listener) {
+                checkServiceAccess(service);
+                return super.openSubscription(listener);
+            }
+        };
+    }
+
+    private static void checkServiceAccess(DockerService service) {
+        if (service instanceof DockerServiceSecurityWrapper) {
+            ((DockerServiceSecurityWrapper) service).checkServiceAccess(Action.READ);
+        }
+    }
+
     public Collection<String> list() {
         load();
         ArrayList<String> list = new ArrayList<>(getSubs().keySet());
@@ -0,0 +1,94 @@
+package com.codeabovelab.dm.cluman.cluster.docker.management;
+
+import com.codeabovelab.dm.cluman.cluster.docker.model.DockerEvent;
+import com.codeabovelab.dm.cluman.cluster.docker.model.Statistics;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding of recorded docker '/events' and '/stats' streams with {@link JsonStreamProcessor} and with
+ * previous approach, which read each item into tree and then convert it. Score is items per second,
+ * and 'gc.alloc.rate.norm' of gc profiler is bytes allocated per item. <p/>
+ * It is not a test, run it manually through {@link #main(String[])}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@OperationsPerInvocation(JsonStreamBenchmark.ITEMS)
+public class JsonStreamBenchmark {
+
+    static final int ITEMS = 1000;
+
+    @Param({"events", "stats"})
+    private String stream;
+
+    private byte[] data;
+    private Class<?> type;
+    private JsonStreamProcessor<?> processor;
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Setup
+    public void setup() throws Exception {
+        type = "events".equals(stream) ? DockerEvent.class : Statistics.class;
+        processor = new JsonStreamProcessor<>(type);
+        String[] lines;
+        try (InputStream is = getClass().getResourceAsStream("/docker-streams/" + stream + ".json")) {
+            lines = StreamUtils.copyToString(is, StandardCharsets.UTF_8).split("\n");
+        }
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        for (int i = 0; i < ITEMS; ++i) {
+            baos.write(lines[i % lines.length].getBytes(StandardCharsets.UTF_8));
+            baos.write('\n');
+        }
+        data = baos.toByteArray();
+    }
+
+    @Benchmark
+    public void direct(Blackhole blackhole) {
+        @SuppressWarnings("unchecked")
+        JsonStreamProcessor<Object> processor = (JsonStreamProcessor<Object>) this.processor;
+        processor.processResponseStream(new StreamContext<>(new ByteArrayInputStream(data), blackhole::consume));
+    }
+
+    @Benchmark
+    public void tree(Blackhole blackhole) throws Exception {
+        try (JsonParser jp = jsonFactory.createParser(new ByteArrayInputStream(data))) {
+            JsonToken nextToken = jp.nextToken();
+            while (nextToken != null) {
+                ObjectNode objectNode = objectMapper.readTree(jp);
+                if (!objectNode.isEmpty(null)) {
+                    blackhole.consume(objectMapper.treeToValue(objectNode, type));
+                }
+                nextToken = jp.nextToken();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options opt = new OptionsBuilder()
+          .include(JsonStreamBenchmark.class.getSimpleName())
+          .addProfiler(GCProfiler.class)
+          .build();
+        new Runner(opt).run();
+    }
+}
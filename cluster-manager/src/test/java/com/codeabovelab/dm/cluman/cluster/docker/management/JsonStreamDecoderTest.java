@@ -0,0 +1,80 @@
+package com.codeabovelab.dm.cluman.cluster.docker.management;
+
+import com.codeabovelab.dm.cluman.cluster.docker.model.DockerEvent;
+import com.codeabovelab.dm.platform.http.async.ChunkedInputStream;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class JsonStreamDecoderTest {
+
+    private static class BufferAdapter implements ChunkedInputStream.Adapter<ByteBuffer> {
+
+        @Override
+        public void onAdd(ByteBuffer chunk) {
+        }
+
+        @Override
+        public void onRemove(ByteBuffer chunk) {
+        }
+
+        @Override
+        public int readByte(ByteBuffer chunk) {
+            return chunk.hasRemaining() ? chunk.get() : ChunkedInputStream.EOF;
+        }
+
+        @Override
+        public int readBytes(ByteBuffer chunk, byte[] arr, int off, int len) {
+            if(!chunk.hasRemaining()) {
+                return ChunkedInputStream.EOF;
+            }
+            int read = Math.min(len, chunk.remaining());
+            chunk.get(arr, off, read);
+            return read;
+        }
+    }
+
+    @Test
+    public void test() throws Exception {
+        ObjectMapper om = new ObjectMapper();
+        om.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            ChunkedInputStream<ByteBuffer> stream = new ChunkedInputStream<>(new BufferAdapter());
+            List<DockerEvent> events = new CopyOnWriteArrayList<>();
+            CompletableFuture<Throwable> end = new CompletableFuture<>();
+            JsonStreamDecoder<DockerEvent> decoder = new JsonStreamDecoder<>(stream, om, DockerEvent.class,
+              events::add, executor, end::complete);
+            decoder.start();
+            // object split between chunks, and empty object
+            add(stream, "{\"status\":\"start\",\"id\":\"one\"}\n{\"status\":\"st");
+            add(stream, "op\",\"id\":\"two\"}\n{}\n");
+            add(stream, "{\"status\":\"die\",\"id\":\"three\"}");
+            assertFalse(end.isDone());
+            stream.end();
+            assertNull(end.get(10, TimeUnit.SECONDS));
+            assertEquals(3, events.size());
+            assertEquals("one", events.get(0).getId());
+            assertEquals("stop", events.get(1).getStatus());
+            assertEquals("three", events.get(2).getId());
+            assertTrue(stream.isClosed());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void add(ChunkedInputStream<ByteBuffer> stream, String str) {
+        stream.add(ByteBuffer.wrap(str.getBytes(StandardCharsets.UTF_8)));
+    }
+}
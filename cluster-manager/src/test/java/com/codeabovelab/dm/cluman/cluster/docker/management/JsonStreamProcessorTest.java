@@ -0,0 +1,40 @@
+package com.codeabovelab.dm.cluman.cluster.docker.management;
+
+import com.codeabovelab.dm.cluman.cluster.docker.model.DockerEvent;
+import com.codeabovelab.dm.cluman.cluster.docker.model.EventType;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class JsonStreamProcessorTest {
+
+    @Test
+    public void test() throws Exception {
+        List<DockerEvent> events = new ArrayList<>();
+        JsonStreamProcessor<DockerEvent> processor = new JsonStreamProcessor<>(DockerEvent.class);
+        processor.processResponseStream(new StreamContext<>(getClass().getResourceAsStream("/docker-streams/events.json"), events::add));
+        // recorded stream contains one empty object
+        assertEquals(7, events.size());
+        DockerEvent first = events.get(0);
+        assertEquals("create", first.getStatus());
+        assertEquals(EventType.CONTAINER, first.getType());
+        assertEquals("web-1", first.getActor().getAttributes().get("name"));
+        assertEquals("die", events.get(6).getAction());
+    }
+
+    @Test
+    public void testBrokenItem() throws Exception {
+        List<DockerEvent> events = new ArrayList<>();
+        JsonStreamProcessor<DockerEvent> processor = new JsonStreamProcessor<>(DockerEvent.class);
+        String src = "{\"status\":\"start\",\"id\":\"one\"}\n{\"status\":\"stop\",\"time\":{\"a\":[1]}}\n{}\n{\"status\":\"die\",\"id\":\"two\"}";
+        processor.processResponseStream(new StreamContext<>(new ByteArrayInputStream(src.getBytes(StandardCharsets.UTF_8)), events::add));
+        assertEquals(2, events.size());
+        assertEquals("one", events.get(0).getId());
+        assertEquals("two", events.get(1).getId());
+    }
+}
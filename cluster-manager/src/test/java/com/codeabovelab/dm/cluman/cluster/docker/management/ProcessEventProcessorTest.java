@@ -0,0 +1,74 @@
+package com.codeabovelab.dm.cluman.cluster.docker.management;
+
+import com.codeabovelab.dm.cluman.cluster.docker.management.result.ProcessEvent;
+import com.codeabovelab.dm.cluman.cluster.docker.model.StreamType;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class ProcessEventProcessorTest {
+
+    @Test
+    public void testLines() throws Exception {
+        ByteArrayOutputStream src = new ByteArrayOutputStream();
+        frame(src, 1, "first line\nsecond ");
+        frame(src, 2, "error: жук\r\n");
+        frame(src, 1, "line\n");
+        frame(src, 1, "");
+        frame(src, 1, "  indented\n\nlast");
+        List<ProcessEvent> events = new ArrayList<>();
+        new ProcessEventProcessor().processResponseStream(new StreamContext<>(new ByteArrayInputStream(src.toByteArray()), events::add));
+        List<String> lines = events.stream().map(ProcessEvent::getMessage).collect(Collectors.toList());
+        assertEquals(Arrays.asList("first line", "error: жук", "second line", "  indented", "", "last"), lines);
+    }
+
+    @Test
+    public void testPartialLines() throws Exception {
+        List<String> lines = new ArrayList<>();
+        ProcessEventProcessor.LineDecoder decoder = new ProcessEventProcessor.LineDecoder(lines::add);
+        byte[] prompt = "password: ж".getBytes(StandardCharsets.UTF_8);
+        // last char is split between frames
+        decoder.decode(StreamType.STDOUT, prompt, prompt.length - 1);
+        decoder.flushPartial();
+        assertEquals(Collections.singletonList("password: "), lines);
+        decoder.decode(StreamType.STDOUT, new byte[]{prompt[prompt.length - 1], '\n'}, 2);
+        assertEquals(Arrays.asList("password: ", "ж"), lines);
+
+        lines.clear();
+        byte[] progress = new byte[ProcessEventProcessor.LineDecoder.MAX_PENDING / 4];
+        Arrays.fill(progress, (byte) '\r');
+        for (int i = 0; i < 4; ++i) {
+            decoder.decode(StreamType.STDERR, progress, progress.length);
+        }
+        // line without end must not be kept infinitely
+        assertEquals(1, lines.size());
+        decoder.flush();
+        assertEquals(1, lines.size());
+    }
+
+    @Test
+    public void testCopy() throws Exception {
+        ByteArrayOutputStream src = new ByteArrayOutputStream();
+        frame(src, 1, "one\n");
+        frame(src, 2, "two\n");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new ProcessEventProcessor().copyResponseStream(new StreamContext<>(new ByteArrayInputStream(src.toByteArray()), null), out);
+        assertEquals("one\ntwo\n", new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    private static void frame(ByteArrayOutputStream os, int type, String payload) throws Exception {
+        byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+        int len = bytes.length;
+        os.write(new byte[]{(byte) type, 0, 0, 0, (byte) (len >>> 24), (byte) (len >>> 16), (byte) (len >>> 8), (byte) len});
+        os.write(bytes);
+    }
+}
@@ -0,0 +1,66 @@
+package com.codeabovelab.dm.cluman.cluster.registry;
+
+import com.codeabovelab.dm.cluman.cluster.docker.model.ContainerConfig;
+import com.codeabovelab.dm.cluman.cluster.registry.data.ImageData;
+import com.codeabovelab.dm.cluman.model.ImageDescriptor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.io.Files;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+import static org.junit.Assert.*;
+
+public class ImageDescriptorCacheTest {
+
+    private static final String DIGEST = "sha256:0123456789abcdef";
+
+    @Test
+    public void test() throws Exception {
+        File dir = Files.createTempDir();
+        AtomicInteger loads = new AtomicInteger();
+        BiFunction<String, String, ImageData> loader = (name, digest) -> {
+            loads.incrementAndGet();
+            ImageData data = new ImageData();
+            data.setContainerConfig(ContainerConfig.builder().image(name).build());
+            return data;
+        };
+        ImageDescriptorCache.Config config = new ImageDescriptorCache.Config();
+        config.setDir(dir);
+        config.setObjectMapper(new ObjectMapper());
+        ImageDescriptorCache cache = new ImageDescriptorCache(config);
+        ImageDescriptor first = cache.get("one", DIGEST, loader);
+        // same digest under other name is the same content
+        assertSame(first, cache.get("two", DIGEST, loader));
+        assertEquals(1, loads.get());
+        assertEquals(DIGEST, first.getId());
+        assertEquals(1, cache.getStats().hitCount());
+        assertEquals(1, cache.getStats().missCount());
+
+        // new cache read persisted blob instead of loading
+        ImageDescriptor restored = new ImageDescriptorCache(config).get("one", DIGEST, loader);
+        assertEquals(1, loads.get());
+        assertEquals("one", restored.getContainerConfig().getImage());
+    }
+
+    @Test
+    public void testPrune() throws Exception {
+        File dir = Files.createTempDir();
+        ImageDescriptorCache.Config config = new ImageDescriptorCache.Config();
+        config.setDir(dir);
+        config.setObjectMapper(new ObjectMapper());
+        config.setMaxSize(2);
+        ImageDescriptorCache cache = new ImageDescriptorCache(config);
+        for(int i = 0; i < 5; ++i) {
+            cache.get("one", DIGEST + i, (name, digest) -> {
+                ImageData data = new ImageData();
+                data.setContainerConfig(ContainerConfig.builder().image(name).build());
+                return data;
+            });
+        }
+        // directory is bounded while cache works, not only at start
+        assertEquals(2, dir.listFiles().length);
+    }
+}
@@ -10,23 +10,37 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
 import org.springframework.web.client.RestTemplate;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
 import java.util.List;
 
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
 
 public class RegistryServiceTest {
 
     private RegistryServiceImpl service;
+    private MockRestServiceServer server;
 
     @Before
     public void setUp() throws Exception {
         PrivateRegistryConfig config = new PrivateRegistryConfig();
         config.setUrl("https://registry.local");
+        config.setName("registry.local");
+        RestTemplate restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).build();
         service = RegistryServiceImpl.builder()
-                .adapter(new PrivateRegistryAdapter(config, (a) -> new RestTemplate()))
+                .adapter(new PrivateRegistryAdapter(config, (a) -> restTemplate))
                 .searchConfig(new SearchIndex.Config())
                 .build();
     }
@@ -52,6 +66,34 @@ public class RegistryServiceTest {
         }
     }
 
+    @Test
+    public void testPaginatedCatalog() throws Exception {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.LINK, "</v2/_catalog?last=b&n=100>; rel=\"next\"");
+        server.expect(requestTo("https://registry.local/v2/_catalog?n=100"))
+          .andRespond(withSuccess("{\"repositories\":[\"a\",\"b\"]}", MediaType.APPLICATION_JSON).headers(headers));
+        server.expect(requestTo("https://registry.local/v2/_catalog?last=b&n=100"))
+          .andRespond(withSuccess("{\"repositories\":[\"c\"]}", MediaType.APPLICATION_JSON));
+        ImageCatalog catalog = service.getCatalog();
+        server.verify();
+        Assert.assertEquals(Arrays.asList("a", "b", "c"), catalog.getImages());
+    }
+
+    @Test
+    public void testConditionalManifest() throws Exception {
+        String manifest = "{\"schemaVersion\":2,\"config\":{\"digest\":\"sha256:1\"}}";
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag("\"sha256:m\"");
+        server.expect(requestTo("https://registry.local/v2/a/manifests/latest"))
+          .andRespond(withSuccess(manifest, MediaType.APPLICATION_JSON).headers(headers));
+        server.expect(requestTo("https://registry.local/v2/a/manifests/latest"))
+          .andExpect(header(HttpHeaders.IF_NONE_MATCH, "\"sha256:m\""))
+          .andRespond(withStatus(HttpStatus.NOT_MODIFIED));
+        Assert.assertEquals("sha256:1", service.getImageId("a", "latest"));
+        Assert.assertEquals("sha256:1", service.getImageId("a", "latest"));
+        server.verify();
+    }
+
     @Test
     public void testGetImage() throws IOException {
         ObjectMapper mapper = JacksonUtils.objectMapperBuilder();
@@ -0,0 +1,80 @@
+package com.codeabovelab.dm.cluman.cluster.registry;
+
+import com.codeabovelab.dm.cluman.cluster.registry.data.ImageCatalog;
+import com.codeabovelab.dm.cluman.cluster.registry.data.SearchResult;
+import com.codeabovelab.dm.cluman.cluster.registry.data.Tags;
+import com.codeabovelab.dm.cluman.cluster.registry.model.PrivateRegistryConfig;
+import com.codeabovelab.dm.cluman.model.ImageDescriptor;
+import com.codeabovelab.dm.cluman.model.ImageDescriptorImpl;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class SearchIndexTest {
+
+    @Test
+    public void test() throws Exception {
+        RegistryService service = mock(RegistryService.class);
+        PrivateRegistryConfig config = new PrivateRegistryConfig();
+        config.setName("reg");
+        when(service.getConfig()).thenReturn(config);
+        when(service.getCatalog()).thenReturn(new ImageCatalog(Arrays.asList("app/web", "app/db", "tools/web-proxy")));
+        for(String image: Arrays.asList("app/web", "app/db", "tools/web-proxy")) {
+            when(service.getTags(image)).thenReturn(new Tags(image, Arrays.asList("1", "latest")));
+            ImageDescriptor descriptor = ImageDescriptorImpl.builder()
+              .id(image)
+              .labels(Collections.singletonMap(SearchIndex.LABEL_DESCRIPTION, "Image of " + image.toUpperCase()))
+              .build();
+            when(service.getImage(image, "latest")).thenReturn(descriptor);
+        }
+        SearchIndex.Config sic = new SearchIndex.Config();
+        sic.setCacheMinutes(0);
+        SearchIndex index = new SearchIndex(service, sic);
+
+        SearchResult res = index.search("web", 0, 1);
+        assertEquals(2, res.getNumResults());
+        assertEquals(2, res.getNumPages());
+        assertEquals(Collections.singletonList("reg/app/web"), names(res));
+        assertEquals(Collections.singletonList("reg/tools/web-proxy"), names(index.search("web", 1, 1)));
+        // description and short query
+        assertEquals(Collections.singletonList("reg/app/db"), names(index.search("APP/DB", 0, 0)));
+        assertEquals(Collections.singletonList("reg/tools/web-proxy"), names(index.search("image of tools", 0, 0)));
+        assertEquals(3, index.search("b", 0, 0).getNumResults());
+        assertEquals(0, index.search("nothing", 0, 10).getNumResults());
+
+        // image with changed tags is reloaded only
+        when(service.getTags("app/db")).thenReturn(new Tags("app/db", Arrays.asList("1", "2", "latest")));
+        Thread.sleep(2L);
+        index.search("web", 0, 0);
+        verify(service, times(1)).getImage("app/web", "latest");
+        verify(service, times(2)).getImage("app/db", "latest");
+    }
+
+    @Test
+    public void testRejectedLoad() throws Exception {
+        RegistryService service = mock(RegistryService.class);
+        PrivateRegistryConfig config = new PrivateRegistryConfig();
+        config.setName("reg");
+        when(service.getConfig()).thenReturn(config);
+        when(service.getCatalog()).thenReturn(new ImageCatalog(Arrays.asList("app/web", "app/db")));
+        SearchIndex.Config sic = new SearchIndex.Config();
+        sic.setLoadParallelism(1);
+        sic.setLoadExecutor(task -> {
+            throw new RejectedExecutionException();
+        });
+        SearchIndex index = new SearchIndex(service, sic);
+        // rejected tasks are run in loading thread, so load must not hang
+        assertEquals(2, index.search("app", 0, 0).getNumResults());
+    }
+
+    private static List<String> names(SearchResult res) {
+        return res.getResults().stream().map(SearchResult.Result::getName).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,59 @@
+package com.codeabovelab.dm.cluman.ds.clusters;
+
+import com.codeabovelab.dm.cluman.cluster.docker.management.DockerService;
+import com.codeabovelab.dm.cluman.ds.nodes.NodeStorage;
+import com.codeabovelab.dm.cluman.model.Node;
+import com.codeabovelab.dm.common.utils.FanOut;
+import org.junit.Test;
+import org.springframework.security.access.AccessDeniedException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class NodesFanOutTest {
+
+    private final NodesFanOut fanOut;
+
+    public NodesFanOutTest() {
+        NodesFanOutConfig config = new NodesFanOutConfig();
+        config.setDeadlineSeconds(1);
+        fanOut = new NodesFanOut(config);
+    }
+
+    @Test
+    public void test() throws Exception {
+        NodeStorage nodeStorage = mock(NodeStorage.class);
+        List<Node> nodes = new ArrayList<>();
+        for(String name: Arrays.asList("fast", "slow", "denied", "offline")) {
+            Node node = mock(Node.class);
+            when(node.getName()).thenReturn(name);
+            nodes.add(node);
+            DockerService service = mock(DockerService.class);
+            when(service.getNode()).thenReturn(name);
+            when(service.isOnline()).thenReturn(!"offline".equals(name));
+            when(nodeStorage.getNodeService(name)).thenReturn(service);
+        }
+        long begin = System.currentTimeMillis();
+        FanOut.Result<String, String> res = fanOut.call(nodeStorage, nodes, service -> {
+            String node = service.getNode();
+            if("slow".equals(node)) {
+                try {
+                    Thread.sleep(10_000L);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            } else if("denied".equals(node)) {
+                throw new AccessDeniedException(node);
+            }
+            return node;
+        });
+        assertTrue(System.currentTimeMillis() - begin < 5_000L);
+        assertEquals(Collections.singletonMap("fast", "fast"), res.getResults());
+        assertEquals(Collections.singletonList("slow"), res.getTimedOut());
+    }
+}
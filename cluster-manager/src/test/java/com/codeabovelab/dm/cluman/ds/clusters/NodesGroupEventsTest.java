@@ -0,0 +1,67 @@
+package com.codeabovelab.dm.cluman.ds.clusters;
+
+import com.codeabovelab.dm.cluman.cluster.docker.management.argument.GetEventsArg;
+import com.codeabovelab.dm.cluman.cluster.docker.management.result.ResultCode;
+import com.codeabovelab.dm.cluman.cluster.docker.management.result.ServiceCallResult;
+import com.codeabovelab.dm.cluman.cluster.docker.model.DockerEvent;
+import com.codeabovelab.dm.cluman.cluster.docker.model.EventType;
+import com.codeabovelab.dm.cluman.model.ContainerBase;
+import com.codeabovelab.dm.cluman.model.DockerLogEvent;
+import com.codeabovelab.dm.common.mb.MessageBus;
+import com.codeabovelab.dm.common.mb.MessageBuses;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class NodesGroupEventsTest {
+
+    @Test
+    public void test() throws Exception {
+        MessageBus<DockerLogEvent> source = MessageBuses.create("test", DockerLogEvent.class);
+        try (NodesGroupEvents events = new NodesGroupEvents("test-group", source, "one"::equals)) {
+            source.accept(event("one", "c1"));
+            source.accept(event("two", "c2"));
+            source.accept(event("one", "c3"));
+            // new subscriber receive last events of group nodes
+            List<DockerEvent> replayed = new ArrayList<>();
+            events.getSubscriptions().subscribe(replayed::add);
+            assertEquals(2, replayed.size());
+            assertEquals("c3", replayed.get(1).getActor().getAttributes().get("name"));
+
+            List<DockerEvent> received = new CopyOnWriteArrayList<>();
+            GetEventsArg arg = GetEventsArg.builder().watcher(received::add).build();
+            CompletableFuture<ServiceCallResult> future = CompletableFuture.supplyAsync(() -> events.subscribe(arg));
+            while(received.isEmpty() && !future.isDone()) {
+                source.accept(event("one", "c4"));
+                Thread.sleep(10L);
+            }
+            arg.getInterrupter().set(true);
+            assertEquals(ResultCode.OK, future.get(5, TimeUnit.SECONDS).getCode());
+            DockerEvent de = received.get(0);
+            assertEquals("c4", de.getActor().getAttributes().get("name"));
+            assertEquals("one", de.getNode().getName());
+            assertEquals(EventType.CONTAINER, de.getType());
+            assertEquals("id-c4", de.getId());
+        }
+    }
+
+    private static DockerLogEvent event(String node, String container) {
+        ContainerBase.Builder cb = ContainerBase.builder();
+        cb.setId("id-" + container);
+        cb.setName(container);
+        cb.setNode(node);
+        return DockerLogEvent.builder()
+          .node(node)
+          .type(EventType.CONTAINER)
+          .container(cb.build())
+          .status("start")
+          .action("start")
+          .build();
+    }
+}
@@ -0,0 +1,75 @@
+package com.codeabovelab.dm.cluman.ds.container;
+
+import com.codeabovelab.dm.cluman.model.DockerContainer;
+import com.codeabovelab.dm.common.kv.InMemoryKeyValueStorage;
+import com.codeabovelab.dm.common.kv.KeyValueStorage;
+import com.codeabovelab.dm.common.kv.mapping.KvMapperFactory;
+import com.codeabovelab.dm.common.utils.ExecutorUtils;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.springframework.security.crypto.encrypt.TextEncryptor;
+
+import javax.validation.Validator;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+public class ContainerStorageImplTest {
+
+    @Test
+    public void testIndexesAfterRestart() throws Exception {
+        InMemoryKeyValueStorage storage = InMemoryKeyValueStorage.builder()
+          .eventsExecutor(ExecutorUtils.DIRECT)
+          .build();
+        ContainerStorageImpl first = create(storage);
+        ContainerStorageImpl restarted = null;
+        try {
+            save(first, "c1", "web", "nginx", "node1");
+            save(first, "c2", "db", "postgres", "node1");
+            save(first, "c3", "cache", "redis", "node2");
+
+            restarted = create(storage);
+            assertEquals(new HashSet<>(Arrays.asList("c1", "c2")), restarted.getContainersIdsByNode("node1"));
+            assertEquals(Collections.singleton("c3"), ids(restarted.getContainersByImage("redis")));
+            assertEquals("c2", restarted.findContainer("db").getId());
+
+            restarted.removeNodeContainers("node1");
+            assertTrue(restarted.getContainersByNode("node1").isEmpty());
+            assertNull(restarted.getContainer("c1"));
+        } finally {
+            first.executorService.shutdownNow();
+            if(restarted != null) {
+                restarted.executorService.shutdownNow();
+            }
+        }
+    }
+
+    private static void save(ContainerStorageImpl csi, String id, String name, String image, String node) {
+        DockerContainer dc = DockerContainer.builder()
+          .id(id)
+          .name(name)
+          .image(image)
+          .build();
+        csi.updateAndGetContainer(dc, node).flush();
+    }
+
+    private static Set<String> ids(List<ContainerRegistration> list) {
+        return list.stream().map(ContainerRegistration::getId).collect(Collectors.toSet());
+    }
+
+    private static ContainerStorageImpl create(KeyValueStorage storage) {
+        ObjectMapper objectMapper = new ObjectMapper()
+          .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        KvMapperFactory factory = new KvMapperFactory(objectMapper, storage, mock(TextEncryptor.class), mock(Validator.class));
+        ContainerStorageImpl csi = new ContainerStorageImpl(factory);
+        csi.postConstruct();
+        return csi;
+    }
+}
@@ -0,0 +1,114 @@
+package com.codeabovelab.dm.cluman.ds.container;
+
+import com.codeabovelab.dm.cluman.model.DockerContainer;
+import com.codeabovelab.dm.cluman.model.NodeInfoImpl;
+import com.codeabovelab.dm.common.kv.InMemoryKeyValueStorage;
+import com.codeabovelab.dm.common.kv.mapping.KvClassMapper;
+import com.codeabovelab.dm.common.kv.mapping.KvMapperFactory;
+import com.codeabovelab.dm.common.kv.mapping.KvMapping;
+import com.codeabovelab.dm.common.utils.ExecutorUtils;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableMap;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.crypto.encrypt.TextEncryptor;
+
+import javax.validation.Validator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Save and load of kv mapped objects: {@link NodeInfoImpl.Builder} as node storage does, and object with
+ * same mapped properties as {@link ContainerRegistration}. Storage is in memory, so score mostly consist of
+ * property accessors and json codecs. <p/>
+ * It is not a test, run it manually through {@link #main(String[])}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KvMappingBenchmark {
+
+    /**
+     * Mapped properties of {@link ContainerRegistration}, which can not be created without container storage.
+     */
+    public static class ContainerMapping {
+        @KvMapping
+        private Map<String, String> additionalLabels;
+        @KvMapping
+        private DockerContainer.Builder container;
+    }
+
+    @Param({"node", "container"})
+    private String type;
+
+    private KvClassMapper<Object> mapper;
+    private Object object;
+    private Object target;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        // like application mapper, it ignores derived properties of builders
+        ObjectMapper objectMapper = new ObjectMapper()
+          .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        KvMapperFactory factory = new KvMapperFactory(objectMapper,
+          InMemoryKeyValueStorage.builder().eventsExecutor(ExecutorUtils.DIRECT).build(),
+          mock(TextEncryptor.class),
+          mock(Validator.class));
+        Map<String, String> labels = ImmutableMap.of("arch", "amd64", "zone", "eu-1", "role", "worker");
+        if("node".equals(type)) {
+            object = NodeInfoImpl.builder()
+              .name("node-1")
+              .address("10.0.0.1:2375")
+              .cluster("cluster-1")
+              .labels(labels);
+            target = NodeInfoImpl.builder();
+        } else {
+            ContainerMapping cm = new ContainerMapping();
+            cm.additionalLabels = new HashMap<>(labels);
+            cm.container = DockerContainer.builder()
+              .id("4f2b6a9c0d1e")
+              .name("web-1")
+              .image("nginx:latest")
+              .imageId("sha256:9e7424e5dbae")
+              .command("nginx -g 'daemon off;'")
+              .created(System.currentTimeMillis())
+              .labels(labels)
+              .status("Up 2 hours")
+              .node("node-1");
+            object = cm;
+            target = new ContainerMapping();
+        }
+        mapper = factory.createClassMapper("/benchmark", (Class<Object>) object.getClass());
+        mapper.save("item", object);
+    }
+
+    @Benchmark
+    public void save() {
+        mapper.save("item", object);
+    }
+
+    @Benchmark
+    public Object load() {
+        mapper.load("item", target);
+        return target;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options opt = new OptionsBuilder()
+          .include(KvMappingBenchmark.class.getSimpleName())
+          .addProfiler(GCProfiler.class)
+          .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,50 @@
+package com.codeabovelab.dm.cluman.ds.kv.etcd;
+
+import com.codeabovelab.dm.common.kv.KvNode;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class EtcdReplicaTest {
+
+    @Test
+    public void test() throws Exception {
+        EtcdReplica replica = new EtcdReplica("/cluman");
+        replica.beginLoad();
+        replica.set("/cluman", null, true, 1);
+        replica.set("/cluman/nodes", null, true, 2);
+        replica.set("/cluman/nodes/one", "1", false, 3);
+        assertFalse(replica.covers("/cluman/nodes/one"));
+        replica.endLoad(3);
+
+        assertTrue(replica.covers("/cluman/nodes/one"));
+        assertFalse(replica.covers("/other/key"));
+        assertFalse(replica.covers("/cluman/_hidden"));
+        assertEquals(KvNode.leaf(3, "1"), replica.get("/cluman/nodes/one"));
+        assertTrue(replica.get("/cluman/nodes/").isDirectory());
+        assertNull(replica.get("/cluman/nodes/two"));
+
+        // local write then older change from watch
+        replica.set("/cluman/nodes/one", "new", false, 10);
+        replica.set("/cluman/nodes/one", "old", false, 9);
+        replica.applied(9);
+        assertEquals("new", replica.get("/cluman/nodes/one").getValue());
+
+        // local delete must not be reverted by older change from watch
+        replica.delete("/cluman/nodes", 12);
+        replica.set("/cluman/nodes/two", "2", false, 11);
+        replica.applied(11);
+        assertNull(replica.get("/cluman/nodes"));
+        replica.applied(12);
+        replica.set("/cluman/nodes/two", "2", false, 13);
+        Map<String, KvNode> children = replica.getChildren("/cluman/nodes");
+        assertEquals(1, children.size());
+        assertEquals("2", children.get("two").getValue());
+        assertNull(replica.getChildren("/cluman/nodes/two"));
+
+        replica.reset();
+        assertFalse(replica.covers("/cluman/nodes"));
+    }
+}
@@ -0,0 +1,827 @@
+/*
+ * Copyright 2016 Code Above Lab LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.codeabovelab.dm.common.kv;
+
+import com.codeabovelab.dm.common.fc.FbStorage;
+import com.codeabovelab.dm.common.fc.FbSyncMode;
+import com.codeabovelab.dm.common.mb.ConditionalSubscriptions;
+import com.codeabovelab.dm.common.mb.MessageBus;
+import com.codeabovelab.dm.common.mb.MessageBuses;
+import com.codeabovelab.dm.common.utils.ExecutorUtils;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.Assert;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * Key value storage which keep all data in memory and append each modification to log file. <p/>
+ * It is designed for single master installations where kv storage is used only by this application. Indexes
+ * have etcd semantic: each modification increment global index, and node keep index of its last modification. <p/>
+ * Log is replayed at start, its damaged tail (for example after crash in middle of write) is discarded. When log
+ * contains too many outdated records it is replaced by snapshot of current state.
+ */
+@Slf4j
+public class FileKeyValueStorage implements KeyValueStorage, AutoCloseable {
+
+    @Data
+    public static class Builder {
+        /**
+         * Directory for log file.
+         */
+        private String path;
+        /**
+         * Prefix of keys.
+         */
+        private String prefix = "/cluman";
+        /**
+         * Policy of forcing log to the storage device. Default {@link FbSyncMode#NONE}.
+         */
+        private FbSyncMode syncMode = FbSyncMode.NONE;
+        /**
+         * Period in milliseconds for {@link FbSyncMode#PERIODIC}. Default 1000.
+         */
+        private long syncPeriod = 1000;
+        /**
+         * Count of writes for {@link FbSyncMode#EVERY_N}. Default 100.
+         */
+        private int syncEvery = 100;
+        /**
+         * Log is compacted when count of its records exceed this value and twice count of live nodes. Default 10000.
+         */
+        private int compactThreshold = 10_000;
+        /**
+         * Period in milliseconds of removing expired nodes. Default 1000.
+         */
+        private long expirePeriod = 1000;
+        /**
+         * Override default single thread executor of this storage events.
+         */
+        private Executor eventsExecutor;
+
+        public Builder path(String path) {
+            setPath(path);
+            return this;
+        }
+
+        /**
+         * Place log into 'kv' directory of specified storage and use its sync policy.
+         * @param storage file based storage
+         * @return this
+         */
+        public Builder storage(FbStorage storage) {
+            setPath(new File(storage.getStorageDir(), "kv").getPath());
+            setSyncMode(storage.getSyncMode());
+            setSyncPeriod(storage.getSyncPeriod());
+            setSyncEvery(storage.getSyncEvery());
+            return this;
+        }
+
+        public Builder prefix(String prefix) {
+            setPrefix(prefix);
+            return this;
+        }
+
+        public Builder syncMode(FbSyncMode syncMode) {
+            setSyncMode(syncMode);
+            return this;
+        }
+
+        public Builder syncPeriod(long syncPeriod) {
+            setSyncPeriod(syncPeriod);
+            return this;
+        }
+
+        public Builder syncEvery(int syncEvery) {
+            setSyncEvery(syncEvery);
+            return this;
+        }
+
+        public Builder compactThreshold(int compactThreshold) {
+            setCompactThreshold(compactThreshold);
+            return this;
+        }
+
+        public Builder expirePeriod(long expirePeriod) {
+            setExpirePeriod(expirePeriod);
+            return this;
+        }
+
+        /**
+         * Override default single thread executor of this storage events.
+         * @param eventsExecutor executor instance or null
+         * @return this
+         */
+        public Builder eventsExecutor(Executor eventsExecutor) {
+            setEventsExecutor(eventsExecutor);
+            return this;
+        }
+
+        public FileKeyValueStorage build() {
+            return new FileKeyValueStorage(this);
+        }
+    }
+
+    private static final String LOG_FILE = "kv.log";
+    private static final byte OP_INDEX = 0;
+    private static final byte OP_SET = 1;
+    private static final byte OP_SETDIR = 2;
+    private static final byte OP_DELETE = 3;
+    private static final int RECORD_HEADER = 8;
+
+    private static final class Leaf {
+        private final String value;
+        private final long index;
+        private final long expiresAt;
+
+        Leaf(String value, long index, long expiresAt) {
+            this.value = value;
+            this.index = index;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static final class Dir {
+        private final ConcurrentMap<String, Object> children = new ConcurrentHashMap<>();
+        private final long index;
+        private final long expiresAt;
+
+        Dir(long index, long expiresAt) {
+            this.index = index;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Node scheduled for expiration.
+     */
+    private static final class Expiring {
+        private final long expiresAt;
+        private final String[] path;
+        private final Object node;
+
+        Expiring(long expiresAt, String[] path, Object node) {
+            this.expiresAt = expiresAt;
+            this.path = path;
+            this.node = node;
+        }
+    }
+
+    private final String prefix;
+    private final Path logFile;
+    private final FbSyncMode syncMode;
+    private final long syncPeriod;
+    private final int syncEvery;
+    private final int compactThreshold;
+    private final MessageBus<KvStorageEvent> bus;
+    private final ScheduledExecutorService scheduler;
+    private final Executor executor;
+    private final Dir root = new Dir(0, 0);
+    private final PriorityQueue<Expiring> expiring = new PriorityQueue<>(Comparator.comparingLong(e -> e.expiresAt));
+    private final Object lock = new Object();
+    // fields below are guarded by lock
+    private long index;
+    private long nodes;
+    private long records;
+    private FileChannel channel;
+    private int unsynced;
+    private long lastSync;
+
+    private FileKeyValueStorage(Builder b) {
+        Assert.hasText(b.path, "path is null or empty");
+        this.prefix = b.prefix;
+        this.syncMode = b.syncMode;
+        Assert.notNull(this.syncMode, "syncMode is null");
+        this.syncPeriod = b.syncPeriod;
+        this.syncEvery = b.syncEvery;
+        this.compactThreshold = b.compactThreshold;
+        File dir = new File(b.path);
+        dir.mkdirs();
+        Assert.isTrue(dir.isDirectory(), dir.getAbsolutePath() + " is not a directory.");
+        this.logFile = dir.toPath().resolve(LOG_FILE);
+        this.bus = MessageBuses.createPathConditional("file-kv", KvStorageEvent.class, KvStorageEvent::getKey, KvUtils::predicate);
+        this.scheduler = ExecutorUtils.singleThreadScheduledExecutor(getClass());
+        this.executor = b.eventsExecutor == null ? scheduler : b.eventsExecutor;
+        try {
+            open();
+        } catch (IOException e) {
+            scheduler.shutdownNow();
+            throw new UncheckedIOException("Can not open " + logFile, e);
+        }
+        Assert.isTrue(b.expirePeriod > 0, "expirePeriod is less than one");
+        scheduler.scheduleWithFixedDelay(this::expire, b.expirePeriod, b.expirePeriod, TimeUnit.MILLISECONDS);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private void open() throws IOException {
+        long valid = 0;
+        if(Files.exists(logFile)) {
+            try(DataInputStream dis = new DataInputStream(new BufferedInputStream(Files.newInputStream(logFile)))) {
+                long length = Files.size(logFile);
+                CRC32 crc = new CRC32();
+                while(length - valid >= RECORD_HEADER) {
+                    int len = dis.readInt();
+                    int sum = dis.readInt();
+                    if(len <= 0 || len > length - valid - RECORD_HEADER) {
+                        break;
+                    }
+                    byte[] payload = new byte[len];
+                    dis.readFully(payload);
+                    crc.reset();
+                    crc.update(payload);
+                    if((int) crc.getValue() != sum) {
+                        break;
+                    }
+                    replay(payload);
+                    valid += RECORD_HEADER + len;
+                    records++;
+                }
+                if(valid != length) {
+                    log.warn("Log {} has damaged tail, discard {} bytes from {}.", logFile, length - valid, valid);
+                }
+            }
+        }
+        this.channel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        this.channel.truncate(valid);
+        this.channel.position(valid);
+        this.lastSync = System.currentTimeMillis();
+        log.info("Open {} with {} records, {} nodes at index {}", logFile, records, nodes, index);
+    }
+
+    private void replay(byte[] payload) throws IOException {
+        DataInputStream dis = new DataInputStream(new ByteArrayInputStream(payload));
+        byte op = dis.readByte();
+        long idx = dis.readLong();
+        long expiresAt = dis.readLong();
+        String[] path = split(readString(dis));
+        String value = readString(dis);
+        index = Math.max(index, idx);
+        switch (op) {
+            case OP_INDEX:
+                break;
+            case OP_SET:
+                applySet(path, value, idx, expiresAt);
+                break;
+            case OP_SETDIR:
+                applySetdir(path, idx, expiresAt);
+                break;
+            case OP_DELETE:
+                applyDelete(path);
+                break;
+            default:
+                throw new IOException("Unknown operation: " + op);
+        }
+    }
+
+    @Override
+    public KvNode get(String key) {
+        Object node = find(split(key), System.currentTimeMillis());
+        return toNode(node);
+    }
+
+    @Override
+    public KvNode set(String key, String value, WriteOptions ops) {
+        String[] path = split(key);
+        Assert.isTrue(path.length > 0, "Can not set value to root.");
+        synchronized (lock) {
+            long now = System.currentTimeMillis();
+            Object old = prepare(key, path, now);
+            if(old instanceof Dir) {
+                throw new RuntimeException("The " + key + " is a directory.");
+            }
+            checkOptions(key, old, ops);
+            long idx = index + 1;
+            long expiresAt = expiresAt(ops, now);
+            append(OP_SET, idx, expiresAt, path, value);
+            index = idx;
+            applySet(path, value, idx, expiresAt);
+            compactIfNeeded();
+            fire(idx, path, value, ops, old == null ? KvStorageEvent.Crud.CREATE : KvStorageEvent.Crud.UPDATE);
+            return KvNode.leaf(idx, value);
+        }
+    }
+
+    @Override
+    public KvNode setdir(String key, WriteOptions ops) {
+        String[] path = split(key);
+        synchronized (lock) {
+            long now = System.currentTimeMillis();
+            Object old = prepare(key, path, now);
+            if(old instanceof Leaf) {
+                throw new RuntimeException("The " + key + " is not a directory.");
+            }
+            if(old != null) {
+                if(ops != null && ops.isFailIfExists()) {
+                    throw new RuntimeException(key + " already exists.");
+                }
+                return toNode(old);
+            }
+            checkOptions(key, null, ops);
+            long idx = index + 1;
+            long expiresAt = expiresAt(ops, now);
+            append(OP_SETDIR, idx, expiresAt, path, null);
+            index = idx;
+            applySetdir(path, idx, expiresAt);
+            compactIfNeeded();
+            fire(idx, path, null, ops, KvStorageEvent.Crud.CREATE);
+            return KvNode.dir(idx);
+        }
+    }
+
+    @Override
+    public KvNode deletedir(String key, DeleteDirOptions ops) {
+        String[] path = split(key);
+        Assert.isTrue(path.length > 0, "Can not delete root.");
+        synchronized (lock) {
+            Object old = prepare(key, path, System.currentTimeMillis());
+            if(old instanceof Leaf) {
+                throw new RuntimeException("The " + key + " is not a directory.");
+            }
+            if(old == null) {
+                if(ops != null && ops.isFailIfAbsent()) {
+                    throw new RuntimeException(key + " is absent.");
+                }
+                return KvNode.dir(index);
+            }
+            if(!((Dir) old).children.isEmpty() && (ops == null || !ops.isRecursive())) {
+                throw new RuntimeException("The " + key + " is not empty.");
+            }
+            checkOptions(key, old, ops);
+            return delete(path, null, ops);
+        }
+    }
+
+    @Override
+    public KvNode delete(String key, WriteOptions ops) {
+        String[] path = split(key);
+        Assert.isTrue(path.length > 0, "Can not delete root.");
+        synchronized (lock) {
+            Object old = prepare(key, path, System.currentTimeMillis());
+            if(old instanceof Dir) {
+                throw new RuntimeException("The " + key + " is a directory.");
+            }
+            if(old == null) {
+                if(ops != null && (ops.isFailIfAbsent() || ops.getPrevIndex() > 0)) {
+                    throw new RuntimeException(key + " is absent.");
+                }
+                return KvNode.leaf(index, null);
+            }
+            checkOptions(key, old, ops);
+            return delete(path, ((Leaf) old).value, ops);
+        }
+    }
+
+    private KvNode delete(String[] path, String oldValue, WriteOptions ops) {
+        long idx = index + 1;
+        append(OP_DELETE, idx, 0, path, null);
+        index = idx;
+        applyDelete(path);
+        compactIfNeeded();
+        fire(idx, path, oldValue, ops, KvStorageEvent.Crud.DELETE);
+        return KvNode.leaf(idx, null);
+    }
+
+    @Override
+    public List<String> list(String key) {
+        Dir dir = findDir(key);
+        if(dir == null) {
+            return null;
+        }
+        String base = toKey(split(key));
+        List<String> list = new ArrayList<>();
+        forEachLive(dir, (name, node) -> list.add(child(base, name)));
+        return list;
+    }
+
+    @Override
+    public Map<String, String> map(String key) {
+        Dir dir = findDir(key);
+        if(dir == null) {
+            return null;
+        }
+        String base = toKey(split(key));
+        Map<String, String> map = new HashMap<>();
+        forEachLive(dir, (name, node) -> map.put(child(base, name), node instanceof Leaf ? ((Leaf) node).value : null));
+        return map;
+    }
+
+    @Override
+    public Map<String, KvNode> getChildren(String key) {
+        Dir dir = findDir(key);
+        if(dir == null) {
+            return null;
+        }
+        Map<String, KvNode> map = new HashMap<>();
+        forEachLive(dir, (name, node) -> map.put(name, toNode(node)));
+        return map;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public ConditionalSubscriptions<KvStorageEvent, String> subscriptions() {
+        return (ConditionalSubscriptions<KvStorageEvent, String>) bus.asSubscriptions();
+    }
+
+    @Override
+    public String getPrefix() {
+        return prefix;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        synchronized (lock) {
+            try {
+                channel.force(false);
+                channel.close();
+            } catch (IOException e) {
+                log.error("Can not close {}", logFile, e);
+            }
+        }
+    }
+
+    private Dir findDir(String key) {
+        Object node = find(split(key), System.currentTimeMillis());
+        if(node instanceof Leaf) {
+            throw new RuntimeException("The " + key + " is not a directory.");
+        }
+        return (Dir) node;
+    }
+
+    private Object find(String[] path, long now) {
+        Object node = root;
+        for(String name: path) {
+            if(!(node instanceof Dir)) {
+                return null;
+            }
+            node = ((Dir) node).children.get(name);
+            if(node == null || isExpired(node, now)) {
+                return null;
+            }
+        }
+        return node;
+    }
+
+    private void forEachLive(Dir dir, BiConsumer<String, Object> consumer) {
+        long now = System.currentTimeMillis();
+        dir.children.forEach((name, node) -> {
+            if(!isExpired(node, now)) {
+                consumer.accept(name, node);
+            }
+        });
+    }
+
+    /**
+     * Remove expired nodes on path and check that all parents is directories.
+     * @return current node at path or null
+     */
+    private Object prepare(String key, String[] path, long now) {
+        Object node = root;
+        for(int i = 0; i < path.length; ++i) {
+            if(!(node instanceof Dir)) {
+                throw new RuntimeException("The " + path[i - 1] + " in " + key + " is not a directory.");
+            }
+            Object child = ((Dir) node).children.get(path[i]);
+            if(child != null && isExpired(child, now)) {
+                delete(Arrays.copyOf(path, i + 1), child instanceof Leaf ? ((Leaf) child).value : null, null);
+                child = null;
+            }
+            if(child == null) {
+                return null;
+            }
+            node = child;
+        }
+        return node;
+    }
+
+    private void checkOptions(String key, Object old, WriteOptions ops) {
+        if(ops == null) {
+            return;
+        }
+        if(ops.isFailIfExists() && old != null) {
+            throw new RuntimeException(key + " already exists.");
+        }
+        if(ops.isFailIfAbsent() && old == null) {
+            throw new RuntimeException(key + " is absent.");
+        }
+        int prevIndex = ops.getPrevIndex();
+        if(prevIndex > 0) {
+            long actual = old == null ? -1 : getIndex(old);
+            if(actual != prevIndex) {
+                throw new RuntimeException("Compare failed for " + key + ": expected index " + prevIndex + ", but actual " + actual);
+            }
+        }
+    }
+
+    private void applySet(String[] path, String value, long idx, long expiresAt) {
+        Dir dir = makeParents(path, idx);
+        Leaf leaf = new Leaf(value, idx, expiresAt);
+        Object old = dir.children.put(path[path.length - 1], leaf);
+        if(old == null) {
+            nodes++;
+        } else if(old instanceof Dir) {
+            nodes -= count((Dir) old);
+        }
+        if(expiresAt > 0) {
+            expiring.add(new Expiring(expiresAt, path, leaf));
+        }
+    }
+
+    private void applySetdir(String[] path, long idx, long expiresAt) {
+        if(path.length == 0) {
+            return;
+        }
+        Dir parent = makeParents(path, idx);
+        String name = path[path.length - 1];
+        if(parent.children.get(name) instanceof Dir) {
+            return;
+        }
+        Dir dir = new Dir(idx, expiresAt);
+        Object old = parent.children.put(name, dir);
+        nodes += old == null ? 1 : 0;
+        if(expiresAt > 0) {
+            expiring.add(new Expiring(expiresAt, path, dir));
+        }
+    }
+
+    private void applyDelete(String[] path) {
+        Object parent = root;
+        for(int i = 0; i < path.length - 1 && parent != null; ++i) {
+            parent = parent instanceof Dir ? ((Dir) parent).children.get(path[i]) : null;
+        }
+        if(!(parent instanceof Dir)) {
+            return;
+        }
+        Object old = ((Dir) parent).children.remove(path[path.length - 1]);
+        if(old instanceof Dir) {
+            nodes -= count((Dir) old) + 1;
+        } else if(old != null) {
+            nodes--;
+        }
+    }
+
+    private Dir makeParents(String[] path, long idx) {
+        Dir dir = root;
+        for(int i = 0; i < path.length - 1; ++i) {
+            Object child = dir.children.get(path[i]);
+            if(!(child instanceof Dir)) {
+                child = new Dir(idx, 0);
+                dir.children.put(path[i], child);
+                nodes++;
+            }
+            dir = (Dir) child;
+        }
+        return dir;
+    }
+
+    private static long count(Dir dir) {
+        long count = 0;
+        for(Object child: dir.children.values()) {
+            count++;
+            if(child instanceof Dir) {
+                count += count((Dir) child);
+            }
+        }
+        return count;
+    }
+
+    private void expire() {
+        try {
+            synchronized (lock) {
+                long now = System.currentTimeMillis();
+                Expiring e;
+                while((e = expiring.peek()) != null && e.expiresAt <= now) {
+                    expiring.poll();
+                    // node may be replaced or removed after scheduling
+                    Object node = find(Arrays.copyOf(e.path, e.path.length - 1), Long.MIN_VALUE);
+                    if(node instanceof Dir && ((Dir) node).children.get(e.path[e.path.length - 1]) == e.node) {
+                        delete(e.path, e.node instanceof Leaf ? ((Leaf) e.node).value : null, null);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            log.error("Can not remove expired nodes.", e);
+        }
+    }
+
+    /**
+     * Write record to log, it must be invoked before change of memory state, so failed write does not
+     * leave state which will be lost at restart.
+     */
+    private void append(byte op, long idx, long expiresAt, String[] path, String value) {
+        long pos = -1;
+        try {
+            pos = channel.position();
+            writeRecord(channel, op, idx, expiresAt, toKey(path), value);
+            records++;
+            sync();
+        } catch (IOException e) {
+            if(pos >= 0) {
+                // remove partially written record, otherwise it hide all following records at replay
+                try {
+                    channel.truncate(pos);
+                    channel.position(pos);
+                } catch (IOException te) {
+                    e.addSuppressed(te);
+                }
+            }
+            throw new UncheckedIOException("Can not write to " + logFile, e);
+        }
+    }
+
+    /**
+     * Invoke after change of memory state, because snapshot is made from it.
+     */
+    private void compactIfNeeded() {
+        if(records <= compactThreshold || records <= nodes * 2) {
+            return;
+        }
+        try {
+            compact();
+        } catch (IOException e) {
+            // record is already in log, so we can try compaction later
+            log.error("Can not compact {}", logFile, e);
+        }
+    }
+
+    private void sync() throws IOException {
+        boolean force;
+        switch (syncMode) {
+            case PERIODIC:
+                force = System.currentTimeMillis() - lastSync >= syncPeriod;
+                break;
+            case EVERY_N:
+                force = ++unsynced >= syncEvery;
+                break;
+            default:
+                force = false;
+        }
+        if(force) {
+            channel.force(false);
+            unsynced = 0;
+            lastSync = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Replace log by snapshot of current state.
+     */
+    private void compact() throws IOException {
+        Path tmp = logFile.resolveSibling(LOG_FILE + ".tmp");
+        long count;
+        try(FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+          StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeRecord(out, OP_INDEX, index, 0, "/", null);
+            count = 1 + writeSnapshot(out, "/", root);
+            out.force(false);
+        }
+        channel.close();
+        try {
+            Files.move(tmp, logFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            // when move is failed we continue to append to old log
+            channel = FileChannel.open(logFile, StandardOpenOption.WRITE);
+            channel.position(channel.size());
+        }
+        log.info("Compact {} from {} to {} records", logFile, records, count);
+        records = count;
+    }
+
+    private long writeSnapshot(FileChannel out, String base, Dir dir) throws IOException {
+        long count = 0;
+        for(Map.Entry<String, Object> entry: dir.children.entrySet()) {
+            String key = child(base, entry.getKey());
+            Object node = entry.getValue();
+            if(node instanceof Dir) {
+                Dir child = (Dir) node;
+                writeRecord(out, OP_SETDIR, child.index, child.expiresAt, key, null);
+                count += 1 + writeSnapshot(out, key, child);
+            } else {
+                Leaf leaf = (Leaf) node;
+                writeRecord(out, OP_SET, leaf.index, leaf.expiresAt, key, leaf.value);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static void writeRecord(FileChannel out, byte op, long idx, long expiresAt, String key, String value) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream dos = new DataOutputStream(baos);
+        dos.writeByte(op);
+        dos.writeLong(idx);
+        dos.writeLong(expiresAt);
+        writeString(dos, key);
+        writeString(dos, value);
+        dos.flush();
+        byte[] payload = baos.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer bb = ByteBuffer.allocate(RECORD_HEADER + payload.length);
+        bb.putInt(payload.length);
+        bb.putInt((int) crc.getValue());
+        bb.put(payload);
+        bb.flip();
+        while(bb.hasRemaining()) {
+            out.write(bb);
+        }
+    }
+
+    private static void writeString(DataOutputStream dos, String str) throws IOException {
+        if(str == null) {
+            dos.writeInt(-1);
+            return;
+        }
+        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        dos.writeInt(bytes.length);
+        dos.write(bytes);
+    }
+
+    private static String readString(DataInputStream dis) throws IOException {
+        int len = dis.readInt();
+        if(len < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[len];
+        dis.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void fire(long idx, String[] path, String value, WriteOptions ops, KvStorageEvent.Crud action) {
+        long ttl = ops == null ? -1 : ops.getTtl();
+        KvStorageEvent e = new KvStorageEvent(idx, toKey(path), value, ttl, action);
+        executor.execute(() -> bus.accept(e));
+    }
+
+    private static long expiresAt(WriteOptions ops, long now) {
+        if(ops == null || ops.getTtl() <= 0) {
+            return 0;
+        }
+        return now + TimeUnit.SECONDS.toMillis(ops.getTtl());
+    }
+
+    private static boolean isExpired(Object node, long now) {
+        long expiresAt = node instanceof Leaf ? ((Leaf) node).expiresAt : ((Dir) node).expiresAt;
+        return expiresAt > 0 && expiresAt <= now;
+    }
+
+    private static long getIndex(Object node) {
+        return node instanceof Leaf ? ((Leaf) node).index : ((Dir) node).index;
+    }
+
+    private static KvNode toNode(Object node) {
+        if(node == null) {
+            return null;
+        }
+        if(node instanceof Dir) {
+            return KvNode.dir(((Dir) node).index);
+        }
+        Leaf leaf = (Leaf) node;
+        return KvNode.leaf(leaf.index, leaf.value);
+    }
+
+    private static String[] split(String key) {
+        return Arrays.stream(key.split("/")).filter(s -> !s.isEmpty()).toArray(String[]::new);
+    }
+
+    private static String child(String dir, String name) {
+        return dir.endsWith("/") ? dir + name : dir + "/" + name;
+    }
+
+    private static String toKey(String[] path) {
+        return "/" + String.join("/", path);
+    }
+}
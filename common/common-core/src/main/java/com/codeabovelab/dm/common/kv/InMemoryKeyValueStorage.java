@@ -109,7 +109,7 @@ public class InMemoryKeyValueStorage implements KeyValueStorage {
             ex = ExecutorUtils.DIRECT;
         }
         this.executor = ex;
-        bus = MessageBuses.createConditional("inmemory", KvStorageEvent.class, KvStorageEvent::getKey, KvUtils::predicate);
+        bus = MessageBuses.createPathConditional("inmemory", KvStorageEvent.class, KvStorageEvent::getKey, KvUtils::predicate);
     }
 
     public static Builder builder() {
@@ -156,6 +156,11 @@ public class InMemoryKeyValueStorage implements KeyValueStorage {
         return root.map(new Context(key));
     }
 
+    @Override
+    public Map<String, KvNode> getChildren(String key) {
+        return root.getChildren(new Context(key));
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public ConditionalSubscriptions<KvStorageEvent, String> subscriptions() {
@@ -164,7 +169,8 @@ public class InMemoryKeyValueStorage implements KeyValueStorage {
 
     @Override
     public String getPrefix() {
-        return "dmp";
+        // rooted like prefixes of etcd, because mappers build rooted keys by KvUtils.join
+        return "/dmp";
     }
 
     private class Node {
@@ -303,7 +309,14 @@ public class InMemoryKeyValueStorage implements KeyValueStorage {
                   Object o = nodes.get(k.current);
                   assertNullOrNode(k, o);
                   Node node = (Node) o;
-                  return node == null? Collections.emptyList() : new ArrayList<>(node.nodes.keySet());
+                  if(node == null) {
+                      return Collections.emptyList();
+                  }
+                  // like etcd, we return full keys of children, in same form as key passed by caller
+                  String dir = k.key.endsWith("/") ? k.key : k.key + "/";
+                  List<String> list = new ArrayList<>(node.nodes.size());
+                  node.nodes.keySet().forEach(name -> list.add(dir + name));
+                  return list;
               },
               (k, dir) -> dir.list(k));
         }
@@ -326,6 +339,26 @@ public class InMemoryKeyValueStorage implements KeyValueStorage {
               },
               (k, dir) -> dir.map(k));
         }
+
+        public Map<String, KvNode> getChildren(Context ctx) {
+            return doing(ctx, false,
+              (k) -> {
+                  Object o = nodes.get(k.current);
+                  if(o == null) {
+                      return null;
+                  }
+                  assertNode(k, o);
+                  Node node = (Node) o;
+                  Map<String, KvNode> map = new HashMap<>();
+                  ctx.fire(index, KvStorageEvent.Crud.READ, null);
+                  node.nodes.forEach((lk, lv) -> {
+                      KvNode child = lv instanceof Node ? KvNode.dir(node.index) : KvNode.leaf(node.index, toStrVal(lv));
+                      map.put(lk, child);
+                  });
+                  return map;
+              },
+              (k, dir) -> dir.getChildren(k));
+        }
     }
 
     private String toStrVal(Object val) {
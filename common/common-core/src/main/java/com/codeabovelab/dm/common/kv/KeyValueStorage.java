@@ -20,6 +20,7 @@ import com.codeabovelab.dm.common.mb.ConditionalSubscriptions;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * key-value store for shared configuration and service discovery
@@ -52,6 +53,39 @@ public interface KeyValueStorage {
      */
     KvNode set(String key, String value, WriteOptions ops);
 
+    /**
+     * Asynchronous variant of {@link #get(String)}. <p/>
+     * Default implementation simply invokes synchronous method, storages which can do requests
+     * without blocking of caller thread must override it.
+     * @param key the key
+     * @return future with node or null when value is not found
+     */
+    default CompletableFuture<KvNode> getAsync(String key) {
+        return KvUtils.completed(() -> get(key));
+    }
+
+    /**
+     * Asynchronous variant of {@link #set(String, String, WriteOptions)}. It allow to issue many
+     * writes and then wait them all at once.
+     * @param key the key
+     * @param value the value
+     * @param ops ops or null
+     * @return future with node
+     */
+    default CompletableFuture<KvNode> setAsync(String key, String value, WriteOptions ops) {
+        return KvUtils.completed(() -> set(key, value, ops));
+    }
+
+    /**
+     * Asynchronous variant of {@link #delete(String, WriteOptions)}.
+     * @param key the key
+     * @param ops ops or null
+     * @return future with node
+     */
+    default CompletableFuture<KvNode> deleteAsync(String key, WriteOptions ops) {
+        return KvUtils.completed(() -> delete(key, ops));
+    }
+
     /**
      * Make or update directory at specified key.
      * @param key
@@ -93,6 +127,15 @@ public interface KeyValueStorage {
      */
     Map<String, String> map(String key);
 
+    /**
+     * Retrieve nodes of direct children of specified directory by single request. <p/>
+     * Unlike {@link #map(String)} keys of result map is a names of child nodes (last element of its path),
+     * and values contains node indexes.
+     * @param key key of directory
+     * @return map or null if key is absent
+     */
+    Map<String, KvNode> getChildren(String key);
+
     /**
      * Subscriptions for key value events of this storage. <p/>
      * Note that subscription may be on '/key' - or on key with its childs '/key*' (also '/key/*')
@@ -19,6 +19,8 @@ package com.codeabovelab.dm.common.kv;
 import com.google.common.base.Strings;
 
 import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 /**
  */
@@ -138,4 +140,20 @@ public class KvUtils {
         }
         return path.substring(start, end);
     }
+
+    /**
+     * Invoke supplier and wrap its result or exception into completed future.
+     * @param supplier supplier
+     * @param <T> type of result
+     * @return completed future
+     */
+    public static <T> CompletableFuture<T> completed(Supplier<T> supplier) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            future.complete(supplier.get());
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
 }
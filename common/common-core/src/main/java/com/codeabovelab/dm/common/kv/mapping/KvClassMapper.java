@@ -156,11 +156,7 @@ public class KvClassMapper<T> {
      */
     public <S extends T> S load(String name, Class<S> type) {
         String path = path(name);
-        //check that mapped dir is exists
-        KvNode node = this.storage.get(path);
-        if(node == null) {
-            return null;
-        }
+        // mapping return null when mapped node is absent
         Class<S> actualType = resolveType(type);
         return this.mapping.load(path, name, actualType);
     }
@@ -16,6 +16,7 @@
 
 package com.codeabovelab.dm.common.kv.mapping;
 
+import com.codeabovelab.dm.common.kv.KvNode;
 import com.codeabovelab.dm.common.kv.KvStorageEvent;
 import com.codeabovelab.dm.common.kv.KvUtils;
 import com.google.common.base.MoreObjects;
@@ -27,6 +28,7 @@ import org.springframework.util.Assert;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
@@ -129,9 +131,17 @@ public class KvMap<T> {
     private final class ValueHolder {
         private final String key;
         private volatile T value;
-        private final Map<String, Long> index = new ConcurrentHashMap<>();
+        private final Map<String, KvPropertyState> states = new ConcurrentHashMap<>();
         private volatile boolean dirty = true;
         private volatile boolean barrier = false;
+        /**
+         * Count of flushes in progress, guarded by this.
+         */
+        private int flushing;
+        /**
+         * Max indexes of events which come while flush is in progress, guarded by this.
+         */
+        private final Map<String, Long> deferred = new HashMap<>();
 
         ValueHolder(String key) {
             Assert.notNull(key, "key is null");
@@ -166,30 +176,110 @@ public class KvMap<T> {
                 }
                 this.dirty = false;
                 obj = adapter.get(this.key, this.value);
+                flushing++;
+            }
+            try {
+                // Note that message will be concatenated with type of object by `Assert.isInstanceOf`
+                Assert.isInstanceOf(mapper.getType(), obj, "Adapter " + adapter + " return object of inappropriate");
+                Assert.notNull(obj, "Adapter " + adapter + " return null from " + this.value + " that is not allowed");
+                saveToStorage(obj);
+            } finally {
+                endFlush();
+            }
+        }
+
+        /**
+         * Check events which come while flush is in progress, when all of them are echo of our writes, we do not
+         * need to reload value.
+         */
+        private synchronized void endFlush() {
+            flushing--;
+            if(flushing > 0 || deferred.isEmpty()) {
+                return;
             }
-            // Note that message will be concatenated with type of object by `Assert.isInstanceOf`
-            Assert.isInstanceOf(mapper.getType(), obj, "Adapter " + adapter + " return object of inappropriate");
-            Assert.notNull(obj, "Adapter " + adapter + " return null from " + this.value + " that is not allowed");
-            mapper.save(key, obj, (name, res) -> {
-                synchronized (this) {
-                    index.put(toIndexKey(name), res.getIndex());
+            boolean foreign = false;
+            for(Map.Entry<String, Long> e: deferred.entrySet()) {
+                if(!isOwn(e.getKey(), e.getValue())) {
+                    foreign = true;
+                    break;
+                }
+            }
+            if(foreign) {
+                dirty();
+            } else {
+                suppressedReloads.addAndGet(deferred.size());
+            }
+            deferred.clear();
+        }
+
+        private void saveToStorage(Object obj) {
+            mapper.save(key, obj, new KvSaveCallback() {
+                @Override
+                public void call(String name, String value, KvNode res) {
+                    synchronized (ValueHolder.this) {
+                        KvPropertyState state = getState(name);
+                        state.setStorageIndex(res.getIndex());
+                        state.setValue(value);
+                    }
+                }
+
+                @Override
+                public boolean isModified(String name, String value) {
+                    KvPropertyState state = states.get(toIndexKey(name));
+                    if(state != null && value != null && value.equals(state.getValue())) {
+                        skippedWrites.incrementAndGet();
+                        return false;
+                    }
+                    return true;
                 }
             });
         }
 
+        private KvPropertyState getState(String name) {
+            return states.computeIfAbsent(toIndexKey(name), KvPropertyState::new);
+        }
+
         private String toIndexKey(String name) {
             return name == null? THIS : name;
         }
 
         synchronized void dirty(String prop, long newIndex) {
-            Long old = this.index.get(toIndexKey(prop));
-            if(old != null && old != newIndex) {
-                dirty();
+            String indexKey = toIndexKey(prop);
+            KvPropertyState state = this.states.get(indexKey);
+            if(state == null) {
+                return;
+            }
+            if(isOwn(indexKey, newIndex)) {
+                // it is echo of our write, value is actual
+                suppressedReloads.incrementAndGet();
+                return;
+            }
+            if(flushing > 0) {
+                // index of our write may be not known yet
+                deferred.merge(indexKey, newIndex, Math::max);
+                return;
             }
+            dirty();
+        }
+
+        /**
+         * Check that change with specified index is already known, usually because it was made by us.
+         */
+        private boolean isOwn(String indexKey, long index) {
+            KvPropertyState state = this.states.get(indexKey);
+            return state != null && index <= state.getStorageIndex();
         }
 
         synchronized void dirty() {
             this.dirty = true;
+            forget();
+        }
+
+        /**
+         * Forget values which was written to storage, so next flush will write all properties.
+         */
+        synchronized void forget() {
+            this.states.values().forEach(state -> state.setValue(null));
         }
 
         synchronized T get() {
@@ -268,6 +358,8 @@ public class KvMap<T> {
     private final Consumer<KvMapEvent<T>> listener;
     private final Map<String, ValueHolder> map = new LinkedHashMap<>();
     private final boolean passDirty;
+    private final AtomicLong skippedWrites = new AtomicLong();
+    private final AtomicLong suppressedReloads = new AtomicLong();
 
     @SuppressWarnings("unchecked")
     private KvMap(Builder builder) {
@@ -306,7 +398,8 @@ public class KvMap<T> {
         final long index = e.getIndex();
         KvStorageEvent.Crud action = e.getAction();
         String key = this.mapper.getName(path);
-        if(key == null) {
+        // empty key is name of mapped node itself, for example when it created by first list()
+        if(key == null || key.isEmpty()) {
             if(action == KvStorageEvent.Crud.DELETE) {
                 // it meat that someone remove mapped node with all entries, we must clear map
                 // note that current implementation does not support consistency
@@ -429,6 +522,8 @@ public class KvMap<T> {
         }
         mapper.delete(key);
         if (valueHolder != null) {
+            // holder may be reused before delete event, so it must not skip writes of deleted values
+            valueHolder.forget();
             // we must not load value
             return valueHolder.getIfPresent();
         }
@@ -522,6 +617,22 @@ public class KvMap<T> {
         });
     }
 
+    /**
+     * Count of property writes which was skipped because storage already has same value.
+     * @return count of skipped writes
+     */
+    public long getSkippedWrites() {
+        return skippedWrites.get();
+    }
+
+    /**
+     * Count of storage events which was ignored because they are caused by writes of this map.
+     * @return count of suppressed reloads
+     */
+    public long getSuppressedReloads() {
+        return suppressedReloads.get();
+    }
+
     private T safeGet(ValueHolder valueHolder) {
         T element = null;
         try {
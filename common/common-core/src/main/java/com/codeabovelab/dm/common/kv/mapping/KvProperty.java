@@ -17,21 +17,35 @@
 package com.codeabovelab.dm.common.kv.mapping;
 
 import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 
 /**
+ * Property of mapped object. Accessors of field, json writer and reader are bound once at creation,
+ * so save and load do not resolve them for each value.
  */
 final class KvProperty implements KvPropertyContext {
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
     private final Field field;
     private final KvMapperFactory factory;
     private final String key;
     private final JavaType type;
     private final FieldSetter<Object> setter;
     private final PropertyInterceptor interceptors[];
+    private final MethodHandle getterHandle;
+    private final MethodHandle setterHandle;
+    private final ObjectWriter writer;
+    private final ObjectReader reader;
 
     public KvProperty(KvMapperFactory factory, String key, Field field, JavaType javaType) {
         this.factory = factory;
@@ -51,6 +65,19 @@ final class KvProperty implements KvPropertyContext {
         }
         this.type = javaType;
         this.interceptors = this.factory.getInterceptors(field.getAnnotation(KvMapping.class).interceptors());
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            this.getterHandle = lookup.unreflectGetter(field).asType(GETTER_TYPE);
+            this.setterHandle = isFinal ? null : lookup.unreflectSetter(field).asType(SETTER_TYPE);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Can not access to " + field, e);
+        }
+        ObjectMapper objectMapper = factory.getObjectMapper();
+        // writer bound to declared type does not see properties of subtypes, so we use it only when
+        // runtime type can not differ from declared
+        boolean exactType = javaType.isPrimitive() || javaType.isFinal() || javaType.isContainerType();
+        this.writer = exactType ? objectMapper.writerFor(javaType) : objectMapper.writer();
+        this.reader = objectMapper.readerFor(javaType);
     }
 
     @Override
@@ -64,14 +91,32 @@ final class KvProperty implements KvPropertyContext {
     }
 
     public String get(Object root) {
-        String valstr;
+        return intercept(serialize(root));
+    }
+
+    /**
+     * Serialize value of property without interceptors, so result of same value is always same.
+     * @param root object which has property
+     * @return json or null
+     */
+    String serialize(Object root) {
+        try {
+            Object val = getterHandle.invokeExact(root);
+            return val == null ? null : this.writer.writeValueAsString(val);
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException("When get value of " + field, e);
+        }
+    }
+
+    /**
+     * Pass serialized value through interceptors, result is value which is written to storage.
+     * @param valstr result of {@link #serialize(Object)}
+     * @return value for storage
+     */
+    String intercept(String valstr) {
         try {
-            Object val = field.get(root);
-            if(val == null) {
-                valstr = null;
-            } else {
-                valstr = this.factory.getObjectMapper().writeValueAsString(val);
-            }
             for(PropertyInterceptor interceptor: interceptors) {
                 valstr = interceptor.save(this, valstr);
             }
@@ -90,14 +135,16 @@ final class KvProperty implements KvPropertyContext {
             if(StringUtils.isEmpty(stringval)) {
                 val = null;
             } else {
-                val = this.factory.getObjectMapper().readValue(stringval, this.getType());
+                val = this.reader.readValue(stringval);
             }
             if(this.setter != null) {
-                this.setter.set(field.get(root), val);
+                this.setter.set(getterHandle.invokeExact(root), val);
             } else {
-                field.set(root, val);
+                setterHandle.invokeExact(root, val);
             }
-        } catch (Exception e) {
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
             throw new RuntimeException("When deserialize value of " + field, e);
         }
     }
@@ -20,17 +20,40 @@ package com.codeabovelab.dm.common.kv.mapping;
  * State of property
  */
 class KvPropertyState {
+    private final String key;
     private final KvProperty property;
     /**
      * Internal storage value, index of last modification.
      */
     private volatile long storageIndex;
     private volatile boolean modified;
+    /**
+     * Serialized value (before interceptors) which was last written to storage, or null when it is unknown.
+     */
+    private volatile String value;
 
     public KvPropertyState(KvProperty property) {
+        this.key = property.getKey();
         this.property = property;
     }
 
+    /**
+     * Create state of property which is tracked only by its key.
+     * @param key key of property
+     */
+    public KvPropertyState(String key) {
+        this.key = key;
+        this.property = null;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Property of this state.
+     * @return property or null when state is tracked only by key
+     */
     public KvProperty getProperty() {
         return property;
     }
@@ -50,4 +73,12 @@ class KvPropertyState {
     public void setModified(boolean modified) {
         this.modified = modified;
     }
+
+    public String getValue() {
+        return value;
+    }
+
+    public void setValue(String value) {
+        this.value = value;
+    }
 }
@@ -25,7 +25,19 @@ interface KvSaveCallback {
     /**
      * Invoked after call set property to server
      * @param name name of property, null for 'this'
+     * @param value serialized value of property before interceptors, same as in {@link #isModified(String, String)}
      * @param res response from server
      */
-    void call(String name, KvNode res);
+    void call(String name, String value, KvNode res);
+
+    /**
+     * Invoked before call set property to server, allow to skip writing of unchanged values. Value is passed
+     * before interceptors, because they may produce different result for same value (for example encryption).
+     * @param name name of property, null for 'this'
+     * @param value serialized value of property before interceptors
+     * @return true if value must be written to storage
+     */
+    default boolean isModified(String name, String value) {
+        return true;
+    }
 }
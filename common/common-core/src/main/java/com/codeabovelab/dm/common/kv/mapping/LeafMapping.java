@@ -30,9 +30,12 @@ class LeafMapping<T> extends AbstractMapping<T> {
     void save(String path, T object, KvSaveCallback callback) {
         try {
             String value = getObjectMapper().writeValueAsString(object);
+            if(callback != null && !callback.isModified(null, value)) {
+                return;
+            }
             KvNode res = getStorage().set(path, value);
             if(callback != null) {
-                callback.call(null, res);
+                callback.call(null, value, res);
             }
         } catch (Exception e) {
             throw new RuntimeException("Can not save object at path: " + path, e);
@@ -24,9 +24,13 @@ import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.annotation.AnnotationUtils;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  */
@@ -36,6 +40,20 @@ class NodeMapping<T> extends AbstractMapping<T> {
     private final Map<Class, Map<String, KvProperty>> props = new HashMap<>();
     private final KvObjectFactory<T> factory;
 
+    private static final class PendingWrite {
+        private final String key;
+        private final String path;
+        private final String value;
+        private final CompletableFuture<KvNode> future;
+
+        PendingWrite(String key, String path, String value, CompletableFuture<KvNode> future) {
+            this.key = key;
+            this.path = path;
+            this.value = value;
+            this.future = future;
+        }
+    }
+
     private NodeMapping(KvMapperFactory mapper, Class<T> type, Map<String, KvProperty> map, KvObjectFactory<T> factory) {
         super(mapper, type);
         this.props.put(type, map);
@@ -70,61 +88,131 @@ class NodeMapping<T> extends AbstractMapping<T> {
             throw new IllegalArgumentException("The path '" + path +
               "' is mapped to object of type " + object.getClass() + " which has no properties.");
         }
+        // writes are issued concurrently and joined once, so remote storage do not spend
+        // round trip for each property
+        List<PendingWrite> writes = new ArrayList<>();
         //store type of object
         KeyValueStorage storage = getStorage();
-        saveType(path, object, storage);
+        saveType(path, object, storage, callback, writes);
+        if(!writes.isEmpty()) {
+            // type record is changed (or object is new), it must be in storage before properties,
+            // otherwise concurrent reader can load properties with wrong type
+            await(writes, callback);
+            writes.clear();
+        }
         //store properties
         for(KvProperty property: props) {
-            String strval = property.get(object);
-            String key = property.getKey();
-            String proppath = KvUtils.join(path, key);
+            String strval = property.serialize(object);
+            write(storage, path, property.getKey(), strval, property, callback, writes);
+        }
+        await(writes, callback);
+    }
+
+    /**
+     * Write value when it is modified.
+     * @param value serialized value, before interceptors
+     * @param property property whose interceptors must be applied to value, or null
+     */
+    private void write(KeyValueStorage storage, String path, String key, String value, KvProperty property,
+                       KvSaveCallback callback, List<PendingWrite> writes) {
+        if(callback != null && !callback.isModified(key, value)) {
+            // value in storage is same, so we do not need to write (and encrypt) it again
+            return;
+        }
+        String proppath = KvUtils.join(path, key);
+        CompletableFuture<KvNode> future;
+        try {
+            String stored = property == null ? value : property.intercept(value);
+            future = storage.setAsync(proppath, stored, null);
+        } catch (Exception e) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+        }
+        writes.add(new PendingWrite(key, proppath, value, future));
+    }
+
+    /**
+     * Wait all writes and pass its results to callback. Callback is invoked in caller thread
+     * for each succeeded write, even when some other write is failed.
+     */
+    private void await(List<PendingWrite> writes, KvSaveCallback callback) {
+        RuntimeException error = null;
+        for(PendingWrite write: writes) {
+            KvNode res;
             try {
-                KvNode res = storage.set(proppath, strval);
-                if(callback != null) {
-                    callback.call(key, res);
-                }
+                res = write.future.join();
             } catch (Exception e) {
-                throw new RuntimeException("Error at path: " + proppath, e);
+                Throwable cause = (e instanceof CompletionException && e.getCause() != null)? e.getCause() : e;
+                if(error == null) {
+                    error = new RuntimeException("Error at path: " + write.path, cause);
+                } else {
+                    error.addSuppressed(cause);
+                }
+                continue;
+            }
+            if(callback != null) {
+                callback.call(write.key, write.value, res);
             }
         }
+        if(error != null) {
+            throw error;
+        }
     }
 
     @Override
     void load(String path, T object) {
-        KeyValueStorage storage = getStorage();
+        Map<String, KvNode> nodes = getChildren(path);
+        if(nodes == null) {
+            return;
+        }
+        load(object, nodes);
+    }
+
+    private void load(T object, Map<String, KvNode> nodes) {
         for(KvProperty property: getProps(object)) {
-            String proppath = KvUtils.join(path, property.getKey());
-            KvNode node;
-            try {
-                node = storage.get(proppath);
-                if(node == null) {
-                    // when node is absent we must not invoke setter
-                    continue;
-                }
-            } catch (Exception e) {
-                throw new RuntimeException("Error at path: " + proppath, e);
+            KvNode node = nodes.get(property.getKey());
+            if(node == null) {
+                // when node is absent we must not invoke setter
+                continue;
             }
             String str = node.getValue();
             property.set(object, str);
         }
     }
 
+    /**
+     * Load all properties of object by single request.
+     * @param path path of object
+     * @return map of property nodes or null when object is absent
+     */
+    private Map<String, KvNode> getChildren(String path) {
+        try {
+            return getStorage().getChildren(path);
+        } catch (Exception e) {
+            throw new RuntimeException("Error at path: " + path, e);
+        }
+    }
+
     @Override
     <S extends T> S load(String path, String name, Class<S> type) {
-        Class<S> actualType = resolveType(path, type);
+        Map<String, KvNode> nodes = getChildren(path);
+        if(nodes == null) {
+            return null;
+        }
+        Class<S> actualType = resolveType(nodes, type);
         S object = actualType.cast(factory.create(name, actualType));
-        load(path, object);
+        load(object, nodes);
         return actualType.cast(object);
     }
 
 
-    private <S extends T> Class<S> resolveType(String path, Class<S> actualType) {
+    private <S extends T> Class<S> resolveType(Map<String, KvNode> nodes, Class<S> actualType) {
         // we prefer json type mapping, and try load custom type only when no json mapping
-        Class<S> jsonType = resolveJsonType(path, actualType);
+        Class<S> jsonType = resolveJsonType(nodes, actualType);
         if(jsonType != null) {
             actualType = jsonType;
         } else {
-            Class<S> savedType = loadType(path);
+            Class<S> savedType = loadType(nodes);
             if(savedType != null) {
                 actualType = savedType;
             }
@@ -133,8 +221,8 @@ class NodeMapping<T> extends AbstractMapping<T> {
     }
 
     @SuppressWarnings("unchecked")
-    private <S extends T> Class<S> loadType(String path) {
-        KvNode node = getStorage().get(KvUtils.join(path, PROP_TYPE));
+    private <S extends T> Class<S> loadType(Map<String, KvNode> nodes) {
+        KvNode node = nodes.get(PROP_TYPE);
         if(node == null) {
             return null;
         }
@@ -153,15 +241,14 @@ class NodeMapping<T> extends AbstractMapping<T> {
     }
 
     @SuppressWarnings("unchecked")
-    private <S> Class<S> resolveJsonType(String path, Class<S> type) {
+    private <S> Class<S> resolveJsonType(Map<String, KvNode> nodes, Class<S> type) {
         JsonTypeInfo typeInfo = AnnotationUtils.findAnnotation(type, JsonTypeInfo.class);
         if (typeInfo == null) {
             return null;
         }
         String property = getPropertyName(typeInfo);
-        String proppath = KvUtils.join(path, property);
         try {
-            KvNode node = getStorage().get(proppath);
+            KvNode node = nodes.get(property);
             if(node == null) {
                 return null;
             }
@@ -178,7 +265,7 @@ class NodeMapping<T> extends AbstractMapping<T> {
         return null;
     }
 
-    private void saveType(String path, T object, KeyValueStorage storage) {
+    private void saveType(String path, T object, KeyValueStorage storage, KvSaveCallback callback, List<PendingWrite> writes) {
         Class<?> clazz = object.getClass();
         String name = PROP_TYPE;
         String value = clazz.getName();
@@ -192,7 +279,7 @@ class NodeMapping<T> extends AbstractMapping<T> {
             name = getPropertyName(typeInfo);
             value = getJsonType(clazz, typeInfo);
         }
-        storage.set(KvUtils.join(path, name), value);
+        write(storage, path, name, value, null, callback, writes);
     }
 
     private String getJsonType(Class<?> clazz, JsonTypeInfo typeInfo) {
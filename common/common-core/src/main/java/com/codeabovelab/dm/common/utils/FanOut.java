@@ -0,0 +1,149 @@
+/*
+ * Copyright 2016 Code Above Lab LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.codeabovelab.dm.common.utils;
+
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.concurrent.DelegatingSecurityContextCallable;
+import org.springframework.util.Assert;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+/**
+ * Call function for many keys in parallel, with deadline for whole call. Calls which are not completed before
+ * deadline are cancelled, so result contains only answers of other calls.
+ */
+@Slf4j
+public class FanOut implements AutoCloseable {
+
+    @Data
+    public static class Config {
+        /**
+         * Count of threads which do calls, it shared between all callers.
+         */
+        private int threads = 8;
+        /**
+         * Max count of calls which wait for free thread.
+         */
+        private int queueSize = 1024;
+        /**
+         * Time in seconds, after which call return results of completed calls.
+         */
+        private long deadlineSeconds = 15;
+    }
+
+    /**
+     * Answers in order of keys.
+     */
+    @Data
+    public static class Result<K, R> {
+        /**
+         * Non null answers, answers of failed and timed out calls are absent.
+         */
+        private final Map<K, R> results;
+        /**
+         * Keys whose calls does not complete before deadline.
+         */
+        private final List<K> timedOut;
+        /**
+         * Keys whose calls are failed with error, except of {@link AccessDeniedException}.
+         */
+        private final List<K> failed;
+    }
+
+    private final String name;
+    private final ExecutorService executor;
+    private final long deadline;
+
+    /**
+     * Create fan out with own executor.
+     * @param name name of threads and log messages
+     * @param config config
+     */
+    public FanOut(String name, Config config) {
+        Assert.hasText(name, "name is null or empty");
+        this.name = name;
+        this.deadline = TimeUnit.SECONDS.toMillis(config.getDeadlineSeconds());
+        this.executor = ExecutorUtils.executorBuilder()
+          .name(name)
+          .coreSize(config.getThreads())
+          .maxSize(config.getThreads())
+          .queueSize(config.getQueueSize())
+          .exceptionHandler(Throwables.uncaughtHandler(log))
+          .build();
+    }
+
+    /**
+     * Apply function to each key in parallel. Errors of calls are logged, except of {@link AccessDeniedException}.
+     * @param keys keys, must be unique
+     * @param func function which is invoked in other thread, with security context of caller
+     * @param <K> type of key
+     * @param <R> type of answer
+     * @return result, never null
+     */
+    public <K, R> Result<K, R> call(Collection<K> keys, Function<K, R> func) {
+        final long end = System.currentTimeMillis() + deadline;
+        Map<K, Future<R>> futures = new LinkedHashMap<>();
+        List<K> failed = new ArrayList<>();
+        for(K key: keys) {
+            Callable<R> task = new DelegatingSecurityContextCallable<>(() -> func.apply(key));
+            try {
+                futures.put(key, executor.submit(task));
+            } catch (RejectedExecutionException e) {
+                log.warn("{}: can not call '{}', too many calls are in progress.", name, key);
+                failed.add(key);
+            }
+        }
+        Map<K, R> results = new LinkedHashMap<>();
+        List<K> timedOut = new ArrayList<>();
+        for(Map.Entry<K, Future<R>> e: futures.entrySet()) {
+            K key = e.getKey();
+            Future<R> future = e.getValue();
+            try {
+                R res = future.get(Math.max(0, end - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                if(res != null) {
+                    results.put(key, res);
+                }
+            } catch (TimeoutException ex) {
+                future.cancel(true);
+                timedOut.add(key);
+            } catch (ExecutionException ex) {
+                Throwable cause = ex.getCause();
+                if(!(cause instanceof AccessDeniedException)) {
+                    log.warn("{}: can not call '{}' due to error: {}", name, key, cause.toString());
+                    failed.add(key);
+                }
+            } catch (InterruptedException ex) {
+                futures.values().forEach(f -> f.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted", ex);
+            }
+        }
+        if(!timedOut.isEmpty()) {
+            log.warn("{}: {} of {} calls does not complete in {} ms: {}", name, timedOut.size(), keys.size(), deadline, timedOut);
+        }
+        return new Result<>(results, timedOut, failed);
+    }
+
+    @Override
+    public void close() {
+        this.executor.shutdownNow();
+    }
+}
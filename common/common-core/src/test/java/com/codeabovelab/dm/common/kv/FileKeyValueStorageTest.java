@@ -0,0 +1,121 @@
+package com.codeabovelab.dm.common.kv;
+
+import com.codeabovelab.dm.common.utils.ExecutorUtils;
+import com.google.common.io.Files;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.*;
+
+public class FileKeyValueStorageTest {
+
+    private final File dir = Files.createTempDir();
+
+    private FileKeyValueStorage open() {
+        return FileKeyValueStorage.builder()
+          .path(dir.getPath())
+          .eventsExecutor(ExecutorUtils.DIRECT)
+          .compactThreshold(20)
+          .expirePeriod(10)
+          .build();
+    }
+
+    @Test
+    public void test() throws Exception {
+        List<KvStorageEvent> events = new ArrayList<>();
+        KvNode first;
+        try (FileKeyValueStorage kvs = open()) {
+            kvs.subscriptions().subscribeOnKey(events::add, "/root*");
+            first = kvs.set("/root/one/two", "2");
+            KvNode second = kvs.set("/root/one/two", "22");
+            assertTrue(second.getIndex() > first.getIndex());
+            assertEquals(Arrays.asList(KvStorageEvent.Crud.CREATE, KvStorageEvent.Crud.UPDATE),
+              Arrays.asList(events.get(0).getAction(), events.get(1).getAction()));
+            assertEquals("/root/one/two", events.get(1).getKey());
+            try {
+                kvs.set("/root/one/two", "222", WriteOptions.builder().prevIndex((int) first.getIndex()).build());
+                fail("Outdated index must not be accepted.");
+            } catch (RuntimeException e) {
+                // expected
+            }
+            assertEquals(Collections.singletonList("/root/one/two"), kvs.list("/root/one"));
+            assertEquals("22", kvs.getChildren("/root/one").get("two").getValue());
+            kvs.set("/root/three", "3");
+            kvs.delete("/root/three", null);
+            assertNull(kvs.get("/root/three"));
+            assertEquals(KvStorageEvent.Crud.DELETE, events.get(events.size() - 1).getAction());
+            // many updates cause compaction
+            for(int i = 0; i < 50; ++i) {
+                kvs.set("/root/counter", Integer.toString(i));
+            }
+        }
+        // append garbage as if crash happen in middle of write
+        File log = new File(dir, "kv.log");
+        try (RandomAccessFile raf = new RandomAccessFile(log, "rw")) {
+            raf.seek(raf.length());
+            raf.write(new byte[]{0, 0, 0, 42, 1, 2});
+        }
+        try (FileKeyValueStorage kvs = open()) {
+            KvNode node = kvs.get("/root/one/two");
+            assertEquals("22", node.getValue());
+            assertEquals(first.getIndex() + 1, node.getIndex());
+            assertEquals("49", kvs.get("/root/counter").getValue());
+            assertNull(kvs.get("/root/three"));
+            KvNode next = kvs.set("/root/four", "4");
+            assertTrue(next.getIndex() > kvs.get("/root/counter").getIndex());
+        }
+    }
+
+    @Test
+    public void testFailedWrite() throws Exception {
+        List<KvStorageEvent> events = new ArrayList<>();
+        FileKeyValueStorage kvs = open();
+        kvs.subscriptions().subscribeOnKey(events::add, "/root*");
+        kvs.set("/root/one", "1");
+        // closed log can not accept records
+        kvs.close();
+        try {
+            kvs.set("/root/one", "11");
+            fail("Write to closed log must fail.");
+        } catch (UncheckedIOException e) {
+            // expected
+        }
+        try {
+            kvs.delete("/root/one", null);
+            fail("Write to closed log must fail.");
+        } catch (UncheckedIOException e) {
+            // expected
+        }
+        // change which is not in log must not be visible
+        assertEquals("1", kvs.get("/root/one").getValue());
+        assertEquals(1, events.size());
+    }
+
+    @Test
+    public void testTtl() throws Exception {
+        // expiration events come from storage thread
+        List<KvStorageEvent> events = new CopyOnWriteArrayList<>();
+        try (FileKeyValueStorage kvs = open()) {
+            kvs.subscriptions().subscribeOnKey(events::add, "/ttl*");
+            kvs.set("/ttl/key", "val", WriteOptions.builder().ttl(1).build());
+            assertEquals("val", kvs.get("/ttl/key").getValue());
+            long deadline = System.currentTimeMillis() + 5_000L;
+            while(kvs.get("/ttl/key") != null && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50L);
+            }
+            assertNull(kvs.get("/ttl/key"));
+            while(events.size() < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50L);
+            }
+            assertEquals(KvStorageEvent.Crud.DELETE, events.get(1).getAction());
+        }
+    }
+}
@@ -20,6 +20,8 @@ import com.codeabovelab.dm.common.utils.ExecutorUtils;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.Collections;
+
 import static org.junit.Assert.*;
 
 /**
@@ -43,6 +45,7 @@ public class InMemoryKeyValueStorageTest {
         assertEvent(holder, KvStorageEvent.Crud.CREATE, "/root/23", "23");
         kvs.set("/root/23", "231");
         assertEvent(holder, KvStorageEvent.Crud.UPDATE, "/root/23", "231");
+        assertEquals(Collections.singletonList("/root/23"), kvs.list("/root"));
 
         kvs.set("/root/one/two/three", "something");
         kvs.delete("/root/one/two/three", null);
@@ -0,0 +1,68 @@
+package com.codeabovelab.dm.common.kv;
+
+import com.codeabovelab.dm.common.mb.ConditionalSubscriptions;
+import com.codeabovelab.dm.common.mb.MessageBus;
+import com.codeabovelab.dm.common.mb.MessageBuses;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of dispatching storage events to key subscribers, like each {@link com.codeabovelab.dm.common.kv.mapping.KvMap}
+ * does, with plain and path indexed conditional bus. Events are churned over 10k keys. <p/>
+ * It is not a test, run it manually through {@link #main(String[])}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KvBusDispatchBenchmark {
+
+    private static final int KEYS = 10_000;
+
+    @Param({"true", "false"})
+    private boolean indexed;
+
+    @Param({"16", "256"})
+    private int subscribers;
+
+    private MessageBus<String> bus;
+    private String[] keys;
+    private int counter;
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        if(indexed) {
+            bus = MessageBuses.createPathConditional("benchmark", String.class, (s) -> s, KvUtils::predicate);
+        } else {
+            bus = MessageBuses.createConditional("benchmark", String.class, (s) -> s, KvUtils::predicate);
+        }
+        @SuppressWarnings("unchecked")
+        ConditionalSubscriptions<String, String> subs = (ConditionalSubscriptions<String, String>) bus.asSubscriptions();
+        for(int i = 0; i < subscribers; ++i) {
+            subs.subscribeOnKey(blackhole::consume, "/dm/map" + i + "/");
+        }
+        keys = new String[KEYS];
+        for(int i = 0; i < KEYS; ++i) {
+            keys[i] = "/dm/map" + (i % subscribers) + "/item" + i + "/property";
+        }
+    }
+
+    @Benchmark
+    public void dispatch() {
+        bus.accept(keys[counter++ % KEYS]);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options opt = new OptionsBuilder()
+          .include(KvBusDispatchBenchmark.class.getSimpleName())
+          .build();
+        new Runner(opt).run();
+    }
+}
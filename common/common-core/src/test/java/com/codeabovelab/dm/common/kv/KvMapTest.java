@@ -30,10 +30,18 @@ import org.springframework.security.crypto.encrypt.TextEncryptor;
 
 import javax.validation.Validator;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.hamcrest.Matchers.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
 
 /**
  */
@@ -104,9 +112,114 @@ public class KvMapTest {
         Assert.assertThat(map.list(), contains(twoKey));
     }
 
+    @Test
+    public void testSkipUnchanged() throws Exception {
+        KvMap<Bean> map = KvMap.builder(Bean.class)
+          .mapper(factory())
+          .path("/test/skipped")
+          .build();
+        final String key = "one";
+        Bean one = new Bean();
+        map.put(key, one);
+        executor.flush();
+        Assert.assertEquals(0, map.getSkippedWrites());
+
+        // nothing changed, so all properties and type must be skipped
+        map.flush(key);
+        executor.flush();
+        Assert.assertEquals(3, map.getSkippedWrites());
+
+        one.setText("changed");
+        map.flush(key);
+        executor.flush();
+        Assert.assertEquals(5, map.getSkippedWrites());
+        Assert.assertTrue(one == map.get(key));
+
+        // removed value must be written again, even if it is same
+        map.remove(key);
+        Bean same = new Bean();
+        same.setText(one.getText());
+        same.setNumber(one.getNumber());
+        map.put(key, same);
+        executor.flush();
+        Assert.assertEquals(5, map.getSkippedWrites());
+        Bean loaded = map.get(key);
+        Assert.assertNotNull(loaded);
+        Assert.assertEquals(one, loaded);
+    }
+
+    @Test
+    public void testSuppressEcho() throws Exception {
+        for(boolean direct: new boolean[]{false, true}) {
+            // with direct executor events come while flush is in progress
+            KeyValueStorage storage = InMemoryKeyValueStorage.builder()
+              .eventsExecutor(direct ? ExecutorUtils.DIRECT : executor)
+              .build();
+            KvMap<Bean> map = KvMap.builder(Bean.class)
+              .mapper(factory(storage))
+              .path("/test/echo")
+              .build();
+            final String key = "one";
+            Bean one = new Bean();
+            map.put(key, one);
+            one.setText("changed");
+            map.flush(key);
+            executor.flush();
+            Assert.assertTrue(map.getSuppressedReloads() > 0);
+            Assert.assertTrue(one == map.get(key));
+
+            // change from other writer must cause reload
+            storage.set("/test/echo/one/text", "\"external\"");
+            executor.flush();
+            Assert.assertEquals("external", map.get(key).getText());
+        }
+    }
+
+    @Test
+    public void testPipelinedWrites() throws Exception {
+        InMemoryKeyValueStorage storage = spy(InMemoryKeyValueStorage.builder().eventsExecutor(executor).build());
+        List<Runnable> pending = new CopyOnWriteArrayList<>();
+        doAnswer(inv -> {
+            CompletableFuture<KvNode> future = new CompletableFuture<>();
+            pending.add(() -> future.complete(storage.set(inv.getArgumentAt(0, String.class), inv.getArgumentAt(1, String.class))));
+            return future;
+        }).when(storage).setAsync(anyString(), anyString(), any());
+        KvMap<Bean> map = KvMap.builder(Bean.class)
+          .mapper(factory(storage))
+          .path("/test/pipelined")
+          .build();
+        Bean one = new Bean();
+        CompletableFuture<Void> put = CompletableFuture.runAsync(() -> map.put("one", one));
+        // type of new object must be written before its properties
+        awaitPending(pending, 1);
+        Thread.sleep(100L);
+        Assert.assertEquals(1, pending.size());
+        pending.remove(0).run();
+        // both properties must be written before any response is received
+        awaitPending(pending, 2);
+        Assert.assertFalse(put.isDone());
+        pending.forEach(Runnable::run);
+        put.get(5, TimeUnit.SECONDS);
+        executor.flush();
+        Assert.assertTrue(one == map.get("one"));
+        Assert.assertEquals(one.getText(), storage.get("/test/pipelined/one/text").getValue().replace("\"", ""));
+    }
+
+    private static void awaitPending(List<Runnable> pending, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000L;
+        while(pending.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10L);
+        }
+        Assert.assertEquals(count, pending.size());
+    }
+
     private KvMapperFactory factory() {
+        return factory(InMemoryKeyValueStorage.builder().eventsExecutor(executor).build());
+    }
+
+    private KvMapperFactory factory(KeyValueStorage storage) {
         return new KvMapperFactory(new ObjectMapper(),
-          InMemoryKeyValueStorage.builder().eventsExecutor(executor).build(),
+          storage,
           mock(TextEncryptor.class),
           mock(Validator.class));
     }
@@ -0,0 +1,71 @@
+package com.codeabovelab.dm.common.kv.mapping;
+
+import com.codeabovelab.dm.common.kv.InMemoryKeyValueStorage;
+import com.codeabovelab.dm.common.utils.ExecutorUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Data;
+import org.junit.Test;
+import org.springframework.security.crypto.encrypt.TextEncryptor;
+
+import javax.validation.Validator;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+public class PropertyCipherTest {
+
+    @Data
+    public static class Secret {
+        @KvMapping(interceptors = PropertyCipher.class)
+        private String password;
+    }
+
+    private final ExecutorUtils.DeferredExecutor executor = ExecutorUtils.deferred();
+    private final AtomicInteger counter = new AtomicInteger();
+    // produce different ciphertext for same text, like real encryptors do
+    private final TextEncryptor encryptor = new TextEncryptor() {
+        @Override
+        public String encrypt(String text) {
+            return counter.incrementAndGet() + ":" + text;
+        }
+
+        @Override
+        public String decrypt(String encryptedText) {
+            return encryptedText.substring(encryptedText.indexOf(':') + 1);
+        }
+    };
+
+    @Test
+    public void testSkipUnchangedSecret() throws Exception {
+        InMemoryKeyValueStorage storage = InMemoryKeyValueStorage.builder().eventsExecutor(executor).build();
+        KvMap<Secret> map = KvMap.builder(Secret.class)
+          .mapper(new KvMapperFactory(new ObjectMapper(), storage, encryptor, mock(Validator.class)))
+          .path("/test/secrets")
+          .build();
+        Secret one = new Secret();
+        one.setPassword("pwd");
+        map.put("one", one);
+        Secret two = new Secret();
+        two.setPassword("pwd");
+        map.put("two", two);
+        executor.flush();
+        String first = storage.get("/test/secrets/one/password").getValue();
+        // same secrets of different objects must not be distinguishable in storage
+        assertNotEquals(first, storage.get("/test/secrets/two/password").getValue());
+        assertEquals(2, counter.get());
+
+        // unchanged secret is not encrypted and written again
+        map.flush("one");
+        executor.flush();
+        assertEquals(2, map.getSkippedWrites());
+        assertEquals(first, storage.get("/test/secrets/one/password").getValue());
+        assertEquals(2, counter.get());
+
+        one.setPassword("changed");
+        map.flush("one");
+        executor.flush();
+        assertEquals("3:\"changed\"", storage.get("/test/secrets/one/password").getValue());
+        assertEquals("changed", map.get("one").getPassword());
+    }
+}
@@ -0,0 +1,43 @@
+package com.codeabovelab.dm.common.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class FanOutTest {
+
+    @Test
+    public void test() throws Exception {
+        FanOut.Config config = new FanOut.Config();
+        config.setThreads(2);
+        config.setDeadlineSeconds(1);
+        try (FanOut fanOut = new FanOut("test", config)) {
+            long begin = System.currentTimeMillis();
+            FanOut.Result<String, String> res = fanOut.call(Arrays.asList("a", "slow", "fail", "null", "b"), item -> {
+                switch (item) {
+                    case "slow":
+                        try {
+                            Thread.sleep(10_000L);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        break;
+                    case "fail":
+                        throw new IllegalStateException(item);
+                    case "null":
+                        return null;
+                }
+                return item.toUpperCase();
+            });
+            assertTrue(System.currentTimeMillis() - begin < 5_000L);
+            assertEquals(Arrays.asList("a", "b"), new ArrayList<>(res.getResults().keySet()));
+            assertEquals(Arrays.asList("A", "B"), new ArrayList<>(res.getResults().values()));
+            assertEquals(Collections.singletonList("slow"), res.getTimedOut());
+            assertEquals(Collections.singletonList("fail"), res.getFailed());
+        }
+    }
+}
@@ -17,10 +17,28 @@
 package com.codeabovelab.dm.common.fc;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  */
 public interface FbAdapter<T> {
     byte[] serialize(T obj) throws IOException;
     T deserialize(byte[] data, int offset, int len) throws IOException;
+
+    /**
+     * Deserialize object from remaining bytes of buffer. Buffer may be a direct or mapped, so
+     * implementations should read it without copying when possible. <p/>
+     * Default implementation copy bytes into array when buffer has no accessible array.
+     * @param buffer buffer with data of object
+     * @return object
+     * @throws IOException on error
+     */
+    default T deserialize(ByteBuffer buffer) throws IOException {
+        if(buffer.hasArray()) {
+            return deserialize(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        }
+        byte[] data = new byte[buffer.remaining()];
+        buffer.get(data);
+        return deserialize(data, 0, data.length);
+    }
 }
@@ -18,10 +18,12 @@ package com.codeabovelab.dm.common.fc;
 
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
 import lombok.Data;
 import org.springframework.util.Assert;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  */
@@ -56,4 +58,13 @@ public class FbJacksonAdapter<T> implements FbAdapter<T> {
         Wrapper wrapper = objectMapper.readValue(data, offset, len, Wrapper.class);
         return type.cast(wrapper.getObject());
     }
+
+    @Override
+    public T deserialize(ByteBuffer buffer) throws IOException {
+        if(buffer.hasArray()) {
+            return FbAdapter.super.deserialize(buffer);
+        }
+        Wrapper wrapper = objectMapper.readValue(new ByteBufferBackedInputStream(buffer), Wrapper.class);
+        return type.cast(wrapper.getObject());
+    }
 }
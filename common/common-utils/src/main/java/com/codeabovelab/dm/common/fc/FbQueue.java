@@ -83,6 +83,10 @@ public final class FbQueue<E> extends AbstractQueue<E> implements FileBased {
     private final Object lock = new Object();
     private final QIndexFile indexFile;
     private final Deque<QFileHandle<E>> files = new LinkedList<>();
+    /**
+     * Count of items in all files, it modified under {@link #lock}.
+     */
+    private volatile int size;
 
     private FbQueue(Builder<E> b) {
         this.id = b.id;
@@ -111,16 +115,19 @@ public final class FbQueue<E> extends AbstractQueue<E> implements FileBased {
             try {
                 indexFile.load();
                 files = indexFile.getList();
+                int size = 0;
                 for (String fileName : files) {
                     File file = new File(this.queueDir, fileName);
-                    addFileHandle(file);
+                    size += addFileHandle(file).count();
                 }
+                this.size = size;
             } catch (FbException|IOException e) {
                 Path dir = this.queueDir.toPath();
                 log.warn("Corrupted data in \"{}\" with error: \"{}\", clear it.", dir, e.toString());
                 //corrupted data
                 this.indexFile.delete();
                 this.files.clear();
+                this.size = 0;
                 if(files != null) {
                     for(String fileName: files) {
                         try {
@@ -172,76 +179,92 @@ public final class FbQueue<E> extends AbstractQueue<E> implements FileBased {
     /**
      * Iterate from head (first added element) to tail. Iterate only over last elements. <p/>
      * For example, queue with <code>[(head) 0, 1, 2, 3, 4, 5 (tail)]</code> and <code>last=3</code> iterate over
-     * <code>[3, 4, 5 (tail)]</code>.
+     * <code>[3, 4, 5 (tail)]</code>. Note that it make snapshots only of files which contains last elements.
      * @param last count of last elements, or {@link Integer#MAX_VALUE} for all.
      * @return iterator which traverse over queue snapshot.
      */
     public Iterator<E> iterator(int last) {
-        if(last < 0) {
+        if(last <= 0) {
             return Collections.emptyIterator();
         }
         // prevent impact of modifications to iterator we use snapshots
-        int qOffset;
-        List<FbSnapshot<E>> snapshots = new ArrayList<>();
+        Deque<FbSnapshot<E>> snapshots = new ArrayDeque<>();
+        int skip = 0;
         synchronized (lock) {
-            final int size = size();
-            if(last > size) {
-                last = size;
-            }
-            qOffset = size - last;
-            for(QFileHandle<E> fh: files) {
-                int count = fh.count();
-                if(snapshots.isEmpty() && qOffset > count) {
-                    // we decrease offset before fist added snapshot only (last snapshot may be less than offset)
-                    qOffset -= count;
-                } else {
-                    snapshots.add(fh.snapshot());
+            int remain = last;
+            Iterator<QFileHandle<E>> iter = files.descendingIterator();
+            while(remain > 0 && iter.hasNext()) {
+                FbSnapshot<E> snapshot = iter.next().snapshot();
+                int count = snapshot.getCount();
+                if(count == 0) {
+                    continue;
                 }
+                snapshots.addFirst(snapshot);
+                if(count > remain) {
+                    skip = count - remain;
+                }
+                remain -= count;
             }
         }
-        final int fisrtOffset = qOffset;
-        return new Iterator<E>() {
-            final Iterator<FbSnapshot<E>> snapshotsIter = snapshots.iterator();
-            final List<E> itemsBuff = new ArrayList<>(QFileHandle.ITEMS_IN_FILE);
-            Iterator<E> iterator = Collections.emptyIterator();
-            private boolean fisrt = true;
-
-            @Override
-            public boolean hasNext() {
-                boolean hasNext = iterator.hasNext();
-                if(hasNext) {
-                    return true;
-                }
+        return new SnapshotsIterator(snapshots.iterator(), skip, false);
+    }
+
+    /**
+     * Iterate from tail (last added element) to head.
+     * @return iterator which traverse over queue snapshot.
+     */
+    public Iterator<E> descendingIterator() {
+        List<FbSnapshot<E>> snapshots = new ArrayList<>();
+        synchronized (lock) {
+            files.descendingIterator().forEachRemaining(fh -> snapshots.add(fh.snapshot()));
+        }
+        return new SnapshotsIterator(snapshots.iterator(), 0, true);
+    }
+
+    private final class SnapshotsIterator implements Iterator<E> {
+        private final Iterator<FbSnapshot<E>> snapshotsIter;
+        private final List<E> itemsBuff = new ArrayList<>(QFileHandle.ITEMS_IN_FILE);
+        private final boolean descending;
+        private Iterator<E> iterator = Collections.emptyIterator();
+        private int skip;
+
+        SnapshotsIterator(Iterator<FbSnapshot<E>> snapshotsIter, int skip, boolean descending) {
+            this.snapshotsIter = snapshotsIter;
+            this.skip = skip;
+            this.descending = descending;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while(!iterator.hasNext()) {
                 if(!snapshotsIter.hasNext()) {
                     return false;
                 }
                 FbSnapshot<E> snapshot = snapshotsIter.next();
-                int offset = 0;
-                if(fisrt) {
-                    fisrt = false;
-                    offset = fisrtOffset;
-                }
                 itemsBuff.clear();
-                snapshot.visit(offset, itemsBuff::add);
+                if(descending) {
+                    snapshot.visitDescending(itemsBuff::add);
+                } else {
+                    // skip is applied to first snapshot only
+                    snapshot.visit(skip, itemsBuff::add);
+                    skip = 0;
+                }
                 iterator = itemsBuff.iterator();
-                return iterator.hasNext();
             }
+            return true;
+        }
 
-            @Override
-            public E next() {
-                return iterator.next();
+        @Override
+        public E next() {
+            if(!hasNext()) {
+                throw new NoSuchElementException();
             }
-        };
+            return iterator.next();
+        }
     }
 
     @Override
     public int size() {
-        int size = 0;
-        synchronized (lock) {
-            for(QFileHandle<E> fh: files) {
-                size += fh.count();
-            }
-        }
         return size;
     }
 
@@ -249,21 +272,22 @@ public final class FbQueue<E> extends AbstractQueue<E> implements FileBased {
     public boolean offer(E e) {
         Assert.notNull(e, "element is null");
         synchronized (lock) {
-            int size = 0;
-            QFileHandle<E> last = null;
-            for(QFileHandle<E> fh: files) {
-                size += fh.count();
-                last = fh;
-            }
             if(size >= maxSize) {
                 return false;
             }
-            while(true) {
-                if(last != null && last.offer(e)) {
-                    return true;
-                }
-                last = allocate(last);
+            append(e);
+            return true;
+        }
+    }
+
+    private void append(E e) {
+        QFileHandle<E> last = files.peekLast();
+        while(true) {
+            if(last != null && last.offer(e)) {
+                size++;
+                return;
             }
+            last = allocate(last);
         }
     }
 
@@ -275,29 +299,19 @@ public final class FbQueue<E> extends AbstractQueue<E> implements FileBased {
     public void push(E e) {
         Assert.notNull(e, "element is null");
         synchronized (lock) {
-            int size = 0;
-            QFileHandle<E> last = null;
-            for(QFileHandle<E> fh: files) {
-                size += fh.count();
-                last = fh;
-            }
             while(size >= maxSize) {
                 poll();
-                size--;
-            }
-            while(true) {
-                if(last != null && last.offer(e)) {
-                    return;
-                }
-                last = allocate(last);
             }
+            append(e);
         }
     }
 
     @Override
     public E poll() {
         return onHead((fh) -> {
+            // head has items, so poll always decrease size
             E val = fh.poll();
+            size--;
             deallocate(fh);
             return val;
         });
@@ -22,5 +22,22 @@ import java.util.function.Consumer;
  * Snapshot whic allo readonly operation over structure. Usual it iteration (throught visitor concept).
  */
 public interface FbSnapshot<E> extends AutoCloseable {
+    /**
+     * Visit items from head to tail.
+     * @param offset count of items which must be skipped from head
+     * @param consumer consumer of items
+     */
     void visit(int offset, Consumer<E> consumer);
+
+    /**
+     * Visit items from tail to head.
+     * @param consumer consumer of items
+     */
+    void visitDescending(Consumer<E> consumer);
+
+    /**
+     * Count of items in snapshot.
+     * @return count of items
+     */
+    int getCount();
 }
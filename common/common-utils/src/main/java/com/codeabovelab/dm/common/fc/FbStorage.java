@@ -40,6 +40,22 @@ public class FbStorage {
          * path to storage
          */
         private String path;
+        /**
+         * Write only changed items of file index instead of whole index. Default true.
+         */
+        private boolean incrementalIndex = true;
+        /**
+         * Policy of forcing data to the storage device. Default {@link FbSyncMode#NONE}.
+         */
+        private FbSyncMode syncMode = FbSyncMode.NONE;
+        /**
+         * Period in milliseconds for {@link FbSyncMode#PERIODIC}. Default 1000.
+         */
+        private long syncPeriod = 1000;
+        /**
+         * Count of writes for {@link FbSyncMode#EVERY_N}. Default 100.
+         */
+        private int syncEvery = 100;
 
         public Builder maxFileSize(long maxFileSize) {
             setMaxFileSize(maxFileSize);
@@ -61,6 +77,26 @@ public class FbStorage {
             return this;
         }
 
+        public Builder incrementalIndex(boolean incrementalIndex) {
+            setIncrementalIndex(incrementalIndex);
+            return this;
+        }
+
+        public Builder syncMode(FbSyncMode syncMode) {
+            setSyncMode(syncMode);
+            return this;
+        }
+
+        public Builder syncPeriod(long syncPeriod) {
+            setSyncPeriod(syncPeriod);
+            return this;
+        }
+
+        public Builder syncEvery(int syncEvery) {
+            setSyncEvery(syncEvery);
+            return this;
+        }
+
         public FbStorage build() {
             return new FbStorage(this);
         }
@@ -69,13 +105,23 @@ public class FbStorage {
     private final long maxFileSize;
     private final int maxFiles;
     private final File storageDir;
-
+    private final boolean incrementalIndex;
+    private final FbSyncMode syncMode;
+    private final long syncPeriod;
+    private final int syncEvery;
 
     private FbStorage(Builder b) {
         this.maxFileSize = b.maxFileSize;
         Assert.isTrue(this.maxFileSize > 0, "maxFileSize is less than one");
         this.maxFiles = b.maxFiles;
         Assert.isTrue(this.maxFiles > 0, "maxFiles is less than one");
+        this.incrementalIndex = b.incrementalIndex;
+        this.syncMode = b.syncMode;
+        Assert.notNull(this.syncMode, "syncMode is null");
+        this.syncPeriod = b.syncPeriod;
+        Assert.isTrue(this.syncMode != FbSyncMode.PERIODIC || this.syncPeriod > 0, "syncPeriod is less than one");
+        this.syncEvery = b.syncEvery;
+        Assert.isTrue(this.syncMode != FbSyncMode.EVERY_N || this.syncEvery > 0, "syncEvery is less than one");
         this.storageDir = new File(b.path);
         makeAndCheckDir(this.storageDir);
     }
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2016 Code Above Lab LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.codeabovelab.dm.common.fc;
+
+/**
+ * Policy of forcing written data of file based collections to the storage device.
+ */
+public enum FbSyncMode {
+    /**
+     * Do not force, data will be flushed by OS.
+     */
+    NONE,
+    /**
+     * Force data when {@link FbStorage#getSyncPeriod()} is elapsed since last force. Note that
+     * period is checked at write, so it does not use any background threads.
+     */
+    PERIODIC,
+    /**
+     * Force data after each {@link FbStorage#getSyncEvery()} writes.
+     */
+    EVERY_N
+}
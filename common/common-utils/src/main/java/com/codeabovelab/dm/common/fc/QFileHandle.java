@@ -24,6 +24,8 @@ import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.function.Consumer;
 
 /**
@@ -54,32 +56,57 @@ final class QFileHandle<E> implements AutoCloseable {
 
     private static final int DEL_MASK = 0x80000000;
     static final int ITEMS_IN_FILE = 1024;
-    private static final int DIRTY_COUNT = -1;
     private static final byte QUEUE_TYPE = 0x00;
     private static final byte SCHEMA_VERSION = 0x01;
     private static final int INDEX_OFF = 2 + FbUtils.SIGN_LEN;
     private static final int HEADER_OFF = ITEMS_IN_FILE * 4 + INDEX_OFF;
+    /**
+     * Size of mapping is rounded up to this value.
+     */
+    private static final long MAP_STEP = 64 * 1024;
     private final FbStorage storage;
     private final File file;
     private final RandomAccessFile raf;
+    private final FileChannel channel;
     private final int[] index = new int[ITEMS_IN_FILE];
     private final ByteBuffer indexBuff = ByteBuffer.allocate(ITEMS_IN_FILE * 4).order(ByteOrder.BIG_ENDIAN);
+    private final ByteBuffer itemBuff = ByteBuffer.allocate(4).order(ByteOrder.BIG_ENDIAN);
     private final FbAdapter<E> adapter;
     private int maxItemSize = 64 /* initial number number mean nothing*/;
-    private int count = DIRTY_COUNT;
+    /**
+     * Count of not deleted items, it updated at each modification.
+     */
+    private int count;
+    /**
+     * Number of first not deleted item and its offset.
+     */
+    private int head;
+    private long headOff;
+    /**
+     * Number of first unallocated item and its offset.
+     */
     private int tail;
     private long tailOff;
+    private int unsyncedWrites;
+    /**
+     * Read only mapping of file, it used by snapshots. Note that written data never changed, therefore
+     * snapshot can read it without locks.
+     */
+    private volatile MappedByteBuffer mapped;
+    private long lastSync = System.currentTimeMillis();
 
     QFileHandle(FbStorage storage, FbAdapter<E> adapter, File file) throws IOException {
         this.storage = storage;
         this.file = file;
         this.adapter = adapter;
         this.raf = new RandomAccessFile(this.file, "rw");
+        this.channel = this.raf.getChannel();
         if(this.raf.length() == 0) {
             save();
         } else {
             load();
         }
+        scan();
     }
 
     private synchronized void load() throws IOException {
@@ -108,15 +135,61 @@ final class QFileHandle<E> implements AutoCloseable {
         this.raf.write(indexBuff.array());
     }
 
+    /**
+     * Save changed item of index. In {@link FbStorage#isIncrementalIndex() incremental} mode it write only
+     * 4 bytes of item, otherwise rewrite whole index.
+     * @param i number of item
+     * @throws IOException on io error
+     */
+    private synchronized void saveIndex(int i) throws IOException {
+        if(!storage.isIncrementalIndex()) {
+            saveIndex();
+            return;
+        }
+        itemBuff.clear();
+        itemBuff.putInt(index[i]);
+        itemBuff.flip();
+        long pos = INDEX_OFF + i * 4L;
+        while(itemBuff.hasRemaining()) {
+            pos += this.channel.write(itemBuff, pos);
+        }
+    }
+
+    /**
+     * Force written data to the storage device in accordance with {@link FbStorage#getSyncMode()}.
+     * @throws IOException on io error
+     */
+    private synchronized void sync() throws IOException {
+        switch (storage.getSyncMode()) {
+            case NONE:
+                return;
+            case PERIODIC: {
+                long now = System.currentTimeMillis();
+                if(now - lastSync < storage.getSyncPeriod()) {
+                    return;
+                }
+                lastSync = now;
+                break;
+            }
+            case EVERY_N:
+                if(++unsyncedWrites < storage.getSyncEvery()) {
+                    return;
+                }
+                unsyncedWrites = 0;
+                break;
+        }
+        this.channel.force(false);
+    }
+
     private synchronized void iterate(Visitor v) {
         //TODO we may iterate over internal snapshot, it allow us to skip lock in iteration process
-        iterate(this.index, v);
+        iterate(this.index, this.head, this.headOff, v);
     }
 
-    private static void iterate(int[] index, Visitor v) {
+    private static void iterate(int[] index, int from, long fromOff, Visitor v) {
         try {
-            int off = HEADER_OFF;
-            for(int i = 0; i < index.length; i++) {
+            int off = (int) fromOff;
+            for(int i = from; i < index.length; i++) {
                 int item = index[i];
                 int size = getSize(item);
                 if(size == 0) {
@@ -136,29 +209,41 @@ final class QFileHandle<E> implements AutoCloseable {
         }
     }
 
-    synchronized int count() {
-        //we do not use iterator for avoid object allocation
-        if(this.count == DIRTY_COUNT) {
-            int c = 0;
-            int off = HEADER_OFF;
-            this.tail = index.length;
-            for(int i = 0; i < index.length; i++) {
-                int item = index[i];
-                int size = getSize(item);
-                off += size;
-                if(isDeleted(item)) {
-                    continue;
-                }
-                if(size == 0) {
-                    // the unallocated item, mean end
-                    this.tail = i;
-                    this.tailOff = off;
-                    break;
+    /**
+     * Scan whole index for count of items, head and tail. After it we update these values at modifications.
+     */
+    private synchronized void scan() {
+        int c = 0;
+        long off = HEADER_OFF;
+        this.head = -1;
+        this.tail = index.length;
+        for(int i = 0; i < index.length; i++) {
+            int item = index[i];
+            int size = getSize(item);
+            if(size == 0) {
+                // the unallocated item, mean end
+                this.tail = i;
+                break;
+            }
+            if(!isDeleted(item)) {
+                if(this.head < 0) {
+                    this.head = i;
+                    this.headOff = off;
                 }
                 c++;
             }
-            this.count = c;
+            off += size;
         }
+        this.tailOff = off;
+        if(this.head < 0) {
+            // no items
+            this.head = this.tail;
+            this.headOff = this.tailOff;
+        }
+        this.count = c;
+    }
+
+    synchronized int count() {
         return this.count;
     }
 
@@ -167,7 +252,6 @@ final class QFileHandle<E> implements AutoCloseable {
     }
 
     synchronized boolean offer(E e) {
-        count();
         if(tail == index.length) {
             return false;
         }
@@ -176,35 +260,64 @@ final class QFileHandle<E> implements AutoCloseable {
             if(bytes == null || bytes.length == 0) {
                 throw new FbException("Adapter return null or empty buffer for: " + e);
             }
-            this.raf.seek(this.tailOff);
-            this.raf.write(bytes);
+            ByteBuffer data = ByteBuffer.wrap(bytes);
+            long pos = this.tailOff;
+            while(data.hasRemaining()) {
+                pos += this.channel.write(data, pos);
+            }
             index[tail] = bytes.length;
-            //TODO we need update runtime index only after success save
-            // for prevent index corrupt
-            saveIndex();
+            try {
+                saveIndex(tail);
+            } catch (IOException ex) {
+                // prevent index corrupt
+                index[tail] = 0;
+                throw ex;
+            }
+            sync();
         } catch (IOException ex) {
             throw new FbException(ex);
-        } finally {
-            dirty();
         }
+        // we do not move head because it point to tail when file is empty
+        this.tail++;
+        this.tailOff += index[tail - 1];
+        this.count++;
         return true;
     }
 
-    private void dirty() {
-        this.count = DIRTY_COUNT;
-    }
-
     synchronized E poll() {
-        PeekVisitor v = new PeekVisitor();
-        iterate(v);
-        v.remove();
-        return v.getValue();
+        E value = peek();
+        if(this.count == 0) {
+            return value;
+        }
+        int size = getSize(index[head]);
+        Assert.isTrue(!isDeleted(index[head]), "value already deleted");
+        index[head] |= DEL_MASK;
+        try {
+            saveIndex(head);
+            sync();
+        } catch (IOException e) {
+            throw new FbException(e);
+        }
+        this.count--;
+        // deletion is made only at head, therefore next item is not deleted or unallocated
+        this.head++;
+        this.headOff += size;
+        return value;
     }
 
     synchronized E peek() {
-        PeekVisitor v = new PeekVisitor();
-        iterate(v);
-        return v.getValue();
+        if(this.count == 0) {
+            return null;
+        }
+        int size = getSize(index[head]);
+        try {
+            byte[] buff = new byte[size];
+            this.raf.seek(headOff);
+            this.raf.readFully(buff);
+            return adapter.deserialize(buff, 0, size);
+        } catch (IOException e) {
+            throw new FbException(e);
+        }
     }
 
     @Override
@@ -229,79 +342,110 @@ final class QFileHandle<E> implements AutoCloseable {
     }
 
     public void remove() {
+        // mapping will be released by GC, snapshots may still use it
+        this.mapped = null;
         Closeables.close(raf);
         file.delete();
     }
 
-    private class PeekVisitor implements Visitor {
-
-        private E value;
-        private int i;
-
-        @Override
-        public boolean visit(int i, int size, int offset) throws IOException {
-            this.i = i;
-            byte[]  buff = new byte[size];
-            raf.seek(offset);
-            raf.readFully(buff);
-            this.value = adapter.deserialize(buff, 0, size);
-            return false;
-        }
+    String getFileName() {
+        return this.file.getName();
+    }
 
-        public E getValue() {
-            return value;
-        }
+    public FbSnapshot<E> snapshot() {
+        return new QFileHandleSnapshot();
+    }
 
-        public void remove() {
-            Assert.isTrue(!isDeleted(index[i]), "value already deleted");
-            index[i] |= DEL_MASK;
-            dirty();
+    /**
+     * Gives read only mapping which contains data at least up to specified offset.
+     * @param end end of data
+     * @return mapped buffer
+     */
+    private synchronized ByteBuffer map(long end) {
+        MappedByteBuffer mb = this.mapped;
+        if(mb == null || mb.capacity() < end) {
+            // we map with reserve, so snapshots made after next writes reuse this mapping, note that old mapping
+            // is released only by GC, therefore remapping at each write is expensive
             try {
-                saveIndex();
+                long size = Math.max(end, this.channel.size());
+                if(mb != null) {
+                    size = Math.max(size, mb.capacity() + mb.capacity() / 2L);
+                }
+                size = Math.min(Integer.MAX_VALUE, (size + MAP_STEP - 1) / MAP_STEP * MAP_STEP);
+                // channel is writable, so mapping extends file by zeros, it is safe because index define data bounds
+                mb = this.mapped = this.channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
             } catch (IOException e) {
                 throw new FbException(e);
             }
         }
-    }
-
-    String getFileName() {
-        return this.file.getName();
-    }
-
-    public FbSnapshot<E> snapshot() {
-        return new QFileHandleSnapshot();
+        return mb.duplicate();
     }
 
     class QFileHandleSnapshot implements FbSnapshot<E> {
         private final int[] index = new int[ITEMS_IN_FILE];
         private final int count;
-        private final int tail;
-        private final long tailOff;
-        private final int maxItemSize;
+        private final int head;
+        private final long headOff;
+        private final ByteBuffer data;
 
         QFileHandleSnapshot() {
             synchronized (QFileHandle.this) {
                 System.arraycopy(QFileHandle.this.index, 0, this.index, 0, QFileHandle.this.index.length);
-                this.maxItemSize = QFileHandle.this.maxItemSize;
-                this.count = QFileHandle.this.count();
-                this.tail = QFileHandle.this.tail;
-                this.tailOff = QFileHandle.this.tailOff;
+                this.count = QFileHandle.this.count;
+                this.head = QFileHandle.this.head;
+                this.headOff = QFileHandle.this.headOff;
+                this.data = map(QFileHandle.this.tailOff);
             }
         }
 
         @Override
         public void visit(int offset, Consumer<E> consumer) {
-            ReadVisitor rv = new ReadVisitor(consumer);
-            rv.setStart(offset);
-            QFileHandle.iterate(index, rv);
+            int[] skip = new int[]{offset};
+            QFileHandle.iterate(index, head, headOff, (i, size, off) -> {
+                if(skip[0] > 0) {
+                    skip[0]--;
+                    return true;
+                }
+                consumer.accept(read(off, size));
+                return true;
+            });
+        }
+
+        @Override
+        public void visitDescending(Consumer<E> consumer) {
+            int[] offsets = new int[count];
+            int[] sizes = new int[count];
+            int[] num = new int[1];
+            QFileHandle.iterate(index, head, headOff, (i, size, off) -> {
+                offsets[num[0]] = off;
+                sizes[num[0]] = size;
+                num[0]++;
+                return true;
+            });
+            try {
+                for(int i = num[0] - 1; i >= 0; --i) {
+                    consumer.accept(read(offsets[i], sizes[i]));
+                }
+            } catch (IOException e) {
+                throw new FbException(e);
+            }
+        }
+
+        private E read(int offset, int size) throws IOException {
+            ByteBuffer bb = data.duplicate();
+            bb.limit(offset + size);
+            bb.position(offset);
+            return adapter.deserialize(bb.slice());
+        }
+
+        @Override
+        public int getCount() {
+            return count;
         }
 
         @Override
         public void close() throws Exception {
-            /*
-            TODO we must record snapshots in file handle, and raise warning at closing handle with unclosed
-               snapshots, because snapshot does not work correct after closing handle.
-             */
+            // snapshot use mapping of file, so it work even after closing handle
         }
     }
 
@@ -309,26 +453,14 @@ final class QFileHandle<E> implements AutoCloseable {
 
         private final Consumer<E> consumer;
         byte[]  buff;
-        int start;
 
         public ReadVisitor(Consumer<E> consumer) {
             this.consumer = consumer;
             buff = new byte[maxItemSize];
         }
 
-        /**
-         * index which reading will start
-         * @param start
-         */
-        public void setStart(int start) {
-            this.start = start;
-        }
-
         @Override
         public boolean visit(int i, int size, int offset) throws IOException {
-            if(i < this.start) {
-                return true;
-            }
             if(size > buff.length) {
                 buff = new byte[maxItemSize = size];
             }
@@ -19,11 +19,19 @@ package com.codeabovelab.dm.common.mb;
 import com.codeabovelab.dm.common.utils.Closeables;
 import com.codeabovelab.dm.common.utils.Key;
 
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.function.BiPredicate;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
 /**
+ * Wrapper which allow subscription on specified keys. <p/>
+ * By default each key consumer is subscribed to underlying bus and check key of each message. Wrapper created
+ * by {@link #pathIndexed(Subscriptions, Function, BiPredicate)} store key consumers in trie of paths, so message
+ * is passed only to consumers which keys may match it.
  */
 public final class ConditionalMessageBusWrapper<M, K> implements ConditionalSubscriptions<M, K> {
     final class ConditionalConsumer implements Consumer<M>, WrappedConsumer<M> {
@@ -39,6 +47,10 @@ public final class ConditionalMessageBusWrapper<M, K> implements ConditionalSubs
         @Override
         public void accept(M m) {
             K currentKey = keyExtractor.apply(m);
+            accept(m, currentKey);
+        }
+
+        void accept(M m, K currentKey) {
             if(!predicate.test(key, currentKey)) {
                 return;
             }
@@ -55,22 +67,123 @@ public final class ConditionalMessageBusWrapper<M, K> implements ConditionalSubs
             Closeables.closeIfCloseable(consumer);
         }
     }
+
+    /**
+     * Single consumer of underlying bus, which dispatch messages to indexed consumers.
+     */
+    private final class Dispatcher implements Consumer<M>, AutoCloseable {
+
+        @Override
+        public void accept(M m) {
+            K currentKey = keyExtractor.apply(m);
+            List<ConditionalConsumer> matched = new ArrayList<>();
+            index.visit(toPath(currentKey), matched::add);
+            RuntimeException ex = null;
+            for(int i = 0; i < matched.size(); ++i) {
+                try {
+                    matched.get(i).accept(m, currentKey);
+                } catch (RuntimeException e) {
+                    // we must not break other consumers
+                    if(ex == null) {
+                        ex = e;
+                    } else {
+                        ex.addSuppressed(e);
+                    }
+                }
+            }
+            if(ex != null) {
+                throw ex;
+            }
+        }
+
+        @Override
+        public void close() throws Exception {
+            synchronized (index) {
+                index.clear(Closeables::closeIfCloseable);
+                indexed.clear();
+            }
+        }
+    }
+
     private final Subscriptions<M> subscriptions;
     private final Function<M, K> keyExtractor;
     private final BiPredicate<K, K> predicate;
+    private final Function<K, String> pathFunction;
+    private final PathIndex<ConditionalConsumer> index;
+    /**
+     * Indexed consumers, guarded by {@link #index}
+     */
+    private final Map<Consumer<M>, ConditionalConsumer> indexed;
+    private final Dispatcher dispatcher;
 
     public ConditionalMessageBusWrapper(Subscriptions<M> subscriptions,
                                  Function<M, K> keyExtractor,
                                  BiPredicate<K, K> predicate) {
+        this(subscriptions, keyExtractor, predicate, null);
+    }
+
+    private ConditionalMessageBusWrapper(Subscriptions<M> subscriptions,
+                                 Function<M, K> keyExtractor,
+                                 BiPredicate<K, K> predicate,
+                                 Function<K, String> pathFunction) {
         this.subscriptions = subscriptions;
         this.keyExtractor = keyExtractor;
         this.predicate = predicate;
+        this.pathFunction = pathFunction;
+        if(pathFunction != null) {
+            this.index = new PathIndex<>('/');
+            this.indexed = new IdentityHashMap<>();
+            this.dispatcher = new Dispatcher();
+        } else {
+            this.index = null;
+            this.indexed = null;
+            this.dispatcher = null;
+        }
+    }
+
+    /**
+     * Create wrapper which store key consumers in trie of '/' separated paths. It can be used only when predicate
+     * match key to pattern which is its prefix, ignoring part after last slash of pattern, like
+     * <code>KvUtils.predicate</code>.
+     * @param subscriptions underlying subscriptions
+     * @param keyExtractor function which is produce key from message
+     * @param predicate predicate which is accept pattern and key from keyExtractor
+     * @param <M> type of message
+     * @return wrapper
+     */
+    public static <M> ConditionalMessageBusWrapper<M, String> pathIndexed(Subscriptions<M> subscriptions,
+                                                                          Function<M, String> keyExtractor,
+                                                                          BiPredicate<String, String> predicate) {
+        return new ConditionalMessageBusWrapper<>(subscriptions, keyExtractor, predicate, Function.identity());
+    }
+
+    private String toPath(K key) {
+        return key == null? "" : pathFunction.apply(key);
     }
 
     @Override
     public void subscribeOnKey(Consumer<M> listener, K key) {
         ConditionalConsumer cc = new ConditionalConsumer(key, listener);
-        this.subscriptions.subscribe(cc);
+        if(index == null) {
+            this.subscriptions.subscribe(cc);
+            return;
+        }
+        synchronized (index) {
+            if(indexed.containsKey(listener)) {
+                return;
+            }
+            indexed.put(listener, cc);
+            index.add(toPath(key), cc);
+            if(index.size() == 1) {
+                this.subscriptions.subscribe(dispatcher);
+            }
+        }
+    }
+
+    @Override
+    public Subscription openSubscriptionOnKey(Consumer<M> listener, K key) {
+        subscribeOnKey(listener, key);
+        return new SubscriptionImpl<>(this, listener);
     }
 
     @Override
@@ -85,9 +198,20 @@ public final class ConditionalMessageBusWrapper<M, K> implements ConditionalSubs
 
     @Override
     public void unsubscribe(Consumer<M> listener) {
+        if(index != null) {
+            synchronized (index) {
+                ConditionalConsumer cc = indexed.remove(WrappedConsumer.unwrap(listener));
+                if(cc != null) {
+                    index.remove(toPath(cc.key), cc);
+                    if(index.size() == 0) {
+                        this.subscriptions.unsubscribe(dispatcher);
+                    }
+                    return;
+                }
+            }
+        }
         subscriptions.unsubscribe(listener);
     }
-
     @Override
     public String getId() {
         return subscriptions.getId();
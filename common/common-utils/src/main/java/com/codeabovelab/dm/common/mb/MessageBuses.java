@@ -73,4 +73,23 @@ public final class MessageBuses {
           (s) -> new ConditionalMessageBusWrapper(s, keyExtractor, predicate)
         ).id(id).build();
     }
+
+    /**
+     * Create bus like {@link #createConditional(String, Class, Function, BiPredicate)}, but subscriptions on keys
+     * are stored in trie of paths, so message is passed only to subscribers which keys may match it.
+     * @see ConditionalMessageBusWrapper#pathIndexed(Subscriptions, Function, BiPredicate)
+     * @param id name of bus
+     * @param type type of message
+     * @param keyExtractor function which is produce path from message
+     * @param predicate predicate which is accept pattern and path, see {@link ConditionalMessageBusWrapper#pathIndexed(Subscriptions, Function, BiPredicate)}
+     *                  for requirements
+     * @param <M> type of message
+     * @return
+     */
+    public static <M> MessageBus<M> createPathConditional(String id, Class<M> type, Function<M, String> keyExtractor,
+                                                          BiPredicate<String, String> predicate) {
+        return MessageBusImpl.<M, ConditionalSubscriptions<M, String>>builder(type,
+          (s) -> ConditionalMessageBusWrapper.pathIndexed(s, keyExtractor, predicate)
+        ).id(id).build();
+    }
 }
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2016 Code Above Lab LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.codeabovelab.dm.common.mb;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Trie of values, which is bound to paths like '/a/b/'. Value of pattern is stored at node of segments before its
+ * last separator: '/a/b/' and '/a/b/*' are stored at '/a/b', while '/a/b' and '/a/bc*' at '/a'. Visiting of path
+ * walks all nodes from root to path, therefore it return values of all patterns which may match the path, and
+ * caller must check each of them. <p/>
+ * Modifications must be synchronized by caller, but visiting is thread safe and does not require locks.
+ */
+final class PathIndex<T> {
+
+    private static final class Node<T> {
+        private final Map<String, Node<T>> children = new ConcurrentHashMap<>();
+        private volatile List<T> values = Collections.emptyList();
+
+        boolean isEmpty() {
+            return values.isEmpty() && children.isEmpty();
+        }
+    }
+
+    private final char separator;
+    private final Node<T> root = new Node<>();
+    private int size;
+
+    PathIndex(char separator) {
+        this.separator = separator;
+    }
+
+    void add(String pattern, T value) {
+        Node<T> node = root;
+        int end = pattern.lastIndexOf(separator);
+        int start = 0;
+        while(start < end) {
+            int next = nextSeparator(pattern, start, end);
+            String segment = pattern.substring(start, next);
+            node = node.children.computeIfAbsent(segment, (k) -> new Node<>());
+            start = next + 1;
+        }
+        List<T> values = new ArrayList<>(node.values.size() + 1);
+        values.addAll(node.values);
+        values.add(value);
+        node.values = Collections.unmodifiableList(values);
+        size++;
+    }
+
+    boolean remove(String pattern, T value) {
+        int end = pattern.lastIndexOf(separator);
+        return remove(root, pattern, 0, end, value);
+    }
+
+    private boolean remove(Node<T> node, String pattern, int start, int end, T value) {
+        if(start >= end) {
+            List<T> values = new ArrayList<>(node.values);
+            if(!values.remove(value)) {
+                return false;
+            }
+            node.values = values.isEmpty()? Collections.emptyList() : Collections.unmodifiableList(values);
+            size--;
+            return true;
+        }
+        int next = nextSeparator(pattern, start, end);
+        String segment = pattern.substring(start, next);
+        Node<T> child = node.children.get(segment);
+        if(child == null || !remove(child, pattern, next + 1, end, value)) {
+            return false;
+        }
+        if(child.isEmpty()) {
+            node.children.remove(segment);
+        }
+        return true;
+    }
+
+    /**
+     * Pass to consumer all values which patterns may match to specified path.
+     * @param path path
+     * @param consumer consumer of values
+     */
+    void visit(String path, Consumer<T> consumer) {
+        Node<T> node = root;
+        int len = path.length();
+        int start = 0;
+        while(true) {
+            node.values.forEach(consumer);
+            if(start > len || node.children.isEmpty()) {
+                return;
+            }
+            int next = nextSeparator(path, start, len);
+            node = node.children.get(path.substring(start, next));
+            if(node == null) {
+                return;
+            }
+            start = next + 1;
+        }
+    }
+
+    private int nextSeparator(String str, int from, int end) {
+        int next = str.indexOf(separator, from);
+        return (next < 0 || next > end)? end : next;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear(Consumer<T> consumer) {
+        clear(root, consumer);
+        size = 0;
+    }
+
+    private void clear(Node<T> node, Consumer<T> consumer) {
+        node.values.forEach(consumer);
+        node.values = Collections.emptyList();
+        node.children.values().forEach(n -> clear(n, consumer));
+        node.children.clear();
+    }
+}
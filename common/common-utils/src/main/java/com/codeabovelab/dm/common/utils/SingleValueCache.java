@@ -17,16 +17,23 @@
 package com.codeabovelab.dm.common.utils;
 
 import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
 
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Supplier;
 
 /**
- * Provide cache of single value.
- *
+ * Provide cache of single value. <p/>
+ * Actual value is read without locking, supplier is invoked under lock, so only one thread loads value at time.
+ * When {@link Builder#refreshAsync(Executor)} is set, expired value is served to readers while it is refreshed
+ * in background.
  */
+@Slf4j
 public class SingleValueCache<T> implements Supplier<T> {
 
     public enum NullStrategy {
@@ -49,7 +56,12 @@ public class SingleValueCache<T> implements Supplier<T> {
     public static class Builder<T> {
         private final Supplier<T> supplier;
         private long timeAfterWrite;
-        private NullStrategy nullStrategy;
+        private NullStrategy nullStrategy = NullStrategy.DENY;
+        /**
+         * Executor for refreshing of expired value. When it is set, {@link #get()} return expired value and
+         * schedule its refreshing, instead of waiting for supplier.
+         */
+        private Executor refreshExecutor;
 
         Builder(Supplier<T> supplier) {
             this.supplier = supplier;
@@ -70,23 +82,82 @@ public class SingleValueCache<T> implements Supplier<T> {
             return this;
         }
 
+        /**
+         * Serve expired value and refresh it in specified executor. Value which is absent or invalidated
+         * is loaded synchronously as usual.
+         * @param executor executor for supplier
+         * @return this
+         */
+        public Builder<T> refreshAsync(Executor executor) {
+            setRefreshExecutor(executor);
+            return this;
+        }
+
         public SingleValueCache<T> build() {
             return new SingleValueCache<>(this);
         }
     }
+
+    /**
+     * Counters of cache usage.
+     */
+    @Data
+    public static class Statistics {
+        /**
+         * Count of gets which return actual value.
+         */
+        private final long hits;
+        /**
+         * Count of gets which wait for loading of value.
+         */
+        private final long misses;
+        /**
+         * Count of gets which return expired value while it is refreshed.
+         */
+        private final long staleHits;
+        private final long loads;
+        private final long loadFailures;
+        /**
+         * Summary time of loads in milliseconds.
+         */
+        private final long loadTime;
+    }
+
+    /**
+     * Value with its write time, it replaced at once, so readers always see consistent pair.
+     */
+    private static final class Entry {
+        private final Object value;
+        private final long writeTime;
+
+        Entry(Object value, long writeTime) {
+            this.value = value;
+            this.writeTime = writeTime;
+        }
+    }
+
     private static final Object NULL = new Object();
+    private static final Entry EMPTY = new Entry(null, 0L);
     private final Supplier<T> supplier;
-    private volatile Object value;
+    private volatile Entry entry = EMPTY;
     private volatile Object oldValue;
-    private volatile long writeTime;
     private final Lock lock = new ReentrantLock();
     private final long taw;
     private final NullStrategy nullStrategy;
+    private final Executor refreshExecutor;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong staleHits = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong loadFailures = new AtomicLong();
+    private final AtomicLong loadTime = new AtomicLong();
 
     private SingleValueCache(Builder<T> builder) {
         this.supplier = builder.supplier;
         this.taw = builder.timeAfterWrite;
         this.nullStrategy = builder.nullStrategy;
+        this.refreshExecutor = builder.refreshExecutor;
     }
 
     public static <T> Builder<T> builder(Supplier<T> supplier) {
@@ -95,6 +166,17 @@ public class SingleValueCache<T> implements Supplier<T> {
 
     @Override
     public T get() {
+        Entry e = this.entry;
+        if(isActual(e, System.currentTimeMillis())) {
+            hits.incrementAndGet();
+            return convert(e.value);
+        }
+        if(refreshExecutor != null && e.value != null && e.writeTime != 0L) {
+            staleHits.incrementAndGet();
+            scheduleRefresh();
+            return convert(e.value);
+        }
+        misses.incrementAndGet();
         lock.lock();
         try {
             return loadIfNeed();
@@ -103,20 +185,41 @@ public class SingleValueCache<T> implements Supplier<T> {
         }
     }
 
+    private void scheduleRefresh() {
+        if(!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    lock.lock();
+                    try {
+                        loadIfNeed();
+                    } finally {
+                        lock.unlock();
+                    }
+                } catch (Exception e) {
+                    log.error("Can not refresh value from '{}'", supplier, e);
+                } finally {
+                    refreshing.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            refreshing.set(false);
+            throw e;
+        }
+    }
+
     /**
      * Get actual value if it present, otherwise return null.
      * @return actual value or null
      */
     public T getOrNull() {
-        lock.lock();
-        try {
-            if(hasActualValue(System.currentTimeMillis())) {
-                return convert(value);
-            }
-            return null;
-        } finally {
-            lock.unlock();
+        Entry e = this.entry;
+        if(isActual(e, System.currentTimeMillis())) {
+            return convert(e.value);
         }
+        return null;
     }
 
     /**
@@ -124,12 +227,15 @@ public class SingleValueCache<T> implements Supplier<T> {
      * @return previous value or null
      */
     public T getOldValue() {
-        lock.lock();
-        try {
-            return convert(oldValue);
-        } finally {
-            lock.unlock();
-        }
+        return convert(oldValue);
+    }
+
+    /**
+     * Counters of this cache.
+     * @return statistics, never null
+     */
+    public Statistics getStatistics() {
+        return new Statistics(hits.get(), misses.get(), staleHits.get(), loads.get(), loadFailures.get(), loadTime.get());
     }
 
     @SuppressWarnings("unchecked")
@@ -142,37 +248,72 @@ public class SingleValueCache<T> implements Supplier<T> {
 
     private T loadIfNeed() {
         long time = System.currentTimeMillis();
-        if(hasActualValue(time)) {
-            return convert(value);
+        Entry e = this.entry;
+        if(isActual(e, time)) {
+            return convert(e.value);
         }
-        writeTime = time;
-        oldValue = value;
-        value = supplier.get();
-        if(value == null) {
-            switch (nullStrategy) {
-                case ALLOW:
-                    value = NULL;
-                    break;
-                case DIRTY:
-                    break;
-                case DENY:
-                    throw new IllegalArgumentException("Supplier '" + supplier + "' return null value");
-            }
+        loads.incrementAndGet();
+        // supplier may use old value, for example for incremental update
+        this.oldValue = e.value;
+        T value;
+        try {
+            value = supplier.get();
+        } catch (RuntimeException ex) {
+            loadFailures.incrementAndGet();
+            throw ex;
+        } finally {
+            loadTime.addAndGet(System.currentTimeMillis() - time);
         }
-        return convert(value);
+        return convert(write(value, time));
     }
 
-    private boolean hasActualValue(long time) {
-        return value != null && writeTime + taw >= time;
+    /**
+     * Must be invoked under lock.
+     */
+    private Object write(T value, long time) {
+        Object stored = value == null ? applyNullStrategy() : value;
+        this.entry = new Entry(stored, time);
+        return stored;
+    }
+
+    private Object applyNullStrategy() {
+        switch (nullStrategy) {
+            case ALLOW:
+                return NULL;
+            case DIRTY:
+                return null;
+            case DENY:
+            default:
+                throw new IllegalArgumentException("Supplier '" + supplier + "' return null value");
+        }
+    }
+
+    private boolean isActual(Entry e, long time) {
+        // compare by difference, because sum overflows when ttl is Long.MAX_VALUE
+        return e.value != null && e.writeTime != 0L && time - e.writeTime <= taw;
+    }
+
+    /**
+     * Put value into cache, as if it was loaded by supplier. It useful when value is loaded asynchronously.
+     * @param value value, null is handled by null strategy
+     */
+    public void put(T value) {
+        lock.lock();
+        try {
+            this.oldValue = this.entry.value;
+            write(value, System.currentTimeMillis());
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
-     * Mark cache as invalid. Next call of {@link #get()} will load new value.
+     * Mark cache as invalid. Next call of {@link #get()} will load new value, even when async refresh is enabled.
      */
     public void invalidate() {
         lock.lock();
         try {
-            writeTime = 0L;
+            this.entry = new Entry(this.entry.value, 0L);
         } finally {
             lock.unlock();
         }
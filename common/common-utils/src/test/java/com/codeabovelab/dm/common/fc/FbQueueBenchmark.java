@@ -0,0 +1,85 @@
+package com.codeabovelab.dm.common.fc;
+
+import com.codeabovelab.dm.common.utils.OSUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushes per second into {@link FbQueue} with whole and incremental index writes. Queue is filled at setup,
+ * so each push also remove head, cost of push must not depend on {@link #maxSize}. <p/>
+ * It is not a test, run it manually through {@link #main(String[])}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FbQueueBenchmark {
+
+    private static final FbAdapter<String> ADAPTER = new FbAdapter<String>() {
+        @Override
+        public byte[] serialize(String obj) {
+            return obj.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String deserialize(byte[] data, int offset, int len) {
+            return new String(data, offset, len, StandardCharsets.UTF_8);
+        }
+    };
+
+    @Param({"true", "false"})
+    private boolean incrementalIndex;
+
+    @Param({"NONE", "EVERY_N"})
+    private FbSyncMode syncMode;
+
+    @Param({"2000", "20000", "200000"})
+    private int maxSize;
+
+    private final String rootDir = OSUtils.getTempDir() + "/" + getClass().getName();
+    private FbQueue<String> queue;
+    private int counter;
+
+    @Setup
+    public void setup() {
+        FbStorage storage = FbStorage.builder()
+          .path(rootDir)
+          .incrementalIndex(incrementalIndex)
+          .syncMode(syncMode)
+          .build();
+        queue = FbQueue.builder(ADAPTER)
+          .id("benchmark")
+          .maxSize(maxSize)
+          .storage(storage)
+          .build();
+        while(queue.size() < maxSize) {
+            push();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        queue.close();
+        FbUtils.clearDir(Paths.get(rootDir));
+    }
+
+    @Benchmark
+    public void push() {
+        queue.push("{\"item\":" + (counter++) + ",\"text\":\"some benchmark data\"}");
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options opt = new OptionsBuilder()
+          .include(FbQueueBenchmark.class.getSimpleName())
+          .build();
+        new Runner(opt).run();
+    }
+}
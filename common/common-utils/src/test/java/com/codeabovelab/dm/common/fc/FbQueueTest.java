@@ -292,6 +292,21 @@ public class FbQueueTest {
         assertIterator(queue, Integer.MAX_VALUE, 0);
         assertIterator(queue, 1000, 2000);
         assertEquals(queueSize, queue.size());
+        // removed items at head must not affect offset
+        final int polled = 100;
+        for(int i = 0; i < polled; ++i) {
+            queue.poll();
+        }
+        assertIterator(queue, 1000, 2000);
+        assertIterator(queue, 2050, 950);
+        assertIterator(queue, Integer.MAX_VALUE, polled);
+        Iterator<String> iter = queue.descendingIterator();
+        int i = queueSize;
+        while(iter.hasNext()) {
+            i--;
+            assertEquals("<" + i + ">", iter.next());
+        }
+        assertEquals(polled, i);
     }
 
     private void assertIterator(FbQueue<String> queue, int last, int first) {
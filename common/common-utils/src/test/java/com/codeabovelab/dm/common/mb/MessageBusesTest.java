@@ -55,6 +55,44 @@ public class MessageBusesTest {
         }
     }
 
+    @Test
+    public void testPathConditional() throws Exception {
+        MessageBus<String> bus = MessageBuses.createPathConditional("paths", String.class, (s) -> s, (p, k) -> k.startsWith(p));
+        @SuppressWarnings("unchecked")
+        ConditionalSubscriptions<String, String> subs = (ConditionalSubscriptions<String, String>) bus.asSubscriptions();
+        ValueHolder<String> all = new ValueHolder<>();
+        ValueHolder<String> a = new ValueHolder<>();
+        ValueHolder<String> ab = new ValueHolder<>();
+        ValueHolder<String> abc = new ValueHolder<>();
+        ValueHolder<String> partial = new ValueHolder<>();
+        subs.subscribe(all);
+        subs.subscribeOnKey(a, "/a/");
+        subs.subscribeOnKey(ab, "/a/b/");
+        subs.subscribeOnKey(partial, "/a/b");
+        try(Subscription subscription = subs.openSubscriptionOnKey(abc, "/a/b/c/")) {
+            bus.accept("/a/b/c/d");
+            Assert.assertEquals("/a/b/c/d", abc.getValue());
+            bus.accept("/a/bc");
+            bus.accept("/x/b/c");
+        }
+        bus.accept("/a/b/c/e");
+        Assert.assertEquals(4, all.getInvocations());
+        Assert.assertEquals(3, a.getInvocations());
+        Assert.assertEquals(2, ab.getInvocations());
+        Assert.assertEquals(1, abc.getInvocations());
+        Assert.assertEquals(3, partial.getInvocations());
+        Assert.assertEquals("/a/b/c/e", partial.getValue());
+
+        subs.unsubscribe(ab);
+        subs.unsubscribe(a);
+        subs.unsubscribe(partial);
+        bus.accept("/a/b/c");
+        Assert.assertEquals(2, ab.getInvocations());
+        Assert.assertEquals(5, all.getInvocations());
+        subs.unsubscribe(all);
+        Assert.assertTrue(bus.isEmpty());
+    }
+
     private static class ValueHolder<T> implements Consumer<T> {
         private int invocations = 0;
         private T value;
@@ -0,0 +1,56 @@
+package com.codeabovelab.dm.common.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class SingleValueCacheTest {
+
+    @Test
+    public void testSync() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+        SingleValueCache<Integer> cache = SingleValueCache.builder(counter::incrementAndGet)
+          .timeAfterWrite(Long.MAX_VALUE)
+          .build();
+        assertNull(cache.getOrNull());
+        assertEquals((Integer) 1, cache.get());
+        assertEquals((Integer) 1, cache.get());
+        cache.invalidate();
+        assertNull(cache.getOrNull());
+        assertEquals((Integer) 2, cache.get());
+        assertEquals((Integer) 1, cache.getOldValue());
+        SingleValueCache.Statistics stats = cache.getStatistics();
+        assertEquals(2, stats.getLoads());
+        assertEquals(1, stats.getHits());
+        assertEquals(2, stats.getMisses());
+    }
+
+    @Test
+    public void testRefreshAsync() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+        List<Runnable> tasks = new ArrayList<>();
+        SingleValueCache<Integer> cache = SingleValueCache.builder(counter::incrementAndGet)
+          .timeAfterWrite(0L)
+          .refreshAsync(tasks::add)
+          .build();
+        // absent value is loaded synchronously
+        assertEquals((Integer) 1, cache.get());
+        Thread.sleep(2L);
+        // expired value is served, and only one refresh is scheduled
+        assertEquals((Integer) 1, cache.get());
+        assertEquals((Integer) 1, cache.get());
+        assertEquals(1, tasks.size());
+        tasks.remove(0).run();
+        Thread.sleep(2L);
+        assertEquals((Integer) 2, cache.get());
+        assertEquals(1, tasks.size());
+        cache.invalidate();
+        // invalidated value must not be served
+        assertEquals((Integer) 3, cache.get());
+        assertEquals(3, cache.getStatistics().getStaleHits());
+    }
+}
@@ -70,6 +70,7 @@ public class ChunkedInputStream<T> extends InputStream {
      * we can use lock only for 'read' methods, other uses may produce deadlocks
      */
     private final Lock lock = new ReentrantLock();
+    private volatile Runnable listener;
 
 
     public ChunkedInputStream(Adapter<T> adapter) {
@@ -84,6 +85,7 @@ public class ChunkedInputStream<T> extends InputStream {
         Assert.notNull(chunk, "chunk can't be null");
         this.adapter.onAdd(chunk);
         queue.add(chunk);
+        notifyListener();
     }
 
     /**
@@ -92,6 +94,23 @@ public class ChunkedInputStream<T> extends InputStream {
     public void end() {
         //we allow many many ends, but only first is meaning
         this.queue.add(END);
+        notifyListener();
+    }
+
+    /**
+     * Set listener which is invoked after each added chunk and after end of stream. Listener is called
+     * from the thread which add chunks (usually it is an IO thread), therefore it must not block.
+     * @param listener listener or null
+     */
+    public void setListener(Runnable listener) {
+        this.listener = listener;
+    }
+
+    private void notifyListener() {
+        Runnable listener = this.listener;
+        if(listener != null) {
+            listener.run();
+        }
     }
 
     public boolean isClosed() {
@@ -138,6 +157,43 @@ public class ChunkedInputStream<T> extends InputStream {
         }
     }
 
+    /**
+     * Read bytes which is available now, without waiting of new chunks. Usually used with {@link #setListener(Runnable)}.
+     * @param      b     the buffer into which the data is read.
+     * @param      off   the start offset in array <code>b</code>
+     *                   at which the data is written.
+     * @param      len   the maximum number of bytes to read.
+     * @return the total number of bytes read into the buffer, zero when no data is available now, or
+     *             <code>-1</code> if the end of the stream has been reached.
+     * @throws IOException
+     */
+    public int readAvailable(final byte[] b, final int off, final int len) throws IOException {
+        Assert.isTrue(b != null && b.length >= 0, "array is null or have zero length");
+        Assert.isTrue(len > 0 && len <= b.length, "len is less than 1 or greater then array len");
+        Assert.isTrue(off >= 0, "off is negative");
+        try {
+            lock.lockInterruptibly();
+            int read = 0;
+            while(read < len && !end) {
+                T curr = pollCurrent();
+                if(curr == null) {
+                    break;
+                }
+                int res = adapter.readBytes(curr, b, off + read, len - read);
+                if(res == EOF) {
+                    releaseCurrent();
+                } else {
+                    read += res;
+                }
+            }
+            return (read == 0 && end)? EOF : read;
+        } catch (InterruptedException e) {
+            throw new IOException("Interrupted", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
     @Override
     public int read() throws IOException {
         try {
@@ -178,6 +234,24 @@ public class ChunkedInputStream<T> extends InputStream {
         return curr;
     }
 
+    @SuppressWarnings("unchecked")
+    private T pollCurrent() {
+        T curr = this.currentRef.get();
+        if(curr == null) {
+            Object obj = queue.poll();
+            if(obj == null) {
+                return null;
+            }
+            if(obj == END) {
+                this.end = true;
+                return null;
+            }
+            curr = (T) obj;
+            this.currentRef.set(curr);
+        }
+        return curr;
+    }
+
     /**
      * releaseCurrent can be called out of lock
      */
@@ -49,9 +49,19 @@ class NettyResponseHandler extends SimpleChannelInboundHandler<HttpObject> {
         }
     }
 
+    @Override
+    public void channelInactive(ChannelHandlerContext context) throws Exception {
+        // connection may be closed without last chunk, so we must end stream, otherwise its reader will wait forever
+        in.end();
+        super.channelInactive(context);
+    }
+
     @Override
     public void exceptionCaught(ChannelHandlerContext context, Throwable cause) throws Exception {
-        this.responseFuture.setException(cause);
+        if(!this.responseFuture.setException(cause)) {
+            // response is already passed to consumer, so we close connection and it end the stream
+            context.close();
+        }
     }
 
 }